@@ -4,38 +4,79 @@ import com.sun.net.httpserver.HttpServer;
 import io.github.akuniutka.kanban.model.Epic;
 import io.github.akuniutka.kanban.model.Subtask;
 import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.service.FileBackedTaskManager;
 import io.github.akuniutka.kanban.service.Managers;
+import io.github.akuniutka.kanban.service.StorageMode;
+import io.github.akuniutka.kanban.service.StorageOptions;
 import io.github.akuniutka.kanban.service.TaskManager;
+import io.github.akuniutka.kanban.web.BackupHandler;
+import io.github.akuniutka.kanban.web.ExportHandler;
 import io.github.akuniutka.kanban.web.HttpRequestHandler;
+import io.github.akuniutka.kanban.web.ImportHandler;
+import io.github.akuniutka.kanban.web.ReplicationHandler;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class HttpTaskServer {
     private static final int PORT = 8080;
     private final TaskManager taskManager;
     private final HttpServer httpServer;
+    private final int port;
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, null);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, Executor executor) throws IOException {
+        this(taskManager, executor, PORT);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, Executor executor, int port) throws IOException {
         this.taskManager = taskManager;
-        this.httpServer = HttpServer.create(new InetSocketAddress(PORT), 0);
+        this.port = port;
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        this.httpServer.setExecutor(executor);
         loadContext();
     }
 
     public static void main(String[] args) throws IOException {
         System.out.println("Поехали!");
-        HttpTaskServer httpTaskServer = new HttpTaskServer(Managers.getDefault());
+        final TaskManager taskManager;
+        int port = PORT;
+        if (args.length >= 3 && "--primary".equals(args[0])) {
+            final StorageOptions.Builder options = StorageOptions.builder().withMode(StorageMode.JOURNAL);
+            final String[] address = args[2].split(":");
+            if (address.length > 1) {
+                options.withReplicationHost(address[0]);
+            }
+            options.withReplicationPort(Integer.parseInt(address[address.length - 1]));
+            final FileBackedTaskManager fileBackedTaskManager = FileBackedTaskManager.loadFromFile(Path.of(args[1]),
+                    Managers.getDefaultHistory(), options.build());
+            fileBackedTaskManager.getRecoveryActions().forEach(System.out::println);
+            taskManager = fileBackedTaskManager;
+        } else if (args.length >= 3 && "--follower".equals(args[0])) {
+            final String[] primary = args[1].split(":");
+            taskManager = Managers.getReplica(primary[0], Integer.parseInt(primary[1]));
+            port = Integer.parseInt(args[2]);
+        } else {
+            taskManager = Managers.getDefault();
+        }
+        HttpTaskServer httpTaskServer = new HttpTaskServer(taskManager, null, port);
         httpTaskServer.start();
     }
 
     public void start() {
         httpServer.start();
-        System.out.println("HTTP server started at port: " + PORT);
+        System.out.println("HTTP server started at port: " + port);
     }
 
     public void stop() {
         httpServer.stop(0);
+        taskManager.flush();
         System.out.println("HTTP server stopped.");
     }
 
@@ -63,6 +104,10 @@ public class HttpTaskServer {
                 taskManager::getHistory));
         addHandler(new HttpRequestHandler<>("/api/v1/prioritized", Task.class,
                 taskManager::getPrioritizedTasks));
+        addHandler(new ExportHandler("/api/v1/export", taskManager));
+        addHandler(new ImportHandler("/api/v1/import", taskManager));
+        addHandler(new BackupHandler("/api/v1/admin/backup", taskManager));
+        addHandler(new ReplicationHandler("/api/v1/admin/replication", taskManager));
     }
 
     protected void addHandler(HttpRequestHandler<? extends Task> handler) {
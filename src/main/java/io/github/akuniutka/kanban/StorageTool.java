@@ -0,0 +1,107 @@
+package io.github.akuniutka.kanban;
+
+import io.github.akuniutka.kanban.exception.ManagerException;
+import io.github.akuniutka.kanban.service.MaintenanceReport;
+import io.github.akuniutka.kanban.service.SnapshotFormat;
+import io.github.akuniutka.kanban.service.StorageMaintenance;
+import io.github.akuniutka.kanban.service.StorageOptions;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Set;
+
+public class StorageTool {
+    private static final String USAGE = """
+            usage: StorageTool verify <file>
+                   StorageTool convert <source> <target> [--binary] [--gzip] [--checksums] [--renumber]
+                   StorageTool compact <file> [--renumber]
+                   StorageTool reindex <source> <target> [--page-size <bytes>]""";
+    private static final int OK = 0;
+    private static final int FAILED = 1;
+    private static final int WRONG_USAGE = 2;
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out));
+    }
+
+    static int run(String[] args, PrintStream out) {
+        if (args.length == 0) {
+            out.println(USAGE);
+            return WRONG_USAGE;
+        }
+        try {
+            final MaintenanceReport report = switch (args[0]) {
+                case "verify" -> {
+                    requireArguments(args, 2, Set.of());
+                    yield StorageMaintenance.verify(Path.of(args[1]));
+                }
+                case "convert" -> {
+                    requireArguments(args, 3, Set.of("--binary", "--gzip", "--checksums", "--renumber"));
+                    yield StorageMaintenance.convert(Path.of(args[1]), Path.of(args[2]), parseOptions(args, 3),
+                            hasFlag(args, "--renumber"));
+                }
+                case "compact" -> {
+                    requireArguments(args, 2, Set.of("--renumber"));
+                    yield StorageMaintenance.compact(Path.of(args[1]), hasFlag(args, "--renumber"));
+                }
+                case "reindex" -> {
+                    requireArguments(args, 3, Set.of("--page-size"));
+                    yield StorageMaintenance.reindex(Path.of(args[1]), Path.of(args[2]), parseOptions(args, 3));
+                }
+                default -> throw new IllegalArgumentException("unknown command \"%s\"".formatted(args[0]));
+            };
+            out.println(report);
+            return report.isClean() ? OK : FAILED;
+        } catch (IllegalArgumentException exception) {
+            out.println(exception.getMessage());
+            out.println(USAGE);
+            return WRONG_USAGE;
+        } catch (ManagerException | IllegalStateException exception) {
+            out.println("failed: " + exception.getMessage());
+            return FAILED;
+        }
+    }
+
+    private static void requireArguments(String[] args, int count, Set<String> allowedOptions) {
+        if (args.length < count) {
+            throw new IllegalArgumentException("not enough arguments for \"%s\"".formatted(args[0]));
+        }
+        for (int i = count; i < args.length; i++) {
+            if (!allowedOptions.contains(args[i])) {
+                throw new IllegalArgumentException("unknown option \"%s\"".formatted(args[i]));
+            }
+            if ("--page-size".equals(args[i])) {
+                i++;
+            }
+        }
+    }
+
+    private static boolean hasFlag(String[] args, String flag) {
+        for (String arg : args) {
+            if (flag.equals(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static StorageOptions parseOptions(String[] args, int from) {
+        final StorageOptions.Builder builder = StorageOptions.builder();
+        for (int i = from; i < args.length; i++) {
+            switch (args[i]) {
+                case "--binary" -> builder.withSnapshotFormat(SnapshotFormat.BINARY);
+                case "--gzip" -> builder.withCompression(true);
+                case "--checksums" -> builder.withChecksums(true);
+                case "--page-size" -> {
+                    if (++i == args.length) {
+                        throw new IllegalArgumentException("no value for \"--page-size\"");
+                    }
+                    builder.withPageSize(Integer.parseInt(args[i]));
+                }
+                default -> {
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -1,6 +1,7 @@
 package io.github.akuniutka.kanban.exception;
 
 import java.io.IOException;
+import java.sql.SQLException;
 
 public class ManagerLoadException extends ManagerException {
     public ManagerLoadException(String message) {
@@ -10,4 +11,8 @@ public class ManagerLoadException extends ManagerException {
     public ManagerLoadException(String message, IOException cause) {
         super(message, cause);
     }
+
+    public ManagerLoadException(String message, SQLException cause) {
+        super(message, cause);
+    }
 }
@@ -1,9 +1,14 @@
 package io.github.akuniutka.kanban.exception;
 
 import java.io.IOException;
+import java.sql.SQLException;
 
 public class ManagerSaveException extends ManagerException {
     public ManagerSaveException(String message, IOException cause) {
         super(message, cause);
     }
+
+    public ManagerSaveException(String message, SQLException cause) {
+        super(message, cause);
+    }
 }
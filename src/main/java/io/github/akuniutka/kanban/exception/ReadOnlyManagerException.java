@@ -0,0 +1,7 @@
+package io.github.akuniutka.kanban.exception;
+
+public class ReadOnlyManagerException extends ManagerException {
+    public ReadOnlyManagerException(String message) {
+        super(message);
+    }
+}
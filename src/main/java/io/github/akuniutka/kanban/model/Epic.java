@@ -40,7 +40,6 @@ public class Epic extends Task {
                 Epic{id=%s, type=%s, title=%s, description%s, subtaskIds=%s, duration=%s, startTime=%s, endTime=%s, \
                 status=%s}\
                 """.formatted(getId(), getType(), getTitle() == null ? "null" : "\"" + getTitle() + "\"",
-                getDescription() == null ? "=null" : ".length=" + getDescription().length(), subtaskIds, getDuration(),
-                getStartTime(), getEndTime(), getStatus());
+                formatDescriptionLength(), subtaskIds, getDuration(), getStartTime(), getEndTime(), getStatus());
     }
 }
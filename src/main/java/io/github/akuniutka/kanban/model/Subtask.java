@@ -23,7 +23,6 @@ public class Subtask extends Task {
                 status=%s}\
                 """.formatted(
                 getId(), getType(), epicId, getTitle() == null ? "null" : "\"" + getTitle() + "\"",
-                getDescription() == null ? "=null" : ".length=" + getDescription().length(), getDuration(),
-                getStartTime(), getEndTime(), getStatus());
+                formatDescriptionLength(), getDuration(), getStartTime(), getEndTime(), getStatus());
     }
 }
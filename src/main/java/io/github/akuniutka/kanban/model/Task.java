@@ -73,10 +73,9 @@ public class Task {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (!(o instanceof Task task) || getType() != task.getType()) {
             return false;
         }
-        Task task = (Task) o;
         return Objects.equals(id, task.id);
     }
 
@@ -90,7 +89,12 @@ public class Task {
         return """
                 Task{id=%s, type=%s, title=%s, description%s, duration=%s, startTime=%s, endTime=%s, status=%s}\
                 """.formatted(id, getType(), title == null ? "null" : "\"" + title + "\"",
-                description == null ? "=null" : ".length=" + description.length(), getDuration(), startTime,
-                getEndTime(), status);
+                formatDescriptionLength(), getDuration(), startTime, getEndTime(), status);
+    }
+
+    // a subclass may read the description from storage on each call, so fetch it once
+    String formatDescriptionLength() {
+        final String loadedDescription = getDescription();
+        return loadedDescription == null ? "=null" : ".length=" + loadedDescription.length();
     }
 }
@@ -0,0 +1,287 @@
+package io.github.akuniutka.kanban.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BPlusTree {
+    private static final byte[] EMPTY = new byte[0];
+    private final BufferPool pool;
+    private final int keyWidth;
+    private final int rootSlot;
+    private final int maxInlineValue;
+
+    BPlusTree(BufferPool pool, int keyWidth, int rootSlot) throws IOException {
+        this.pool = pool;
+        this.keyWidth = keyWidth;
+        this.rootSlot = rootSlot;
+        this.maxInlineValue = pool.getPageSize() / 4 - 8 * keyWidth;
+        if (pool.getFile().getMeta(rootSlot) == BTreeNode.NO_PAGE) {
+            setRoot(pool.allocate(keyWidth, true));
+        }
+    }
+
+    byte[] get(long[] key) throws IOException {
+        final BTreeNode leaf = findLeaf(key);
+        final int index = leaf.search(key);
+        return index < 0 ? null : read(leaf.values.get(index));
+    }
+
+    boolean contains(long[] key) throws IOException {
+        return findLeaf(key).search(key) >= 0;
+    }
+
+    void put(long[] key, byte[] value) throws IOException {
+        final BTreeNode root = root();
+        final Split split = insert(root, key, store(value == null ? EMPTY : value));
+        if (split != null) {
+            final BTreeNode newRoot = pool.allocate(keyWidth, false);
+            newRoot.children.add(root.page);
+            newRoot.keys.add(split.key());
+            newRoot.children.add(split.page());
+            setRoot(newRoot);
+        }
+    }
+
+    boolean remove(long[] key) throws IOException {
+        final BTreeNode root = root();
+        final Removal removal = delete(root, key);
+        if (root.isLeaf || removal == Removal.NOT_FOUND) {
+            return removal != Removal.NOT_FOUND;
+        }
+        if (root.children.isEmpty()) {
+            pool.free(root);
+            setRoot(pool.allocate(keyWidth, true));
+        } else if (root.children.size() == 1) {
+            setRoot(pool.get(root.children.getFirst()));
+            pool.free(root);
+        }
+        return true;
+    }
+
+    Entry floor(long[] key) throws IOException {
+        BTreeNode leaf = findLeaf(key);
+        int index = leaf.search(key);
+        index = index >= 0 ? index : -index - 2;
+        if (index < 0) {
+            if (leaf.prev == BTreeNode.NO_PAGE) {
+                return null;
+            }
+            leaf = pool.get(leaf.prev);
+            index = leaf.keys.size() - 1;
+        }
+        return new Entry(leaf.keys.get(index), read(leaf.values.get(index)));
+    }
+
+    Entry higher(long[] key) throws IOException {
+        BTreeNode leaf = findLeaf(key);
+        int index = leaf.search(key);
+        index = index >= 0 ? index + 1 : -index - 1;
+        if (index == leaf.keys.size()) {
+            if (leaf.next == BTreeNode.NO_PAGE) {
+                return null;
+            }
+            leaf = pool.get(leaf.next);
+            index = 0;
+        }
+        return new Entry(leaf.keys.get(index), read(leaf.values.get(index)));
+    }
+
+    void scan(long[] from, long[] to, EntryVisitor visitor) throws IOException {
+        BTreeNode leaf = findLeaf(from);
+        int index = leaf.search(from);
+        index = index >= 0 ? index : -index - 1;
+        while (true) {
+            for (; index < leaf.keys.size(); index++) {
+                final long[] key = leaf.keys.get(index);
+                if (BTreeNode.compare(key, to) > 0
+                        || !visitor.visit(key, read(leaf.values.get(index)))) {
+                    return;
+                }
+            }
+            if (leaf.next == BTreeNode.NO_PAGE) {
+                return;
+            }
+            leaf = pool.get(leaf.next);
+            index = 0;
+        }
+    }
+
+    List<long[]> keys(long[] from, long[] to, int limit) throws IOException {
+        final List<long[]> keys = new ArrayList<>();
+        BTreeNode leaf = findLeaf(from);
+        int index = leaf.search(from);
+        index = index >= 0 ? index : -index - 1;
+        while (keys.size() < limit) {
+            if (index == leaf.keys.size()) {
+                if (leaf.next == BTreeNode.NO_PAGE) {
+                    break;
+                }
+                leaf = pool.get(leaf.next);
+                index = 0;
+                continue;
+            }
+            final long[] key = leaf.keys.get(index++);
+            if (BTreeNode.compare(key, to) > 0) {
+                break;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private BTreeNode root() throws IOException {
+        return pool.get((int) pool.getFile().getMeta(rootSlot));
+    }
+
+    private void setRoot(BTreeNode node) {
+        pool.getFile().setMeta(rootSlot, node.page);
+    }
+
+    private BTreeNode findLeaf(long[] key) throws IOException {
+        BTreeNode node = root();
+        while (!node.isLeaf) {
+            node = pool.get(node.children.get(node.childIndex(key)));
+        }
+        return node;
+    }
+
+    private Split insert(BTreeNode node, long[] key, BTreeNode.Value value) throws IOException {
+        if (node.isLeaf) {
+            final int index = node.search(key);
+            if (index >= 0) {
+                release(node.values.set(index, value));
+            } else {
+                node.keys.add(-index - 1, key);
+                node.values.add(-index - 1, value);
+            }
+            pool.markDirty(node);
+            return node.size() > pool.getPageSize() ? splitLeaf(node) : null;
+        }
+        final int childIndex = node.childIndex(key);
+        final Split split = insert(pool.get(node.children.get(childIndex)), key, value);
+        if (split == null) {
+            return null;
+        }
+        node.keys.add(childIndex, split.key());
+        node.children.add(childIndex + 1, split.page());
+        pool.markDirty(node);
+        return node.size() > pool.getPageSize() ? splitInternal(node) : null;
+    }
+
+    private Split splitLeaf(BTreeNode leaf) throws IOException {
+        final int half = leaf.size() / 2;
+        int size = BTreeNode.HEADER_SIZE;
+        int splitAt = 0;
+        while (splitAt < leaf.keys.size() - 1 && size < half) {
+            size += leaf.entrySize(leaf.values.get(splitAt++));
+        }
+        splitAt = Integer.max(splitAt, 1);
+        final BTreeNode right = pool.allocate(keyWidth, true);
+        moveTail(leaf.keys, right.keys, splitAt);
+        moveTail(leaf.values, right.values, splitAt);
+        right.prev = leaf.page;
+        right.next = leaf.next;
+        if (leaf.next != BTreeNode.NO_PAGE) {
+            final BTreeNode next = pool.get(leaf.next);
+            next.prev = right.page;
+            pool.markDirty(next);
+        }
+        leaf.next = right.page;
+        pool.markDirty(leaf);
+        return new Split(right.keys.getFirst(), right.page);
+    }
+
+    private Split splitInternal(BTreeNode node) throws IOException {
+        final int middle = node.keys.size() / 2;
+        final BTreeNode right = pool.allocate(keyWidth, false);
+        final long[] separator = node.keys.get(middle);
+        moveTail(node.keys, right.keys, middle + 1);
+        node.keys.removeLast();
+        moveTail(node.children, right.children, middle + 1);
+        pool.markDirty(node);
+        return new Split(separator, right.page);
+    }
+
+    private Removal delete(BTreeNode node, long[] key) throws IOException {
+        if (node.isLeaf) {
+            final int index = node.search(key);
+            if (index < 0) {
+                return Removal.NOT_FOUND;
+            }
+            node.keys.remove(index);
+            release(node.values.remove(index));
+            pool.markDirty(node);
+            return node.keys.isEmpty() ? Removal.EMPTY : Removal.REMOVED;
+        }
+        final int childIndex = node.childIndex(key);
+        final BTreeNode child = pool.get(node.children.get(childIndex));
+        final Removal removal = delete(child, key);
+        if (removal != Removal.EMPTY) {
+            return removal;
+        }
+        if (child.isLeaf) {
+            unlink(child);
+        }
+        pool.free(child);
+        node.children.remove(childIndex);
+        if (!node.keys.isEmpty()) {
+            node.keys.remove(Integer.max(childIndex - 1, 0));
+        }
+        pool.markDirty(node);
+        return node.children.isEmpty() ? Removal.EMPTY : Removal.REMOVED;
+    }
+
+    private void unlink(BTreeNode leaf) throws IOException {
+        if (leaf.prev != BTreeNode.NO_PAGE) {
+            final BTreeNode prev = pool.get(leaf.prev);
+            prev.next = leaf.next;
+            pool.markDirty(prev);
+        }
+        if (leaf.next != BTreeNode.NO_PAGE) {
+            final BTreeNode next = pool.get(leaf.next);
+            next.prev = leaf.prev;
+            pool.markDirty(next);
+        }
+    }
+
+    private BTreeNode.Value store(byte[] bytes) throws IOException {
+        if (bytes.length <= maxInlineValue) {
+            return new BTreeNode.Value(bytes, BTreeNode.NO_PAGE, bytes.length);
+        }
+        return new BTreeNode.Value(null, pool.writeOverflow(bytes), bytes.length);
+    }
+
+    private byte[] read(BTreeNode.Value value) throws IOException {
+        return value.isOverflow() ? pool.readOverflow(value.overflowPage(), value.length()) : value.bytes();
+    }
+
+    private void release(BTreeNode.Value value) throws IOException {
+        if (value.isOverflow()) {
+            pool.freeOverflow(value.overflowPage());
+        }
+    }
+
+    private static <T> void moveTail(List<T> source, List<T> target, int from) {
+        final List<T> tail = source.subList(from, source.size());
+        target.addAll(tail);
+        tail.clear();
+    }
+
+    @FunctionalInterface
+    interface EntryVisitor {
+        boolean visit(long[] key, byte[] value) throws IOException;
+    }
+
+    record Entry(long[] key, byte[] value) {
+    }
+
+    private record Split(long[] key, int page) {
+    }
+
+    private enum Removal {
+        NOT_FOUND,
+        REMOVED,
+        EMPTY
+    }
+}
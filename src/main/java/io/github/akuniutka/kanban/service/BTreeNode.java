@@ -0,0 +1,164 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BTreeNode {
+    static final int HEADER_SIZE = 16;
+    static final int NO_PAGE = 0;
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int INLINE_OVERHEAD = 4;
+    private static final int OVERFLOW_OVERHEAD = 12;
+    private static final int OVERFLOW_MARKER = -1;
+    final int page;
+    final int keyWidth;
+    final boolean isLeaf;
+    final List<long[]> keys;
+    final List<Value> values;
+    final List<Integer> children;
+    int prev;
+    int next;
+    boolean isDirty;
+
+    BTreeNode(int page, int keyWidth, boolean isLeaf) {
+        this.page = page;
+        this.keyWidth = keyWidth;
+        this.isLeaf = isLeaf;
+        this.keys = new ArrayList<>();
+        this.values = isLeaf ? new ArrayList<>() : null;
+        this.children = isLeaf ? null : new ArrayList<>();
+        this.prev = NO_PAGE;
+        this.next = NO_PAGE;
+    }
+
+    static BTreeNode decode(int page, ByteBuffer buffer) {
+        final byte type = buffer.get(0);
+        if (type != LEAF && type != INTERNAL) {
+            throw new ManagerLoadException("wrong node type at page " + page);
+        }
+        final BTreeNode node = new BTreeNode(page, buffer.get(1), type == LEAF);
+        final int count = buffer.getInt(4);
+        buffer.position(HEADER_SIZE);
+        if (node.isLeaf) {
+            node.prev = buffer.getInt(8);
+            node.next = buffer.getInt(12);
+            for (int i = 0; i < count; i++) {
+                node.keys.add(node.readKey(buffer));
+                final int length = buffer.getInt();
+                if (length == OVERFLOW_MARKER) {
+                    final int overflowPage = buffer.getInt();
+                    node.values.add(new Value(null, overflowPage, buffer.getInt()));
+                } else {
+                    final byte[] bytes = new byte[length];
+                    buffer.get(bytes);
+                    node.values.add(new Value(bytes, NO_PAGE, length));
+                }
+            }
+        } else {
+            node.children.add(buffer.getInt());
+            for (int i = 0; i < count; i++) {
+                node.keys.add(node.readKey(buffer));
+                node.children.add(buffer.getInt());
+            }
+        }
+        return node;
+    }
+
+    void encode(ByteBuffer buffer) {
+        buffer.clear();
+        buffer.put(0, isLeaf ? LEAF : INTERNAL);
+        buffer.put(1, (byte) keyWidth);
+        buffer.putInt(4, keys.size());
+        buffer.position(HEADER_SIZE);
+        if (isLeaf) {
+            buffer.putInt(8, prev);
+            buffer.putInt(12, next);
+            for (int i = 0; i < keys.size(); i++) {
+                writeKey(buffer, keys.get(i));
+                final Value value = values.get(i);
+                if (value.isOverflow()) {
+                    buffer.putInt(OVERFLOW_MARKER).putInt(value.overflowPage()).putInt(value.length());
+                } else {
+                    buffer.putInt(value.length()).put(value.bytes());
+                }
+            }
+        } else {
+            buffer.putInt(children.getFirst());
+            for (int i = 0; i < keys.size(); i++) {
+                writeKey(buffer, keys.get(i));
+                buffer.putInt(children.get(i + 1));
+            }
+        }
+    }
+
+    int size() {
+        if (!isLeaf) {
+            return HEADER_SIZE + 4 + keys.size() * (8 * keyWidth + 4);
+        }
+        int size = HEADER_SIZE;
+        for (Value value : values) {
+            size += entrySize(value);
+        }
+        return size;
+    }
+
+    int entrySize(Value value) {
+        return 8 * keyWidth + (value.isOverflow() ? OVERFLOW_OVERHEAD : INLINE_OVERHEAD + value.length());
+    }
+
+    int search(long[] key) {
+        int low = 0;
+        int high = keys.size() - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = compare(keys.get(middle), key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    int childIndex(long[] key) {
+        final int index = search(key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    static int compare(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            final int comparison = Long.compare(a[i], b[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private long[] readKey(ByteBuffer buffer) {
+        final long[] key = new long[keyWidth];
+        for (int i = 0; i < keyWidth; i++) {
+            key[i] = buffer.getLong();
+        }
+        return key;
+    }
+
+    private void writeKey(ByteBuffer buffer, long[] key) {
+        for (long part : key) {
+            buffer.putLong(part);
+        }
+    }
+
+    record Value(byte[] bytes, int overflowPage, int length) {
+        boolean isOverflow() {
+            return overflowPage != NO_PAGE;
+        }
+    }
+}
@@ -0,0 +1,617 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.exception.ManagerValidationException;
+import io.github.akuniutka.kanban.exception.TaskNotFoundException;
+import io.github.akuniutka.kanban.exception.TaskOverlapException;
+import io.github.akuniutka.kanban.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class BTreeTaskManager implements TaskManager, AutoCloseable {
+    private static final int TASKS_ROOT = 0;
+    private static final int EPICS_ROOT = 1;
+    private static final int SUBTASKS_ROOT = 2;
+    private static final int START_TIME_ROOT = 3;
+    private static final int EPIC_SUBTASKS_ROOT = 4;
+    private static final int NEXT_ID = 5;
+    private static final int BATCH_SIZE = 1024;
+    private static final int CACHED_AGGREGATES = 1024;
+    private static final long NULL_VALUE = Long.MIN_VALUE;
+    private static final int NULL_LENGTH = -1;
+    private static final long[] MIN_KEY = {Long.MIN_VALUE};
+    private static final long[] MAX_KEY = {Long.MAX_VALUE};
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private final Path path;
+    private final HistoryManager historyManager;
+    private final PageFile file;
+    private final BufferPool pool;
+    private final BPlusTree tasks;
+    private final BPlusTree epics;
+    private final BPlusTree subtasks;
+    private final BPlusTree startTimes;
+    private final BPlusTree epicSubtasks;
+    private final LinkedHashMap<Long, EpicAggregate> aggregates;
+    private long lastUsedId;
+
+    private BTreeTaskManager(Path path, HistoryManager historyManager, StorageOptions options) throws IOException {
+        this.path = path;
+        this.historyManager = historyManager;
+        this.aggregates = new LinkedHashMap<>(16, 0.75f, true);
+        this.file = PageFile.open(path, options.getPageSize(), options.getFsyncPolicy() == FsyncPolicy.ALWAYS);
+        try {
+            this.pool = new BufferPool(file, options.getBufferPoolSize());
+            this.tasks = new BPlusTree(pool, 1, TASKS_ROOT);
+            this.epics = new BPlusTree(pool, 1, EPICS_ROOT);
+            this.subtasks = new BPlusTree(pool, 1, SUBTASKS_ROOT);
+            this.startTimes = new BPlusTree(pool, 2, START_TIME_ROOT);
+            this.epicSubtasks = new BPlusTree(pool, 2, EPIC_SUBTASKS_ROOT);
+            this.lastUsedId = file.getMeta(NEXT_ID) - 1L;
+            pool.flush();
+            file.commit();
+        } catch (IOException | RuntimeException exception) {
+            file.close();
+            throw exception;
+        }
+    }
+
+    public static BTreeTaskManager open(Path path, HistoryManager historyManager) {
+        return open(path, historyManager, StorageOptions.defaults());
+    }
+
+    public static BTreeTaskManager open(Path path, HistoryManager historyManager, StorageOptions options) {
+        Objects.requireNonNull(path, "cannot start: file is null");
+        Objects.requireNonNull(historyManager, "cannot start: history manager is null");
+        Objects.requireNonNull(options, "cannot start: storage options are null");
+        try {
+            return new BTreeTaskManager(path, historyManager, options);
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    @Override
+    public synchronized List<Task> getTasks() {
+        return read(() -> {
+            final List<Task> result = new ArrayList<>();
+            tasks.scan(MIN_KEY, MAX_KEY, (key, value) -> result.add(decode(TaskType.TASK, key[0], value)));
+            return result;
+        });
+    }
+
+    @Override
+    public synchronized void deleteTasks() {
+        write(() -> {
+            deleteAll(tasks, this::removeTask);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized Optional<Task> getTaskById(long id) {
+        final Optional<Task> task = read(() -> Optional.ofNullable(load(tasks, TaskType.TASK, id)));
+        task.ifPresent(historyManager::add);
+        return task;
+    }
+
+    @Override
+    public synchronized Task createTask(Task task) {
+        Objects.requireNonNull(task, "cannot create null task");
+        task.setId(generateId());
+        return updateTask(task);
+    }
+
+    @Override
+    public synchronized Task updateTask(Task task) {
+        Objects.requireNonNull(task, "cannot apply null update");
+        return write(() -> {
+            validate(task);
+            final Task savedTask = load(tasks, TaskType.TASK, task.getId());
+            tasks.put(key(task.getId()), encode(task));
+            replaceStartTime(savedTask, task);
+            return task;
+        });
+    }
+
+    @Override
+    public synchronized void deleteTask(long id) {
+        write(() -> {
+            final Task task = load(tasks, TaskType.TASK, id);
+            if (task == null) {
+                throw new TaskNotFoundException("no task with id=" + id);
+            }
+            removeTask(task);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics() {
+        return read(() -> {
+            final List<Long> ids = new ArrayList<>();
+            epics.scan(MIN_KEY, MAX_KEY, (key, value) -> ids.add(key[0]));
+            final List<Epic> result = new ArrayList<>(ids.size());
+            for (long id : ids) {
+                result.add((Epic) load(epics, TaskType.EPIC, id));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public synchronized void deleteEpics() {
+        write(() -> {
+            deleteAll(subtasks, this::removeSubtask);
+            deleteAll(epics, epic -> {
+                epics.remove(key(epic.getId()));
+                historyManager.remove(epic.getId());
+            });
+            aggregates.clear();
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized Optional<Epic> getEpicById(long id) {
+        final Optional<Epic> epic = read(() -> Optional.ofNullable((Epic) load(epics, TaskType.EPIC, id)));
+        epic.ifPresent(historyManager::add);
+        return epic;
+    }
+
+    @Override
+    public synchronized Epic createEpic(Epic epic) {
+        Objects.requireNonNull(epic, "cannot create null epic");
+        epic.setId(generateId());
+        return updateEpic(epic);
+    }
+
+    @Override
+    public synchronized Epic updateEpic(Epic epic) {
+        Objects.requireNonNull(epic, "cannot apply null update");
+        return write(() -> {
+            validate(epic);
+            final byte[] savedEpic = epics.get(key(epic.getId()));
+            if (savedEpic == null) {
+                new EpicAggregate().applyTo(epic);
+            } else {
+                copyAggregate((Epic) decode(TaskType.EPIC, epic.getId(), savedEpic), epic);
+            }
+            epics.put(key(epic.getId()), encode(epic));
+            return epic;
+        });
+    }
+
+    @Override
+    public synchronized void deleteEpic(long id) {
+        write(() -> {
+            final Epic epic = (Epic) load(epics, TaskType.EPIC, id);
+            if (epic == null) {
+                throw new TaskNotFoundException("no epic with id=" + id);
+            }
+            for (long subtaskId : epic.getSubtaskIds()) {
+                removeSubtask(load(subtasks, TaskType.SUBTASK, subtaskId));
+            }
+            epics.remove(key(id));
+            aggregates.remove(id);
+            historyManager.remove(id);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks() {
+        return read(() -> {
+            final List<Subtask> result = new ArrayList<>();
+            subtasks.scan(MIN_KEY, MAX_KEY,
+                    (key, value) -> result.add((Subtask) decode(TaskType.SUBTASK, key[0], value)));
+            return result;
+        });
+    }
+
+    @Override
+    public synchronized void deleteSubtasks() {
+        write(() -> {
+            deleteAll(subtasks, this::removeSubtask);
+            aggregates.clear();
+            final List<Long> ids = new ArrayList<>();
+            epics.scan(MIN_KEY, MAX_KEY, (key, value) -> ids.add(key[0]));
+            for (long id : ids) {
+                saveAggregate(id, new EpicAggregate());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized Optional<Subtask> getSubtaskById(long id) {
+        final Optional<Subtask> subtask = read(() -> Optional.ofNullable(
+                (Subtask) load(subtasks, TaskType.SUBTASK, id)));
+        subtask.ifPresent(historyManager::add);
+        return subtask;
+    }
+
+    @Override
+    public synchronized Subtask createSubtask(Subtask subtask) {
+        Objects.requireNonNull(subtask, "cannot create null subtask");
+        subtask.setId(generateId());
+        return updateSubtask(subtask);
+    }
+
+    @Override
+    public synchronized Subtask updateSubtask(Subtask subtask) {
+        Objects.requireNonNull(subtask, "cannot apply null update");
+        return write(() -> {
+            validate(subtask);
+            final Task savedSubtask = load(subtasks, TaskType.SUBTASK, subtask.getId());
+            subtasks.put(key(subtask.getId()), encode(subtask));
+            epicSubtasks.put(new long[]{subtask.getEpicId(), subtask.getId()}, null);
+            replaceStartTime(savedSubtask, subtask);
+            final EpicAggregate aggregate = getAggregate(subtask.getEpicId());
+            aggregate.put(subtask);
+            saveAggregate(subtask.getEpicId(), aggregate);
+            return subtask;
+        });
+    }
+
+    @Override
+    public synchronized void deleteSubtask(long id) {
+        write(() -> {
+            final Subtask subtask = (Subtask) load(subtasks, TaskType.SUBTASK, id);
+            if (subtask == null) {
+                throw new TaskNotFoundException("no subtask with id=" + id);
+            }
+            removeSubtask(subtask);
+            final EpicAggregate aggregate = getAggregate(subtask.getEpicId());
+            aggregate.remove(id);
+            saveAggregate(subtask.getEpicId(), aggregate);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized List<Subtask> getEpicSubtasks(long epicId) {
+        return read(() -> {
+            if (!epics.contains(key(epicId))) {
+                throw new TaskNotFoundException("no epic with id=" + epicId);
+            }
+            return loadSubtasks(epicId);
+        });
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return read(() -> {
+            final List<long[]> keys = new ArrayList<>();
+            startTimes.scan(new long[]{Long.MIN_VALUE, Long.MIN_VALUE}, new long[]{Long.MAX_VALUE, Long.MAX_VALUE},
+                    (key, value) -> keys.add(key));
+            final List<Task> result = new ArrayList<>(keys.size());
+            for (long[] key : keys) {
+                final Task task = load(tasks, TaskType.TASK, key[1]);
+                result.add(task != null ? task : load(subtasks, TaskType.SUBTASK, key[1]));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public synchronized void flush() {
+        write(() -> {
+            file.force();
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            pool.flush();
+            file.commit();
+            file.force();
+            file.close();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot close file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    synchronized int getCachedPages() {
+        return pool.size();
+    }
+
+    private long generateId() {
+        file.setMeta(NEXT_ID, ++lastUsedId + 1L);
+        return lastUsedId;
+    }
+
+    private void validate(Task task) throws IOException {
+        if (task.getId() == null) {
+            throw new ManagerValidationException("id cannot be null");
+        }
+        final TaskType type = getTaskTypeById(task.getId());
+        if (type == null) {
+            lastUsedId = Long.max(lastUsedId, task.getId());
+            file.setMeta(NEXT_ID, lastUsedId + 1L);
+        } else if (task.getType() != type) {
+            throw new ManagerValidationException("wrong task type");
+        }
+        if (task instanceof Epic epic) {
+            epic.setSubtaskIds(type == null ? new ArrayList<>() : loadSubtaskIds(epic.getId()));
+        }
+        if (task instanceof Subtask subtask) {
+            if (type != null) {
+                subtask.setEpicId(((Subtask) load(subtasks, TaskType.SUBTASK, subtask.getId())).getEpicId());
+            } else if (subtask.getEpicId() == null || !epics.contains(key(subtask.getEpicId()))) {
+                throw new ManagerValidationException("wrong epic id");
+            }
+        }
+        validateDurationAndStartTime(task);
+        if (task.getType() != TaskType.EPIC && task.getStatus() == null) {
+            throw new ManagerValidationException("status cannot be null");
+        }
+    }
+
+    private void validateDurationAndStartTime(Task task) throws IOException {
+        if (task.getType() == TaskType.EPIC || (task.getDuration() == null && task.getStartTime() == null)) {
+            return;
+        }
+        if (task.getDuration() == null || task.getStartTime() == null) {
+            throw new ManagerValidationException("duration and start time must be either both set or both null");
+        }
+        task.setDuration(task.getDuration().truncatedTo(ChronoUnit.MINUTES));
+        if (!task.getDuration().isPositive()) {
+            throw new ManagerValidationException("duration cannot be negative or zero");
+        }
+        task.setStartTime(task.getStartTime().truncatedTo(ChronoUnit.MINUTES));
+        requireDoesNotOverlapOtherTasks(task);
+    }
+
+    private void requireDoesNotOverlapOtherTasks(Task task) throws IOException {
+        final long start = toMinutes(task.getStartTime());
+        final long end = toMinutes(task.getEndTime());
+        final long[] key = {start, Long.MAX_VALUE};
+        final BPlusTree.Entry before = startTimes.floor(key);
+        if (before != null && before.key()[1] != task.getId() && start < endOf(before)) {
+            throw new TaskOverlapException("conflict with another task for time slot");
+        }
+        BPlusTree.Entry after = startTimes.higher(key);
+        if (after != null && after.key()[1] == task.getId()) {
+            after = startTimes.higher(new long[]{after.key()[0], Long.MAX_VALUE});
+        }
+        if (after != null && end > after.key()[0]) {
+            throw new TaskOverlapException("conflict with another task for time slot");
+        }
+    }
+
+    private TaskType getTaskTypeById(long id) throws IOException {
+        final long[] key = key(id);
+        if (tasks.contains(key)) {
+            return TaskType.TASK;
+        } else if (epics.contains(key)) {
+            return TaskType.EPIC;
+        } else if (subtasks.contains(key)) {
+            return TaskType.SUBTASK;
+        }
+        return null;
+    }
+
+    // the epic record keeps the aggregate, the cache only saves rereading subtasks on the next subtask write
+    private EpicAggregate getAggregate(long epicId) throws IOException {
+        EpicAggregate aggregate = aggregates.get(epicId);
+        if (aggregate != null) {
+            return aggregate;
+        }
+        aggregate = new EpicAggregate();
+        for (Subtask subtask : loadSubtasks(epicId)) {
+            aggregate.put(subtask);
+        }
+        aggregates.put(epicId, aggregate);
+        final Iterator<Long> iterator = aggregates.keySet().iterator();
+        while (aggregates.size() > CACHED_AGGREGATES) {
+            iterator.next();
+            iterator.remove();
+        }
+        return aggregate;
+    }
+
+    private void saveAggregate(long epicId, EpicAggregate aggregate) throws IOException {
+        final Epic epic = (Epic) decode(TaskType.EPIC, epicId, epics.get(key(epicId)));
+        aggregate.applyTo(epic);
+        epics.put(key(epicId), encode(epic));
+    }
+
+    private static void copyAggregate(Epic source, Epic target) {
+        target.setStatus(source.getStatus());
+        target.setDuration(source.getDuration());
+        target.setStartTime(source.getStartTime());
+        target.setEndTime(source.getEndTime());
+    }
+
+    private void removeTask(Task task) throws IOException {
+        tasks.remove(key(task.getId()));
+        removeStartTime(task);
+        historyManager.remove(task.getId());
+    }
+
+    private void removeSubtask(Task task) throws IOException {
+        final Subtask subtask = (Subtask) task;
+        subtasks.remove(key(subtask.getId()));
+        epicSubtasks.remove(new long[]{subtask.getEpicId(), subtask.getId()});
+        removeStartTime(subtask);
+        historyManager.remove(subtask.getId());
+    }
+
+    private void replaceStartTime(Task previousVersion, Task currentVersion) throws IOException {
+        removeStartTime(previousVersion);
+        if (currentVersion.getStartTime() != null) {
+            final byte[] end = ByteBuffer.allocate(Long.BYTES).putLong(0, toMinutes(currentVersion.getEndTime()))
+                    .array();
+            startTimes.put(new long[]{toMinutes(currentVersion.getStartTime()), currentVersion.getId()}, end);
+        }
+    }
+
+    private void removeStartTime(Task task) throws IOException {
+        if (task != null && task.getStartTime() != null) {
+            startTimes.remove(new long[]{toMinutes(task.getStartTime()), task.getId()});
+        }
+    }
+
+    private void deleteAll(BPlusTree tree, TaskRemover remover) throws IOException {
+        final TaskType type = tree == tasks ? TaskType.TASK : tree == epics ? TaskType.EPIC : TaskType.SUBTASK;
+        List<long[]> keys = tree.keys(MIN_KEY, MAX_KEY, BATCH_SIZE);
+        while (!keys.isEmpty()) {
+            for (long[] key : keys) {
+                remover.remove(load(tree, type, key[0]));
+            }
+            keys = tree.keys(MIN_KEY, MAX_KEY, BATCH_SIZE);
+        }
+    }
+
+    private List<Long> loadSubtaskIds(long epicId) throws IOException {
+        final List<Long> ids = new ArrayList<>();
+        epicSubtasks.scan(new long[]{epicId, Long.MIN_VALUE}, new long[]{epicId, Long.MAX_VALUE},
+                (key, value) -> ids.add(key[1]));
+        return ids;
+    }
+
+    private List<Subtask> loadSubtasks(long epicId) throws IOException {
+        final List<Subtask> result = new ArrayList<>();
+        for (long id : loadSubtaskIds(epicId)) {
+            result.add((Subtask) load(subtasks, TaskType.SUBTASK, id));
+        }
+        return result;
+    }
+
+    private Task load(BPlusTree tree, TaskType type, long id) throws IOException {
+        final byte[] value = tree.get(key(id));
+        if (value == null) {
+            return null;
+        }
+        final Task task = decode(type, id, value);
+        if (task instanceof Epic epic) {
+            epic.setSubtaskIds(loadSubtaskIds(id));
+        }
+        return task;
+    }
+
+    private static byte[] encode(Task task) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(task.getStatus() == null ? NULL_LENGTH : task.getStatus().ordinal());
+        writeText(out, task.getTitle());
+        writeText(out, task.getDescription());
+        out.writeLong(task.getDuration() == null ? NULL_VALUE : task.getDuration().toMinutes());
+        out.writeLong(task.getStartTime() == null ? NULL_VALUE : toMinutes(task.getStartTime()));
+        if (task instanceof Epic epic) {
+            out.writeLong(epic.getEndTime() == null ? NULL_VALUE : toMinutes(epic.getEndTime()));
+        } else if (task instanceof Subtask subtask) {
+            out.writeLong(subtask.getEpicId());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Task decode(TaskType type, long id, byte[] value) {
+        final ByteBuffer in = ByteBuffer.wrap(value);
+        final Task task = switch (type) {
+            case TASK -> new Task();
+            case EPIC -> new Epic();
+            case SUBTASK -> new Subtask();
+        };
+        task.setId(id);
+        final byte status = in.get();
+        task.setStatus(status == NULL_LENGTH ? null : STATUSES[status]);
+        task.setTitle(readText(in));
+        task.setDescription(readText(in));
+        final long duration = in.getLong();
+        task.setDuration(duration == NULL_VALUE ? null : Duration.ofMinutes(duration));
+        final long startTime = in.getLong();
+        task.setStartTime(startTime == NULL_VALUE ? null : fromMinutes(startTime));
+        if (task instanceof Epic epic) {
+            final long endTime = in.getLong();
+            epic.setEndTime(endTime == NULL_VALUE ? null : fromMinutes(endTime));
+        } else if (task instanceof Subtask subtask) {
+            subtask.setEpicId(in.getLong());
+        }
+        return task;
+    }
+
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(ByteBuffer in) {
+        final int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final String text = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return text;
+    }
+
+    private static long endOf(BPlusTree.Entry entry) {
+        return ByteBuffer.wrap(entry.value()).getLong();
+    }
+
+    private static long toMinutes(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60L);
+    }
+
+    private static LocalDateTime fromMinutes(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60L, 0, ZoneOffset.UTC);
+    }
+
+    private static long[] key(long id) {
+        return new long[]{id};
+    }
+
+    private <T> T read(StoreAction<T> action) {
+        try {
+            return action.run();
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    private <T> T write(StoreAction<T> action) {
+        try {
+            final T result = action.run();
+            pool.flush();
+            file.commit();
+            return result;
+        } catch (IOException exception) {
+            aggregates.clear();
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StoreAction<T> {
+        T run() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface TaskRemover {
+        void remove(Task task) throws IOException;
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.akuniutka.kanban.service;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+public interface BackupCapable {
+    void backup(WritableByteChannel target) throws IOException;
+}
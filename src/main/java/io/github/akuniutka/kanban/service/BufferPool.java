@@ -0,0 +1,143 @@
+package io.github.akuniutka.kanban.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class BufferPool {
+    private static final int OVERFLOW_HEADER_SIZE = 8;
+    private final PageFile file;
+    private final int capacity;
+    private final LinkedHashMap<Integer, BTreeNode> nodes;
+    private final Map<Integer, BTreeNode> dirtyNodes;
+    private final ByteBuffer buffer;
+    private long hits;
+    private long misses;
+
+    BufferPool(PageFile file, int capacity) {
+        this.file = file;
+        this.capacity = capacity;
+        this.nodes = new LinkedHashMap<>(16, 0.75f, true);
+        this.dirtyNodes = new HashMap<>();
+        this.buffer = ByteBuffer.allocate(file.getPageSize());
+    }
+
+    PageFile getFile() {
+        return file;
+    }
+
+    int getPageSize() {
+        return file.getPageSize();
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    BTreeNode get(int page) throws IOException {
+        BTreeNode node = nodes.get(page);
+        if (node != null) {
+            hits++;
+            return node;
+        }
+        misses++;
+        node = BTreeNode.decode(page, file.read(page));
+        cache(node);
+        return node;
+    }
+
+    BTreeNode allocate(int keyWidth, boolean isLeaf) throws IOException {
+        final BTreeNode node = new BTreeNode(file.allocate(), keyWidth, isLeaf);
+        markDirty(node);
+        return node;
+    }
+
+    void markDirty(BTreeNode node) throws IOException {
+        node.isDirty = true;
+        dirtyNodes.put(node.page, node);
+        if (nodes.get(node.page) != node) {
+            cache(node);
+        }
+    }
+
+    void free(BTreeNode node) throws IOException {
+        nodes.remove(node.page);
+        dirtyNodes.remove(node.page);
+        node.isDirty = false;
+        file.free(node.page);
+    }
+
+    int writeOverflow(byte[] bytes) throws IOException {
+        final int chunkSize = file.getPageSize() - OVERFLOW_HEADER_SIZE;
+        final ByteBuffer page = ByteBuffer.allocate(file.getPageSize());
+        int next = BTreeNode.NO_PAGE;
+        for (int end = bytes.length; end > 0; end -= chunkSize) {
+            final int start = Integer.max(0, end - chunkSize);
+            page.clear();
+            page.putInt(next).putInt(end - start).put(bytes, start, end - start);
+            next = file.allocate();
+            file.write(next, page);
+        }
+        return next;
+    }
+
+    byte[] readOverflow(int page, int length) throws IOException {
+        final byte[] bytes = new byte[length];
+        int position = 0;
+        while (page != BTreeNode.NO_PAGE && position < length) {
+            final ByteBuffer chunk = file.read(page);
+            page = chunk.getInt();
+            final int chunkLength = Integer.min(chunk.getInt(), length - position);
+            chunk.get(bytes, position, chunkLength);
+            position += chunkLength;
+        }
+        return bytes;
+    }
+
+    void freeOverflow(int page) throws IOException {
+        while (page != BTreeNode.NO_PAGE) {
+            final int next = file.read(page).getInt(0);
+            file.free(page);
+            page = next;
+        }
+    }
+
+    void flush() throws IOException {
+        file.journal(dirtyNodes.keySet());
+        for (BTreeNode node : new ArrayList<>(dirtyNodes.values())) {
+            writeBack(node);
+        }
+        file.writeHeader();
+    }
+
+    private void cache(BTreeNode node) throws IOException {
+        nodes.put(node.page, node);
+        final Iterator<BTreeNode> iterator = nodes.values().iterator();
+        while (nodes.size() > capacity) {
+            final BTreeNode eldest = iterator.next();
+            if (eldest.isDirty) {
+                writeBack(eldest);
+            }
+            iterator.remove();
+        }
+    }
+
+    private void writeBack(BTreeNode node) throws IOException {
+        node.encode(buffer);
+        file.write(node.page, buffer);
+        dirtyNodes.remove(node.page);
+        node.isDirty = false;
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.util.CSVTaskFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class ChecksumScanner {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] HEADER = CSVTaskFormat.CHECKSUM_FILE_HEADER.getBytes(StandardCharsets.UTF_8);
+    private final List<ScanReport.ByteRange> corruptRanges;
+    private boolean isHeaderRead;
+    private boolean hasChecksums;
+    private long validPrefixRecords;
+    private long validPrefixLength;
+    private long corruptStart;
+    private long corruptEnd;
+
+    private ChecksumScanner() {
+        this.corruptRanges = new ArrayList<>();
+        this.corruptStart = -1L;
+    }
+
+    static ScanReport scan(InputStream in) throws IOException {
+        final ChecksumScanner scanner = new ChecksumScanner();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        long position = 0L;
+        int read = in.read(buffer);
+        while (read != -1) {
+            int lineStart = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+                final long lineEnd = position + i + 1;
+                if (lineLength == 0) {
+                    scanner.check(buffer, lineStart, i - lineStart, position + lineStart, lineEnd);
+                } else {
+                    line = append(line, lineLength, buffer, lineStart, i - lineStart);
+                    lineLength += i - lineStart;
+                    scanner.check(line, 0, lineLength, lineEnd - lineLength - 1L, lineEnd);
+                    lineLength = 0;
+                }
+                if (scanner.isHeaderRead && !scanner.hasChecksums) {
+                    return scanner.report();
+                }
+                lineStart = i + 1;
+            }
+            line = append(line, lineLength, buffer, lineStart, read - lineStart);
+            lineLength += read - lineStart;
+            position += read;
+            read = in.read(buffer);
+        }
+        if (lineLength > 0) {
+            scanner.checkLast(line, lineLength, position);
+        }
+        return scanner.report();
+    }
+
+    private void check(byte[] bytes, int offset, int length, long lineStart, long lineEnd) {
+        if (length > 0 && bytes[offset + length - 1] == '\r') {
+            length--;
+        }
+        if (!isHeaderRead) {
+            isHeaderRead = true;
+            hasChecksums = Arrays.equals(bytes, offset, offset + length, HEADER, 0, HEADER.length);
+            validPrefixLength = lineEnd;
+            return;
+        }
+        if (CSVTaskFormat.hasValidChecksum(bytes, offset, length)) {
+            if (corruptStart < 0L && corruptRanges.isEmpty()) {
+                validPrefixRecords++;
+                validPrefixLength = lineEnd;
+            }
+            closeCorruptRange();
+        } else if (corruptStart < 0L) {
+            corruptStart = lineStart;
+            corruptEnd = lineEnd;
+        } else {
+            corruptEnd = lineEnd;
+        }
+    }
+
+    private void checkLast(byte[] bytes, int length, long fileEnd) {
+        if (!isHeaderRead || CSVTaskFormat.hasValidChecksum(bytes, 0, length)) {
+            check(bytes, 0, length, fileEnd - length, fileEnd);
+        }
+    }
+
+    private void closeCorruptRange() {
+        if (corruptStart >= 0L) {
+            corruptRanges.add(new ScanReport.ByteRange(corruptStart, corruptEnd));
+            corruptStart = -1L;
+        }
+    }
+
+    private ScanReport report() {
+        closeCorruptRange();
+        if (!hasChecksums) {
+            return new ScanReport(false, 0L, 0L, List.of());
+        }
+        return new ScanReport(true, validPrefixRecords, validPrefixLength, List.copyOf(corruptRanges));
+    }
+
+    private static byte[] append(byte[] line, int lineLength, byte[] bytes, int offset, int length) {
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Integer.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(bytes, offset, line, lineLength, length);
+        return line;
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+class EpicAggregate {
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+    private final Map<Long, Contribution> contributions;
+    private final int[] statusCounts;
+    private final TreeMap<LocalDateTime, Integer> startTimes;
+    private final TreeMap<LocalDateTime, Integer> endTimes;
+    private Duration duration;
+    private int durationCount;
+
+    EpicAggregate() {
+        this.contributions = new HashMap<>();
+        this.statusCounts = new int[TASK_STATUSES.length];
+        this.startTimes = new TreeMap<>();
+        this.endTimes = new TreeMap<>();
+        this.duration = Duration.ZERO;
+    }
+
+    void put(Subtask subtask) {
+        remove(subtask.getId());
+        final Contribution contribution = new Contribution(subtask.getStatus(), subtask.getDuration(),
+                subtask.getStartTime(), subtask.getEndTime());
+        contributions.put(subtask.getId(), contribution);
+        statusCounts[contribution.status().ordinal()]++;
+        if (contribution.duration() != null) {
+            duration = duration.plus(contribution.duration());
+            durationCount++;
+        }
+        increment(startTimes, contribution.startTime());
+        increment(endTimes, contribution.endTime());
+    }
+
+    void remove(long subtaskId) {
+        final Contribution contribution = contributions.remove(subtaskId);
+        if (contribution == null) {
+            return;
+        }
+        statusCounts[contribution.status().ordinal()]--;
+        if (contribution.duration() != null) {
+            duration = duration.minus(contribution.duration());
+            durationCount--;
+        }
+        decrement(startTimes, contribution.startTime());
+        decrement(endTimes, contribution.endTime());
+    }
+
+    void clear() {
+        contributions.clear();
+        Arrays.fill(statusCounts, 0);
+        startTimes.clear();
+        endTimes.clear();
+        duration = Duration.ZERO;
+        durationCount = 0;
+    }
+
+    void applyTo(Epic epic) {
+        epic.setDuration(durationCount == 0 ? null : duration);
+        epic.setStartTime(startTimes.isEmpty() ? null : startTimes.firstKey());
+        epic.setEndTime(endTimes.isEmpty() ? null : endTimes.lastKey());
+        epic.setStatus(getStatus());
+    }
+
+    private TaskStatus getStatus() {
+        TaskStatus status = TaskStatus.NEW;
+        int distinctStatuses = 0;
+        for (TaskStatus taskStatus : TASK_STATUSES) {
+            if (statusCounts[taskStatus.ordinal()] > 0) {
+                status = taskStatus;
+                distinctStatuses++;
+            }
+        }
+        return distinctStatuses > 1 ? TaskStatus.IN_PROGRESS : status;
+    }
+
+    private static void increment(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.merge(time, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private record Contribution(TaskStatus status, Duration duration, LocalDateTime startTime,
+            LocalDateTime endTime) {
+    }
+}
@@ -1,312 +1,692 @@
 package io.github.akuniutka.kanban.service;
 
-import io.github.akuniutka.kanban.exception.CSVParsingException;
+import io.github.akuniutka.kanban.exception.ManagerException;
 import io.github.akuniutka.kanban.exception.ManagerLoadException;
-import io.github.akuniutka.kanban.exception.ManagerSaveException;
 import io.github.akuniutka.kanban.exception.ManagerValidationException;
 import io.github.akuniutka.kanban.model.*;
-import io.github.akuniutka.kanban.util.CSVLineParser;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-
-public class FileBackedTaskManager extends InMemoryTaskManager {
-    private static final String FILE_HEADER = "id,type,name,status,description,duration,start,epic";
-    private Path path;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class FileBackedTaskManager extends InMemoryTaskManager implements BackupCapable, ReplicationCapable,
+        AutoCloseable {
+    private TaskStorage storage;
+    private StorageOptions options;
+    private PersistentHistoryManager history;
+    private List<Task> bulk;
+    private TaskArchive archive;
+    private Duration archiveAge;
+    private final LinkedHashMap<Long, Long> doneSince;
+    private final List<String> recoveryActions;
 
     private FileBackedTaskManager(HistoryManager historyManager) {
         super(historyManager);
+        this.doneSince = new LinkedHashMap<>();
+        this.recoveryActions = new ArrayList<>();
     }
 
     public static FileBackedTaskManager loadFromFile(Path path, HistoryManager historyManager) {
+        return loadFromFile(path, historyManager, StorageOptions.defaults());
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path path, HistoryManager historyManager,
+            StorageOptions options) {
         Objects.requireNonNull(path, "cannot start: file is null");
-        FileBackedTaskManager manager = new FileBackedTaskManager(historyManager);
-        manager.path = path;
+        Objects.requireNonNull(options, "cannot start: storage options are null");
+        final PersistentHistoryManager history = options.isHistoryPersisted() && historyManager != null
+                ? new PersistentHistoryManager(historyManager, path, options) : null;
+        FileBackedTaskManager manager = new FileBackedTaskManager(history != null ? history : historyManager);
+        manager.history = history;
+        manager.options = options;
+        manager.storage = switch (options.getMode()) {
+            case SNAPSHOT -> new SnapshotStorage(manager, path, options);
+            case JOURNAL -> new JournalStorage(manager, path, options);
+            case WRITE_BEHIND -> new WriteBehindStorage(manager, path, options);
+            case SLOTTED -> new SlottedStorage(manager, path, options);
+            case SHARDED -> new ShardedStorage(manager, path, options);
+        };
+        if (options.getReplicationPort() > 0) {
+            manager.storage = new ReplicationSource(manager, manager.storage, options.getReplicationHost(),
+                    options.getReplicationPort());
+        }
         manager.load();
-        manager.save();
+        manager.storage.checkpoint();
+        if (options.getArchiveAge() != null) {
+            manager.openArchive(path, options.getArchiveAge());
+        }
+        if (history != null) {
+            history.restore(manager::lookup).forEach(manager::recovered);
+        }
         return manager;
     }
 
+    public static void convert(Path source, Path target, SnapshotFormat format) {
+        Objects.requireNonNull(source, "cannot convert: source file is null");
+        Objects.requireNonNull(target, "cannot convert: target file is null");
+        Objects.requireNonNull(format, "cannot convert: format is null");
+        final FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory());
+        final StorageOptions options = StorageOptions.builder().withSnapshotFormat(format).build();
+        manager.storage = new SnapshotStorage(manager, source, options);
+        manager.load();
+        new SnapshotStorage(manager, target, options).checkpoint();
+    }
+
+    public static ScanReport scan(Path path) {
+        Objects.requireNonNull(path, "cannot scan: file is null");
+        try {
+            return SnapshotStorage.scan(path);
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    static boolean canLoad(Path path) {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        final FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory());
+        manager.storage = new SnapshotStorage(manager, path, StorageOptions.builder().withAtomicSave(false).build());
+        try {
+            manager.load();
+            return true;
+        } catch (ManagerLoadException exception) {
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized List<Task> getTasks() {
+        return super.getTasks();
+    }
+
     @Override
     public void deleteTasks() {
-        super.deleteTasks();
-        save();
+        synchronized (this) {
+            removeArchived(TaskType.TASK);
+            super.deleteTasks();
+            storage.tasksDeleted(TaskType.TASK);
+            untrackNotDone();
+        }
+        awaitDurability();
+    }
+
+    @Override
+    public synchronized Optional<Task> getTaskById(long id) {
+        final Optional<Task> task = super.getTaskById(id);
+        return task.isPresent() ? task : getArchived(TaskType.TASK, id);
     }
 
     @Override
     public Task createTask(Task task) {
-        final Task savedTask = super.createTask(task);
-        save();
+        final Task savedTask;
+        synchronized (this) {
+            savedTask = super.createTask(task);
+        }
+        awaitDurability();
         return savedTask;
     }
 
     @Override
     public Task updateTask(Task task) {
-        final Task savedTask = super.updateTask(task);
-        save();
+        final Task savedTask;
+        synchronized (this) {
+            restoreIfArchived(TaskType.TASK, task == null ? null : task.getId());
+            savedTask = super.updateTask(task);
+            storage.taskSaved(savedTask);
+            trackStatus(savedTask);
+            archiveExpired();
+        }
+        awaitDurability();
         return savedTask;
     }
 
     @Override
     public void deleteTask(long id) {
-        super.deleteTask(id);
-        save();
+        synchronized (this) {
+            restoreIfArchived(TaskType.TASK, id);
+            final Task task = tasks.get(id);
+            super.deleteTask(id);
+            storage.taskDeleted(task);
+            doneSince.remove(id);
+        }
+        awaitDurability();
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics() {
+        return super.getEpics();
     }
 
     @Override
     public void deleteEpics() {
-        super.deleteEpics();
-        save();
+        synchronized (this) {
+            removeArchived(TaskType.SUBTASK);
+            removeArchived(TaskType.EPIC);
+            super.deleteEpics();
+            storage.tasksDeleted(TaskType.EPIC);
+            untrackNotDone();
+        }
+        awaitDurability();
+    }
+
+    @Override
+    public synchronized Optional<Epic> getEpicById(long id) {
+        final Optional<Epic> epic = super.getEpicById(id);
+        return epic.isPresent() ? epic : getArchived(TaskType.EPIC, id).map(Epic.class::cast);
     }
 
     @Override
     public Epic createEpic(Epic epic) {
-        final Epic savedEpic = super.createEpic(epic);
-        save();
+        final Epic savedEpic;
+        synchronized (this) {
+            savedEpic = super.createEpic(epic);
+        }
+        awaitDurability();
         return savedEpic;
     }
 
     @Override
     public Epic updateEpic(Epic epic) {
-        final Epic savedEpic = super.updateEpic(epic);
-        save();
+        final Epic savedEpic;
+        synchronized (this) {
+            restoreIfArchived(TaskType.EPIC, epic == null ? null : epic.getId());
+            savedEpic = super.updateEpic(epic);
+            storage.taskSaved(savedEpic);
+            trackStatus(savedEpic);
+            archiveExpired();
+        }
+        awaitDurability();
         return savedEpic;
     }
 
     @Override
     public void deleteEpic(long id) {
-        super.deleteEpic(id);
-        save();
+        synchronized (this) {
+            restoreIfArchived(TaskType.EPIC, id);
+            final Epic epic = epics.get(id);
+            super.deleteEpic(id);
+            storage.taskDeleted(epic);
+            doneSince.remove(id);
+        }
+        awaitDurability();
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks() {
+        return super.getSubtasks();
     }
 
     @Override
     public void deleteSubtasks() {
-        super.deleteSubtasks();
-        save();
+        synchronized (this) {
+            if (archive != null) {
+                restoreArchived(archive.getIds(TaskType.EPIC));
+            }
+            super.deleteSubtasks();
+            storage.tasksDeleted(TaskType.SUBTASK);
+            untrackNotDone();
+        }
+        awaitDurability();
+    }
+
+    @Override
+    public synchronized Optional<Subtask> getSubtaskById(long id) {
+        final Optional<Subtask> subtask = super.getSubtaskById(id);
+        return subtask.isPresent() ? subtask : getArchived(TaskType.SUBTASK, id).map(Subtask.class::cast);
     }
 
     @Override
     public Subtask createSubtask(Subtask subtask) {
-        final Subtask savedSubtask = super.createSubtask(subtask);
-        save();
+        final Subtask savedSubtask;
+        synchronized (this) {
+            savedSubtask = super.createSubtask(subtask);
+        }
+        awaitDurability();
         return savedSubtask;
     }
 
     @Override
     public Subtask updateSubtask(Subtask subtask) {
-        final Subtask savedSubtask = super.updateSubtask(subtask);
-        save();
+        final Subtask savedSubtask;
+        synchronized (this) {
+            if (subtask != null) {
+                restoreIfArchived(TaskType.SUBTASK, subtask.getId());
+                if (archive != null && subtask.getId() != null && getTaskTypeById(subtask.getId()) == null
+                        && archive.getType(subtask.getId()) == null) {
+                    restoreIfArchived(TaskType.EPIC, subtask.getEpicId());
+                }
+            }
+            savedSubtask = super.updateSubtask(subtask);
+            storage.taskSaved(savedSubtask);
+            trackStatus(epics.get(savedSubtask.getEpicId()));
+            archiveExpired();
+        }
+        awaitDurability();
         return savedSubtask;
     }
 
     @Override
     public void deleteSubtask(long id) {
-        super.deleteSubtask(id);
-        save();
+        synchronized (this) {
+            restoreIfArchived(TaskType.SUBTASK, id);
+            final Subtask subtask = subtasks.get(id);
+            super.deleteSubtask(id);
+            storage.taskDeleted(subtask);
+            trackStatus(epics.get(subtask.getEpicId()));
+        }
+        awaitDurability();
     }
 
-    private void save() {
-        List<String> lines = new ArrayList<>();
-        lines.add(FILE_HEADER);
-        lines.addAll(tasks.values().stream().map(this::toString).toList());
-        lines.addAll(epics.values().stream().map(this::toString).toList());
-        lines.addAll(subtasks.values().stream().map(this::toString).toList());
-        try {
-            Files.write(path, lines, StandardCharsets.UTF_8);
-        } catch (IOException exception) {
-            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+    @Override
+    public synchronized List<Subtask> getEpicSubtasks(long epicId) {
+        if (archive != null && !epics.containsKey(epicId) && archive.getType(epicId) == TaskType.EPIC) {
+            return archive.getSubtasks(epicId);
         }
+        return super.getEpicSubtasks(epicId);
     }
 
-    private String toString(Task task) {
-        return "%s,%s,%s,%s,%s,%s,%s,%s".formatted(task.getId(), task.getType(), quoteIfNotNull(task.getTitle()),
-                task.getType() != TaskType.EPIC ? task.getStatus() : "", quoteIfNotNull(task.getDescription()),
-                task.getType() != TaskType.EPIC ?
-                        (task.getDuration() != null ? task.getDuration().toMinutes() : "null") : "",
-                task.getType() != TaskType.EPIC ? task.getStartTime() : "",
-                task.getType() == TaskType.SUBTASK ? ((Subtask) task).getEpicId() : "");
+    public synchronized List<Task> getArchivedTasks() {
+        return archive == null ? List.of() : archive.getAll();
     }
 
-    private String quoteIfNotNull(String text) {
-        return text == null ? "null" : '"' + text + '"';
+    public synchronized Iterable<Task> iterateArchivedTasks() {
+        return archive == null ? List.of() : archive.iterate();
     }
 
-    private void load() {
-        try {
-            if (!Files.exists(path)) {
-                return;
+    @Override
+    public List<Task> createAll(List<? extends Task> batch) {
+        Objects.requireNonNull(batch, "cannot create null batch");
+        final List<Task> created = new ArrayList<>(batch.size());
+        synchronized (this) {
+            try {
+                for (Task task : batch) {
+                    Objects.requireNonNull(task, "cannot create null task");
+                    task.setId(generateId());
+                    switch (task) {
+                        case Subtask subtask -> super.updateSubtask(subtask);
+                        case Epic epic -> super.updateEpic(epic);
+                        default -> super.updateTask(task);
+                    }
+                    created.add(task);
+                }
+            } catch (RuntimeException exception) {
+                // nothing of the batch has reached storage yet, so only memory needs to be undone
+                for (int i = created.size() - 1; i >= 0; i--) {
+                    final Task task = created.get(i);
+                    switch (task) {
+                        case Subtask subtask -> super.deleteSubtask(subtask.getId());
+                        case Epic epic -> super.deleteEpic(epic.getId());
+                        default -> super.deleteTask(task.getId());
+                    }
+                }
+                throw exception;
             }
-            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
-            if (lines.isEmpty()) {
-                return;
+            storage.tasksSaved(created);
+            created.forEach(task -> trackStatus(task instanceof Subtask subtask ? epics.get(subtask.getEpicId())
+                    : task));
+            archiveExpired();
+        }
+        awaitDurability();
+        return created;
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return super.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public void backup(WritableByteChannel target) throws IOException {
+        Objects.requireNonNull(target, "cannot back up: target is null");
+        final SnapshotImage image;
+        final List<Task> snapshot;
+        synchronized (this) {
+            image = storage.openImage();
+            snapshot = image == null ? snapshot() : null;
+        }
+        if (image == null) {
+            final SnapshotStorage.SnapshotWriter writer = SnapshotStorage.SnapshotWriter.of(
+                    Channels.newOutputStream(target), options, snapshot.size());
+            for (Task task : snapshot) {
+                writer.write(task);
+            }
+            writer.finish(false);
+            return;
+        }
+        try (FileChannel channel = image.channel()) {
+            long copied = 0L;
+            while (copied < image.size()) {
+                copied += channel.transferTo(copied, image.size() - copied, target);
             }
-            checkFileHeader(lines.getFirst());
-            lines.stream()
-                    .skip(1L)
-                    .map(this::fromString)
-                    .peek(task -> requireNoDuplicateId(task.getId()))
-                    .forEach(task -> {
-                        try {
-                            switch (task) {
-                                case Subtask subtask -> updateSubtask(subtask);
-                                case Epic epic -> updateEpic(epic);
-                                default -> this.updateTask(task);
-                            }
-                        } catch (ManagerValidationException exception) {
-                            throw new ManagerLoadException(exception.getMessage() + " for id=" + task.getId());
-                        }
-                    });
-        } catch (IOException exception) {
-            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
         }
     }
 
-    private void checkFileHeader(String header) {
-        if (!FILE_HEADER.equals(header)) {
-            throw new ManagerLoadException("wrong file header, expected \"%s\"".formatted(FILE_HEADER));
+    // what loading had to repair, empty after a clean start
+    public synchronized List<String> getRecoveryActions() {
+        return List.copyOf(recoveryActions);
+    }
+
+    @Override
+    public Optional<ReplicationStatus> getReplicationStatus() {
+        if (storage instanceof ReplicationSource source) {
+            return Optional.of(source.status());
         }
+        return Optional.empty();
     }
 
-    private Task fromString(String taskString) {
-        CSVLineParser parser = new CSVLineParser(taskString);
-        final long id = extractId(parser.next());
+    @Override
+    public void flush() {
+        storage.flush();
+        if (history != null) {
+            history.flush();
+        }
+    }
+
+    @Override
+    public void close() {
         try {
-            final TaskType type = extractType(parser.next());
-            final Task task = switch (type) {
-                case TASK -> new Task();
-                case EPIC -> new Epic();
-                case SUBTASK -> new Subtask();
-            };
-            task.setId(id);
-            task.setTitle(extractText(parser.next()));
-            String token = parser.next();
-            if (type != TaskType.EPIC) {
-                task.setStatus(extractStatus(token));
-                task.setDescription(extractText(parser.next()));
-                task.setDuration(extractDuration(parser.next()));
-                task.setStartTime(extractDateTime(parser.next()));
-            } else {
-                requireNoStatusForEpic(token);
-                task.setDescription(extractText(parser.next()));
-                requireNoDurationForEpic(parser.next());
-                requireNoStartTimeForEpic(parser.next());
+            storage.close();
+        } finally {
+            if (archive != null) {
+                archive.close();
             }
-            token = parser.next();
-            if (type == TaskType.SUBTASK) {
-                ((Subtask) task).setEpicId(extractEpicId(token));
-            } else {
-                requireNoEpicIdForNotSubtask(token);
+            if (history != null) {
+                history.close();
             }
-            requireNoMoreData(parser);
-            return task;
-        } catch (CSVParsingException exception) {
-            throw new ManagerLoadException(exception.getMessage() + " for id=" + id);
         }
     }
 
-    private long extractId(String token) {
-        try {
-            return Long.parseLong(token);
-        } catch (NumberFormatException exception) {
-            throw new ManagerLoadException("line does not start with numeric id");
+    void recovered(String action) {
+        recoveryActions.add(action);
+    }
+
+    Task lookup(long id) {
+        final TaskType type = getTaskTypeById(id);
+        if (type == null) {
+            return archive == null ? null : archive.get(id);
+        }
+        return lookup(type, id);
+    }
+
+    Task lookup(TaskType type, long id) {
+        return switch (type) {
+            case TASK -> tasks.get(id);
+            case EPIC -> epics.get(id);
+            case SUBTASK -> subtasks.get(id);
+        };
+    }
+
+    List<Task> snapshot() {
+        final List<Task> snapshot = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        snapshot.addAll(tasks.values());
+        snapshot.addAll(epics.values());
+        snapshot.addAll(subtasks.values());
+        return snapshot;
+    }
+
+    void restore(Task task) {
+        if (bulk != null) {
+            bulk.add(task);
+            return;
         }
+        requireNoDuplicateId(task.getId());
+        replay(task);
     }
 
-    private TaskType extractType(String token) {
+    void replay(Task task) {
+        finishBulkLoad();
         try {
-            return TaskType.valueOf(token);
-        } catch (IllegalArgumentException exception) {
-            throw new CSVParsingException("unknown task type");
+            switch (task) {
+                case Subtask subtask -> super.updateSubtask(subtask);
+                case Epic epic -> super.updateEpic(epic);
+                default -> super.updateTask(task);
+            }
+        } catch (ManagerValidationException exception) {
+            throw new ManagerLoadException(exception.getMessage() + " for id=" + task.getId());
         }
     }
 
-    private TaskStatus extractStatus(String token) {
-        if ("null".equals(token)) {
-            return null;
+    void replayDeletion(long id) {
+        finishBulkLoad();
+        final TaskType type = getTaskTypeById(id);
+        if (type == null) {
+            throw new ManagerLoadException("cannot delete missing id=" + id);
         }
         try {
-            return TaskStatus.valueOf(token);
-        } catch (IllegalArgumentException exception) {
-            throw new CSVParsingException("unknown task status");
+            switch (type) {
+                case TASK -> super.deleteTask(id);
+                case EPIC -> super.deleteEpic(id);
+                case SUBTASK -> super.deleteSubtask(id);
+            }
+        } catch (ManagerException exception) {
+            throw new ManagerLoadException(exception.getMessage() + " for id=" + id);
         }
     }
 
-    private void requireNoStatusForEpic(String token) {
-        if (!token.isEmpty()) {
-            throw new CSVParsingException("explicit epic status");
+    void replayDeletionOfAll(TaskType type) {
+        finishBulkLoad();
+        switch (type) {
+            case TASK -> super.deleteTasks();
+            case EPIC -> super.deleteEpics();
+            case SUBTASK -> super.deleteSubtasks();
         }
     }
 
-    private String extractText(String token) {
-        if ("null".equals(token)) {
-            return null;
+    @Override
+    protected Mode validateId(Task task) {
+        if (archive != null && task.getId() != null && getTaskTypeById(task.getId()) == null) {
+            final TaskType archivedType = archive.getType(task.getId());
+            if (archivedType != null && archivedType != task.getType()) {
+                throw new ManagerValidationException("wrong task type");
+            }
         }
-        if (token.length() < 2 || token.charAt(0) != '"' || token.charAt(token.length() - 1) != '"') {
-            throw new CSVParsingException("text value must be inside double quotes");
+        return super.validateId(task);
+    }
+
+    @Override
+    protected void requireDoesNotOverlapOtherTasks(Task task) {
+        super.requireDoesNotOverlapOtherTasks(task);
+        if (archive != null) {
+            archive.requireDoesNotOverlap(task);
         }
-        return token.substring(1, token.length() - 1);
     }
 
-    private Duration extractDuration(String token) {
-        if ("null".equals(token)) {
-            return null;
+    private void openArchive(Path path, Duration age) {
+        archive = new TaskArchive(path);
+        archiveAge = age;
+        archive.load(id -> getTaskTypeById(id) != null);
+        lastUsedId = Long.max(lastUsedId, archive.getLastUsedId());
+        tasks.values().forEach(this::trackStatus);
+        epics.values().forEach(this::trackStatus);
+        archiveExpired();
+    }
+
+    private Optional<Task> getArchived(TaskType type, long id) {
+        if (archive == null || archive.getType(id) != type) {
+            return Optional.empty();
         }
-        try {
-            long minutes = Long.parseLong(token);
-            return Duration.ofMinutes(minutes);
-        } catch (NumberFormatException | ArithmeticException exception) {
-            throw new CSVParsingException("wrong duration format");
+        final Task task = archive.get(id);
+        historyManager.add(task);
+        return Optional.of(task);
+    }
+
+    private void trackStatus(Task task) {
+        if (archive == null || task == null) {
+            return;
         }
+        if (task.getStatus() == TaskStatus.DONE) {
+            doneSince.putIfAbsent(task.getId(), System.nanoTime());
+        } else {
+            doneSince.remove(task.getId());
+        }
+    }
+
+    private void untrackNotDone() {
+        doneSince.keySet().removeIf(id -> {
+            final TaskType type = getTaskTypeById(id);
+            return type == null || lookup(type, id).getStatus() != TaskStatus.DONE;
+        });
     }
 
-    private void requireNoDurationForEpic(String token) {
-        if (!token.isEmpty()) {
-            throw new CSVParsingException("explicit epic duration");
+    private void archiveExpired() {
+        if (archive == null) {
+            return;
         }
+        final long now = System.nanoTime();
+        final List<Task> batch = new ArrayList<>();
+        final List<Task> units = new ArrayList<>();
+        final Iterator<Map.Entry<Long, Long>> iterator = doneSince.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Long, Long> entry = iterator.next();
+            if (now - entry.getValue() < archiveAge.toNanos()) {
+                break;
+            }
+            iterator.remove();
+            final Task task = lookup(getTaskTypeById(entry.getKey()), entry.getKey());
+            units.add(task);
+            batch.add(task);
+            if (task instanceof Epic epic) {
+                epic.getSubtaskIds().forEach(subtaskId -> batch.add(subtasks.get(subtaskId)));
+            }
+        }
+        if (units.isEmpty()) {
+            return;
+        }
+        archive.append(batch);
+        for (Task task : units) {
+            if (task instanceof Epic epic) {
+                epic.getSubtaskIds().stream()
+                        .map(subtasks::remove)
+                        .forEach(this::removeFromPrioritizedTasks);
+                epics.remove(epic.getId());
+                epicAggregates.remove(epic.getId());
+            } else {
+                tasks.remove(task.getId());
+                removeFromPrioritizedTasks(task);
+            }
+        }
+        storage.tasksDeleted(units);
     }
 
-    private LocalDateTime extractDateTime(String token) {
-        if ("null".equals(token)) {
-            return null;
+    private void restoreIfArchived(TaskType type, Long id) {
+        if (archive == null || id == null || archive.getType(id) != type) {
+            return;
         }
-        try {
-            return LocalDateTime.parse(token);
-        } catch (DateTimeParseException exception) {
-            throw new CSVParsingException("wrong start time format");
+        restoreArchived(List.of(type == TaskType.SUBTASK ? archive.getEpicId(id) : id));
+    }
+
+    private void restoreArchived(List<Long> unitIds) {
+        if (unitIds.isEmpty()) {
+            return;
+        }
+        final List<Task> restored = new ArrayList<>();
+        final List<Task> units = new ArrayList<>(unitIds.size());
+        for (long unitId : unitIds) {
+            final Task unit = archive.get(unitId);
+            units.add(unit);
+            restored.add(unit);
+            restored.addAll(archive.getSubtasks(unitId));
         }
+        restored.forEach(this::replay);
+        storage.tasksSaved(restored);
+        archive.remove(restored.stream().map(Task::getId).toList());
+        units.forEach(this::trackStatus);
     }
 
-    private void requireNoStartTimeForEpic(String token) {
-        if (!token.isEmpty()) {
-            throw new CSVParsingException("explicit epic start time");
+    private void removeArchived(TaskType type) {
+        if (archive == null) {
+            return;
         }
+        final List<Long> ids = archive.getIds(type);
+        archive.remove(ids);
+        ids.forEach(historyManager::remove);
     }
 
-    private long extractEpicId(String token) {
-        try {
-            return Long.parseLong(token);
-        } catch (NumberFormatException exception) {
-            throw new CSVParsingException("wrong epic id format");
+    private void load() {
+        bulk = new ArrayList<>();
+        storage.load();
+        finishBulkLoad();
+    }
+
+    private void finishBulkLoad() {
+        if (bulk == null) {
+            return;
+        }
+        final List<Task> loadedTasks = bulk;
+        bulk = null;
+        if (!insertAll(loadedTasks)) {
+            loadedTasks.forEach(this::restore);
         }
     }
 
-    private void requireNoEpicIdForNotSubtask(String token) {
-        if (!token.isEmpty()) {
-            throw new CSVParsingException("unexpected data");
+    private boolean insertAll(List<Task> loadedTasks) {
+        if (!tasks.isEmpty() || !epics.isEmpty() || !subtasks.isEmpty()) {
+            return false;
+        }
+        final Set<Long> ids = new HashSet<>();
+        final Set<Long> epicIds = new HashSet<>();
+        final List<Task> scheduledTasks = new ArrayList<>();
+        for (Task task : loadedTasks) {
+            if (!ids.add(task.getId())) {
+                return false;
+            }
+            if (task.getType() == TaskType.EPIC) {
+                epicIds.add(task.getId());
+                continue;
+            }
+            if (task.getStatus() == null || (task.getDuration() == null) != (task.getStartTime() == null)
+                    || (task instanceof Subtask subtask && !epicIds.contains(subtask.getEpicId()))) {
+                return false;
+            }
+            if (task.getDuration() != null) {
+                task.setDuration(task.getDuration().truncatedTo(ChronoUnit.MINUTES));
+                task.setStartTime(task.getStartTime().truncatedTo(ChronoUnit.MINUTES));
+                if (!task.getDuration().isPositive()) {
+                    return false;
+                }
+                scheduledTasks.add(task);
+            }
+        }
+        scheduledTasks.sort(Comparator.comparing(Task::getStartTime));
+        for (int i = 1; i < scheduledTasks.size(); i++) {
+            if (scheduledTasks.get(i).getStartTime().isBefore(scheduledTasks.get(i - 1).getEndTime())) {
+                return false;
+            }
+        }
+        for (Task task : loadedTasks) {
+            lastUsedId = Long.max(lastUsedId, task.getId());
+            switch (task) {
+                case Epic epic -> {
+                    epic.setSubtaskIds(new ArrayList<>());
+                    epics.put(epic.getId(), epic);
+                }
+                case Subtask subtask -> {
+                    subtasks.put(subtask.getId(), subtask);
+                    epics.get(subtask.getEpicId()).getSubtaskIds().add(subtask.getId());
+                }
+                default -> tasks.put(task.getId(), task);
+            }
         }
+        prioritizedTasks.addAll(scheduledTasks);
+        epics.keySet().forEach(this::updateEpic);
+        return true;
     }
 
-    private void requireNoMoreData(CSVLineParser parser) {
-        if (parser.hasNext()) {
-            throw new CSVParsingException("unexpected data");
+    private void awaitDurability() {
+        if (!Thread.holdsLock(this)) {
+            storage.awaitDurability();
         }
     }
 
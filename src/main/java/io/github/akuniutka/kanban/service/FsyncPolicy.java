@@ -0,0 +1,7 @@
+package io.github.akuniutka.kanban.service;
+
+public enum FsyncPolicy {
+    ALWAYS,
+    GROUP_COMMIT,
+    OS_BUFFERED
+}
@@ -0,0 +1,97 @@
+package io.github.akuniutka.kanban.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+class GroupCommit {
+    private final long windowNanos;
+    private final int size;
+    private long appended;
+    private long durable;
+    private boolean isSyncing;
+
+    GroupCommit(Duration window, int size) {
+        this.windowNanos = window.toNanos();
+        this.size = size;
+    }
+
+    void recordAppended() {
+        recordAppended(1);
+    }
+
+    synchronized void recordAppended(int records) {
+        appended += records;
+        if (appended - durable >= size) {
+            notifyAll();
+        }
+    }
+
+    synchronized void markAllDurable() {
+        durable = appended;
+        notifyAll();
+    }
+
+    void awaitDurable(Sync sync) throws IOException {
+        boolean isInterrupted = false;
+        try {
+            final long target;
+            synchronized (this) {
+                target = appended;
+            }
+            while (true) {
+                final long batchEnd;
+                synchronized (this) {
+                    while (durable < target && isSyncing) {
+                        isInterrupted |= await(0L);
+                    }
+                    if (durable >= target) {
+                        return;
+                    }
+                    isSyncing = true;
+                    final long deadline = System.nanoTime() + windowNanos;
+                    long remaining = windowNanos;
+                    while (appended - durable < size && remaining > 0L) {
+                        isInterrupted |= await(remaining);
+                        remaining = deadline - System.nanoTime();
+                    }
+                    batchEnd = appended;
+                }
+                boolean isSynced = false;
+                try {
+                    sync.force();
+                    isSynced = true;
+                } finally {
+                    synchronized (this) {
+                        isSyncing = false;
+                        if (isSynced && durable < batchEnd) {
+                            durable = batchEnd;
+                        }
+                        notifyAll();
+                    }
+                }
+            }
+        } finally {
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean await(long nanos) {
+        try {
+            if (nanos > 0L) {
+                TimeUnit.NANOSECONDS.timedWait(this, nanos);
+            } else {
+                wait();
+            }
+            return false;
+        } catch (InterruptedException exception) {
+            return true;
+        }
+    }
+
+    interface Sync {
+        void force() throws IOException;
+    }
+}
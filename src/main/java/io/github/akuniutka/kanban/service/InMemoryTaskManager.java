@@ -5,16 +5,14 @@ import io.github.akuniutka.kanban.exception.TaskNotFoundException;
 import io.github.akuniutka.kanban.exception.TaskOverlapException;
 import io.github.akuniutka.kanban.model.*;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class InMemoryTaskManager implements TaskManager {
     protected final Map<Long, Task> tasks;
     protected final Map<Long, Subtask> subtasks;
     protected final Map<Long, Epic> epics;
+    protected final Map<Long, EpicAggregate> epicAggregates;
     protected final HistoryManager historyManager;
     protected final TreeSet<Task> prioritizedTasks;
     protected long lastUsedId;
@@ -24,6 +22,7 @@ public class InMemoryTaskManager implements TaskManager {
         this.tasks = new HashMap<>();
         this.subtasks = new HashMap<>();
         this.epics = new HashMap<>();
+        this.epicAggregates = new HashMap<>();
         this.historyManager = historyManager;
         this.prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
         this.lastUsedId = -1L;
@@ -86,6 +85,7 @@ public class InMemoryTaskManager implements TaskManager {
         subtasks.clear();
         epics.keySet().forEach(historyManager::remove);
         epics.clear();
+        epicAggregates.clear();
     }
 
     @Override
@@ -105,9 +105,13 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public Epic updateEpic(Epic epic) {
         Objects.requireNonNull(epic, "cannot apply null update");
-        validate(epic);
+        final Mode mode = validate(epic);
         epics.put(epic.getId(), epic);
-        updateEpic(epic.getId());
+        if (mode == Mode.CREATE) {
+            updateEpic(epic.getId());
+        } else {
+            getEpicAggregate(epic.getId()).applyTo(epic);
+        }
         return epic;
     }
 
@@ -117,6 +121,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new TaskNotFoundException("no epic with id=" + id);
         }
+        epicAggregates.remove(id);
         epic.getSubtaskIds().stream()
                 .peek(subtaskId -> removeFromPrioritizedTasks(subtasks.get(subtaskId)))
                 .peek(historyManager::remove)
@@ -131,8 +136,12 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteSubtasks() {
-        epics.values().forEach(epic -> epic.setSubtaskIds(new ArrayList<>()));
-        epics.keySet().forEach(this::updateEpic);
+        epics.values().forEach(epic -> {
+            epic.setSubtaskIds(new ArrayList<>());
+            final EpicAggregate aggregate = getEpicAggregate(epic.getId());
+            aggregate.clear();
+            aggregate.applyTo(epic);
+        });
         subtasks.values().forEach(this::removeFromPrioritizedTasks);
         subtasks.keySet().forEach(historyManager::remove);
         subtasks.clear();
@@ -158,11 +167,13 @@ public class InMemoryTaskManager implements TaskManager {
         Mode mode = validate(subtask);
         final Subtask savedSubtask = subtasks.put(subtask.getId(), subtask);
         replaceInPrioritizedTasksIfAppropriate(savedSubtask, subtask);
+        final Epic epic = epics.get(subtask.getEpicId());
         if (mode == Mode.CREATE) {
-            final Epic epic = epics.get(subtask.getEpicId());
             epic.getSubtaskIds().add(subtask.getId());
         }
-        updateEpic(subtask.getEpicId());
+        final EpicAggregate aggregate = getEpicAggregate(epic.getId());
+        aggregate.put(subtask);
+        aggregate.applyTo(epic);
         return subtask;
     }
 
@@ -175,7 +186,9 @@ public class InMemoryTaskManager implements TaskManager {
         final long epicId = subtask.getEpicId();
         final Epic epic = epics.get(epicId);
         epic.getSubtaskIds().remove(id);
-        updateEpic(epicId);
+        final EpicAggregate aggregate = getEpicAggregate(epicId);
+        aggregate.remove(id);
+        aggregate.applyTo(epic);
         historyManager.remove(id);
         removeFromPrioritizedTasks(subtask);
     }
@@ -313,57 +326,18 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     protected void updateEpic(long epicId) {
-        updateEpicDuration(epicId);
-        updateEpicStartTime(epicId);
-        updateEpicEndTime(epicId);
-        updateEpicStatus(epicId);
-    }
-
-    protected void updateEpicDuration(long epicId) {
-        Epic epic = epics.get(epicId);
-        Duration duration = epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .map(Subtask::getDuration)
-                .filter(Objects::nonNull)
-                .reduce(Duration::plus)
-                .orElse(null);
-        epic.setDuration(duration);
-    }
-
-    protected void updateEpicStartTime(long epicId) {
-        Epic epic = epics.get(epicId);
-        LocalDateTime startTime = epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .map(Subtask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(Comparator.naturalOrder())
-                .orElse(null);
-        epic.setStartTime(startTime);
-    }
-
-    protected void updateEpicEndTime(long epicId) {
-        Epic epic = epics.get(epicId);
-        LocalDateTime endTime = epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .map(Subtask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(Comparator.naturalOrder())
-                .orElse(null);
-        epic.setEndTime(endTime);
+        final Epic epic = epics.get(epicId);
+        final EpicAggregate aggregate = new EpicAggregate();
+        epic.getSubtaskIds().forEach(subtaskId -> aggregate.put(subtasks.get(subtaskId)));
+        epicAggregates.put(epicId, aggregate);
+        aggregate.applyTo(epic);
     }
 
-    protected void updateEpicStatus(long epicId) {
-        Epic epic = epics.get(epicId);
-        Set<TaskStatus> statuses = epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .map(Subtask::getStatus)
-                .collect(Collectors.toCollection(HashSet::new));
-        final TaskStatus status = switch (statuses.size()) {
-            case 0 -> TaskStatus.NEW;
-            case 1 -> statuses.iterator().next();
-            default -> TaskStatus.IN_PROGRESS;
-        };
-        epic.setStatus(status);
+    protected EpicAggregate getEpicAggregate(long epicId) {
+        if (!epicAggregates.containsKey(epicId)) {
+            updateEpic(epicId);
+        }
+        return epicAggregates.get(epicId);
     }
 
     protected enum Mode {
@@ -0,0 +1,602 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.exception.ManagerValidationException;
+import io.github.akuniutka.kanban.exception.TaskNotFoundException;
+import io.github.akuniutka.kanban.exception.TaskOverlapException;
+import io.github.akuniutka.kanban.model.*;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class JdbcTaskManager implements TaskManager, AutoCloseable {
+    private static final String COLUMNS = "id, type, title, description, status, duration, start_time, end_time, "
+            + "epic_id";
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS tasks (id BIGINT PRIMARY KEY, type VARCHAR(7) NOT NULL, title CLOB, "
+                    + "description CLOB, status VARCHAR(11), duration BIGINT, start_time TIMESTAMP, "
+                    + "end_time TIMESTAMP, epic_id BIGINT)",
+            "CREATE INDEX IF NOT EXISTS tasks_type ON tasks (type, id)",
+            "CREATE INDEX IF NOT EXISTS tasks_start_time ON tasks (start_time)",
+            "CREATE INDEX IF NOT EXISTS tasks_status ON tasks (status)",
+            "CREATE INDEX IF NOT EXISTS tasks_epic_id ON tasks (epic_id)",
+            "CREATE TABLE IF NOT EXISTS id_sequence (last_used_id BIGINT NOT NULL)"
+    };
+    private static final String SCHEDULED = "type <> 'EPIC' AND start_time IS NOT NULL";
+    private final String url;
+    private final HistoryManager historyManager;
+    private final Connection connection;
+    private final PreparedStatement selectById;
+    private final PreparedStatement selectByType;
+    private final PreparedStatement selectTypeById;
+    private final PreparedStatement selectSubtasksOfEpic;
+    private final PreparedStatement selectSubtaskIdsOfEpic;
+    private final PreparedStatement selectIdsByType;
+    private final PreparedStatement selectTaskBefore;
+    private final PreparedStatement selectTaskAfter;
+    private final PreparedStatement selectPrioritized;
+    private final PreparedStatement selectPrioritizedInRange;
+    private final PreparedStatement selectByStatus;
+    private final PreparedStatement insert;
+    private final PreparedStatement update;
+    private final PreparedStatement updateEpicAggregates;
+    private final PreparedStatement selectEpicAggregates;
+    private final PreparedStatement resetEpicAggregates;
+    private final PreparedStatement deleteById;
+    private final PreparedStatement deleteByType;
+    private final PreparedStatement deleteSubtasksOfEpic;
+    private final PreparedStatement updateSequence;
+    private long lastUsedId;
+    private long savedLastUsedId;
+
+    private JdbcTaskManager(String url, HistoryManager historyManager) throws SQLException {
+        this.url = url;
+        this.historyManager = historyManager;
+        this.connection = DriverManager.getConnection(url);
+        try {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+            }
+            this.selectById = connection.prepareStatement("SELECT " + COLUMNS + " FROM tasks WHERE id = ?");
+            this.selectByType = connection.prepareStatement("SELECT " + COLUMNS
+                    + " FROM tasks WHERE type = ? ORDER BY id");
+            this.selectTypeById = connection.prepareStatement("SELECT type FROM tasks WHERE id = ?");
+            this.selectSubtasksOfEpic = connection.prepareStatement("SELECT " + COLUMNS
+                    + " FROM tasks WHERE epic_id = ? ORDER BY id");
+            this.selectSubtaskIdsOfEpic = connection.prepareStatement(
+                    "SELECT id FROM tasks WHERE epic_id = ? ORDER BY id");
+            this.selectIdsByType = connection.prepareStatement("SELECT id FROM tasks WHERE type = ?");
+            this.selectTaskBefore = connection.prepareStatement("SELECT end_time FROM tasks WHERE " + SCHEDULED
+                    + " AND start_time <= ? AND id <> ? ORDER BY start_time DESC FETCH FIRST 1 ROWS ONLY");
+            this.selectTaskAfter = connection.prepareStatement("SELECT start_time FROM tasks WHERE " + SCHEDULED
+                    + " AND start_time > ? AND id <> ? ORDER BY start_time FETCH FIRST 1 ROWS ONLY");
+            this.selectPrioritized = connection.prepareStatement("SELECT " + COLUMNS + " FROM tasks WHERE "
+                    + SCHEDULED + " ORDER BY start_time");
+            this.selectPrioritizedInRange = connection.prepareStatement("SELECT " + COLUMNS + " FROM tasks WHERE "
+                    + SCHEDULED + " AND start_time >= ? AND start_time < ? ORDER BY start_time");
+            this.selectByStatus = connection.prepareStatement("SELECT " + COLUMNS
+                    + " FROM tasks WHERE status = ? AND type <> 'EPIC' ORDER BY id");
+            this.insert = connection.prepareStatement("INSERT INTO tasks (" + COLUMNS
+                    + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            this.update = connection.prepareStatement("UPDATE tasks SET title = ?, description = ?, status = ?, "
+                    + "duration = ?, start_time = ?, end_time = ?, epic_id = ? WHERE id = ?");
+            this.selectEpicAggregates = connection.prepareStatement("SELECT COUNT(*), "
+                    + "SUM(CASE WHEN status = 'NEW' THEN 1 ELSE 0 END), "
+                    + "SUM(CASE WHEN status = 'DONE' THEN 1 ELSE 0 END), "
+                    + "SUM(duration), MIN(start_time), MAX(end_time) FROM tasks WHERE epic_id = ?");
+            this.updateEpicAggregates = connection.prepareStatement("UPDATE tasks SET status = ?, duration = ?, "
+                    + "start_time = ?, end_time = ? WHERE id = ?");
+            this.resetEpicAggregates = connection.prepareStatement("UPDATE tasks SET status = 'NEW', "
+                    + "duration = NULL, start_time = NULL, end_time = NULL WHERE type = 'EPIC'");
+            this.deleteById = connection.prepareStatement("DELETE FROM tasks WHERE id = ?");
+            this.deleteByType = connection.prepareStatement("DELETE FROM tasks WHERE type = ?");
+            this.deleteSubtasksOfEpic = connection.prepareStatement("DELETE FROM tasks WHERE epic_id = ?");
+            this.updateSequence = connection.prepareStatement("UPDATE id_sequence SET last_used_id = ?");
+            this.lastUsedId = loadLastUsedId();
+            this.savedLastUsedId = lastUsedId;
+            connection.commit();
+        } catch (SQLException | RuntimeException exception) {
+            connection.close();
+            throw exception;
+        }
+    }
+
+    public static JdbcTaskManager open(String url, HistoryManager historyManager) {
+        Objects.requireNonNull(url, "cannot start: database url is null");
+        Objects.requireNonNull(historyManager, "cannot start: history manager is null");
+        try {
+            return new JdbcTaskManager(url, historyManager);
+        } catch (SQLException exception) {
+            throw new ManagerLoadException("cannot load from database \"%s\"".formatted(url), exception);
+        }
+    }
+
+    @Override
+    public synchronized List<Task> getTasks() {
+        return read(() -> new ArrayList<>(selectByType(TaskType.TASK)));
+    }
+
+    @Override
+    public synchronized void deleteTasks() {
+        write(() -> {
+            deleteAll(TaskType.TASK);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized Optional<Task> getTaskById(long id) {
+        return findById(TaskType.TASK, id);
+    }
+
+    @Override
+    public synchronized Task createTask(Task task) {
+        Objects.requireNonNull(task, "cannot create null task");
+        task.setId(generateId());
+        return updateTask(task);
+    }
+
+    @Override
+    public synchronized Task updateTask(Task task) {
+        Objects.requireNonNull(task, "cannot apply null update");
+        return write(() -> {
+            save(task, validate(task));
+            return task;
+        });
+    }
+
+    @Override
+    public synchronized void deleteTask(long id) {
+        write(() -> {
+            if (selectType(id) != TaskType.TASK) {
+                throw new TaskNotFoundException("no task with id=" + id);
+            }
+            delete(id);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics() {
+        return read(() -> {
+            final Map<Long, Epic> epics = new LinkedHashMap<>();
+            for (Task task : selectByType(TaskType.EPIC)) {
+                epics.put(task.getId(), (Epic) task);
+            }
+            for (Task subtask : selectByType(TaskType.SUBTASK)) {
+                epics.get(((Subtask) subtask).getEpicId()).getSubtaskIds().add(subtask.getId());
+            }
+            return new ArrayList<>(epics.values());
+        });
+    }
+
+    @Override
+    public synchronized void deleteEpics() {
+        write(() -> {
+            deleteAll(TaskType.SUBTASK);
+            deleteAll(TaskType.EPIC);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized Optional<Epic> getEpicById(long id) {
+        return findById(TaskType.EPIC, id).map(Epic.class::cast);
+    }
+
+    @Override
+    public synchronized Epic createEpic(Epic epic) {
+        Objects.requireNonNull(epic, "cannot create null epic");
+        epic.setId(generateId());
+        return updateEpic(epic);
+    }
+
+    @Override
+    public synchronized Epic updateEpic(Epic epic) {
+        Objects.requireNonNull(epic, "cannot apply null update");
+        return write(() -> {
+            save(epic, validate(epic));
+            refreshEpic(epic);
+            return epic;
+        });
+    }
+
+    @Override
+    public synchronized void deleteEpic(long id) {
+        write(() -> {
+            if (selectType(id) != TaskType.EPIC) {
+                throw new TaskNotFoundException("no epic with id=" + id);
+            }
+            final List<Long> subtaskIds = selectSubtaskIds(id);
+            deleteSubtasksOfEpic.setLong(1, id);
+            deleteSubtasksOfEpic.executeUpdate();
+            subtaskIds.forEach(historyManager::remove);
+            delete(id);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks() {
+        return read(() -> selectByType(TaskType.SUBTASK).stream().map(Subtask.class::cast)
+                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll));
+    }
+
+    @Override
+    public synchronized void deleteSubtasks() {
+        write(() -> {
+            deleteAll(TaskType.SUBTASK);
+            resetEpicAggregates.executeUpdate();
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized Optional<Subtask> getSubtaskById(long id) {
+        return findById(TaskType.SUBTASK, id).map(Subtask.class::cast);
+    }
+
+    @Override
+    public synchronized Subtask createSubtask(Subtask subtask) {
+        Objects.requireNonNull(subtask, "cannot create null subtask");
+        subtask.setId(generateId());
+        return updateSubtask(subtask);
+    }
+
+    @Override
+    public synchronized Subtask updateSubtask(Subtask subtask) {
+        Objects.requireNonNull(subtask, "cannot apply null update");
+        return write(() -> {
+            save(subtask, validate(subtask));
+            refreshEpic(new Epic(), subtask.getEpicId());
+            return subtask;
+        });
+    }
+
+    @Override
+    public synchronized void deleteSubtask(long id) {
+        write(() -> {
+            final Task subtask = selectById(id);
+            if (!(subtask instanceof Subtask)) {
+                throw new TaskNotFoundException("no subtask with id=" + id);
+            }
+            delete(id);
+            refreshEpic(new Epic(), ((Subtask) subtask).getEpicId());
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized List<Subtask> getEpicSubtasks(long epicId) {
+        return read(() -> {
+            if (selectType(epicId) != TaskType.EPIC) {
+                throw new TaskNotFoundException("no epic with id=" + epicId);
+            }
+            selectSubtasksOfEpic.setLong(1, epicId);
+            final List<Subtask> subtasks = new ArrayList<>();
+            try (ResultSet rows = selectSubtasksOfEpic.executeQuery()) {
+                while (rows.next()) {
+                    subtasks.add((Subtask) toTask(rows));
+                }
+            }
+            return subtasks;
+        });
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return read(() -> query(selectPrioritized));
+    }
+
+    public synchronized List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        Objects.requireNonNull(from, "range start cannot be null");
+        Objects.requireNonNull(to, "range end cannot be null");
+        return read(() -> query(selectPrioritizedInRange, from, to));
+    }
+
+    public synchronized List<Task> getTasksByStatus(TaskStatus status) {
+        Objects.requireNonNull(status, "status cannot be null");
+        return read(() -> query(selectByStatus, status.name()));
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException exception) {
+            throw new ManagerSaveException("cannot close database \"%s\"".formatted(url), exception);
+        }
+    }
+
+    private long generateId() {
+        return ++lastUsedId;
+    }
+
+    private TaskType validate(Task task) throws SQLException {
+        if (task.getId() == null) {
+            throw new ManagerValidationException("id cannot be null");
+        }
+        final TaskType type = selectType(task.getId());
+        if (type == null) {
+            lastUsedId = Long.max(lastUsedId, task.getId());
+        } else if (task.getType() != type) {
+            throw new ManagerValidationException("wrong task type");
+        }
+        if (task instanceof Epic epic) {
+            epic.setSubtaskIds(type == null ? new ArrayList<>() : selectSubtaskIds(epic.getId()));
+        }
+        if (task instanceof Subtask subtask) {
+            if (type != null) {
+                subtask.setEpicId(((Subtask) selectById(subtask.getId())).getEpicId());
+            } else if (subtask.getEpicId() == null || selectType(subtask.getEpicId()) != TaskType.EPIC) {
+                throw new ManagerValidationException("wrong epic id");
+            }
+        }
+        validateDurationAndStartTime(task);
+        if (task.getType() != TaskType.EPIC && task.getStatus() == null) {
+            throw new ManagerValidationException("status cannot be null");
+        }
+        return type;
+    }
+
+    private void validateDurationAndStartTime(Task task) throws SQLException {
+        if (task.getType() == TaskType.EPIC || (task.getDuration() == null && task.getStartTime() == null)) {
+            return;
+        }
+        if (task.getDuration() == null || task.getStartTime() == null) {
+            throw new ManagerValidationException("duration and start time must be either both set or both null");
+        }
+        task.setDuration(task.getDuration().truncatedTo(ChronoUnit.MINUTES));
+        if (!task.getDuration().isPositive()) {
+            throw new ManagerValidationException("duration cannot be negative or zero");
+        }
+        task.setStartTime(task.getStartTime().truncatedTo(ChronoUnit.MINUTES));
+        requireDoesNotOverlapOtherTasks(task);
+    }
+
+    private void requireDoesNotOverlapOtherTasks(Task task) throws SQLException {
+        selectTaskBefore.setObject(1, task.getStartTime());
+        selectTaskBefore.setLong(2, task.getId());
+        try (ResultSet rows = selectTaskBefore.executeQuery()) {
+            if (rows.next() && task.getStartTime().isBefore(rows.getObject(1, LocalDateTime.class))) {
+                throw new TaskOverlapException("conflict with another task for time slot");
+            }
+        }
+        selectTaskAfter.setObject(1, task.getStartTime());
+        selectTaskAfter.setLong(2, task.getId());
+        try (ResultSet rows = selectTaskAfter.executeQuery()) {
+            if (rows.next() && task.getEndTime().isAfter(rows.getObject(1, LocalDateTime.class))) {
+                throw new TaskOverlapException("conflict with another task for time slot");
+            }
+        }
+    }
+
+    private void save(Task task, TaskType savedType) throws SQLException {
+        final Long epicId = task instanceof Subtask subtask ? subtask.getEpicId() : null;
+        final PreparedStatement statement = savedType == null ? insert : update;
+        int i = 1;
+        if (savedType == null) {
+            statement.setLong(i++, task.getId());
+            statement.setString(i++, task.getType().name());
+        }
+        statement.setString(i++, task.getTitle());
+        statement.setString(i++, task.getDescription());
+        statement.setString(i++, task.getType() == TaskType.EPIC || task.getStatus() == null ? null
+                : task.getStatus().name());
+        statement.setObject(i++, task.getType() == TaskType.EPIC || task.getDuration() == null ? null
+                : task.getDuration().toMinutes(), Types.BIGINT);
+        statement.setObject(i++, task.getType() == TaskType.EPIC ? null : task.getStartTime(), Types.TIMESTAMP);
+        statement.setObject(i++, task.getType() == TaskType.EPIC ? null : task.getEndTime(), Types.TIMESTAMP);
+        statement.setObject(i++, epicId, Types.BIGINT);
+        if (savedType != null) {
+            statement.setLong(i, task.getId());
+        }
+        statement.executeUpdate();
+    }
+
+    private void refreshEpic(Epic epic) throws SQLException {
+        refreshEpic(epic, epic.getId());
+    }
+
+    private void refreshEpic(Epic epic, long epicId) throws SQLException {
+        selectEpicAggregates.setLong(1, epicId);
+        try (ResultSet rows = selectEpicAggregates.executeQuery()) {
+            rows.next();
+            final long count = rows.getLong(1);
+            final long newCount = rows.getLong(2);
+            final long doneCount = rows.getLong(3);
+            final long duration = rows.getLong(4);
+            epic.setDuration(rows.wasNull() ? null : Duration.ofMinutes(duration));
+            epic.setStartTime(rows.getObject(5, LocalDateTime.class));
+            epic.setEndTime(rows.getObject(6, LocalDateTime.class));
+            if (count == 0L || newCount == count) {
+                epic.setStatus(TaskStatus.NEW);
+            } else if (doneCount == count) {
+                epic.setStatus(TaskStatus.DONE);
+            } else {
+                epic.setStatus(TaskStatus.IN_PROGRESS);
+            }
+        }
+        updateEpicAggregates.setString(1, epic.getStatus().name());
+        updateEpicAggregates.setObject(2, epic.getDuration() == null ? null : epic.getDuration().toMinutes(),
+                Types.BIGINT);
+        updateEpicAggregates.setObject(3, epic.getStartTime(), Types.TIMESTAMP);
+        updateEpicAggregates.setObject(4, epic.getEndTime(), Types.TIMESTAMP);
+        updateEpicAggregates.setLong(5, epicId);
+        updateEpicAggregates.executeUpdate();
+    }
+
+    private void delete(long id) throws SQLException {
+        deleteById.setLong(1, id);
+        deleteById.executeUpdate();
+        historyManager.remove(id);
+    }
+
+    private void deleteAll(TaskType type) throws SQLException {
+        selectIdsByType.setString(1, type.name());
+        try (ResultSet rows = selectIdsByType.executeQuery()) {
+            while (rows.next()) {
+                historyManager.remove(rows.getLong(1));
+            }
+        }
+        deleteByType.setString(1, type.name());
+        deleteByType.executeUpdate();
+    }
+
+    private Optional<Task> findById(TaskType type, long id) {
+        final Optional<Task> task = read(() -> {
+            final Task found = selectById(id);
+            return found == null || found.getType() != type ? Optional.empty() : Optional.of(found);
+        });
+        task.ifPresent(historyManager::add);
+        return task;
+    }
+
+    private TaskType selectType(long id) throws SQLException {
+        selectTypeById.setLong(1, id);
+        try (ResultSet rows = selectTypeById.executeQuery()) {
+            return rows.next() ? TaskType.valueOf(rows.getString(1)) : null;
+        }
+    }
+
+    private Task selectById(long id) throws SQLException {
+        selectById.setLong(1, id);
+        final Task task;
+        try (ResultSet rows = selectById.executeQuery()) {
+            task = rows.next() ? toTask(rows) : null;
+        }
+        if (task instanceof Epic epic) {
+            epic.setSubtaskIds(selectSubtaskIds(epic.getId()));
+        }
+        return task;
+    }
+
+    private List<Task> selectByType(TaskType type) throws SQLException {
+        selectByType.setString(1, type.name());
+        final List<Task> tasks = new ArrayList<>();
+        try (ResultSet rows = selectByType.executeQuery()) {
+            while (rows.next()) {
+                tasks.add(toTask(rows));
+            }
+        }
+        return tasks;
+    }
+
+    private List<Long> selectSubtaskIds(long epicId) throws SQLException {
+        selectSubtaskIdsOfEpic.setLong(1, epicId);
+        final List<Long> ids = new ArrayList<>();
+        try (ResultSet rows = selectSubtaskIdsOfEpic.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private List<Task> query(PreparedStatement statement, Object... parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+        final List<Task> tasks = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                tasks.add(toTask(rows));
+            }
+        }
+        return tasks;
+    }
+
+    private static Task toTask(ResultSet rows) throws SQLException {
+        final TaskType type = TaskType.valueOf(rows.getString("type"));
+        final Task task = switch (type) {
+            case TASK -> new Task();
+            case EPIC -> new Epic();
+            case SUBTASK -> new Subtask();
+        };
+        task.setId(rows.getLong("id"));
+        task.setTitle(rows.getString("title"));
+        task.setDescription(rows.getString("description"));
+        final String status = rows.getString("status");
+        task.setStatus(status == null ? null : TaskStatus.valueOf(status));
+        final long duration = rows.getLong("duration");
+        task.setDuration(rows.wasNull() ? null : Duration.ofMinutes(duration));
+        task.setStartTime(rows.getObject("start_time", LocalDateTime.class));
+        if (task instanceof Epic epic) {
+            epic.setEndTime(rows.getObject("end_time", LocalDateTime.class));
+        } else if (task instanceof Subtask subtask) {
+            subtask.setEpicId(rows.getLong("epic_id"));
+        }
+        return task;
+    }
+
+    private long loadLastUsedId() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT last_used_id FROM id_sequence")) {
+            if (rows.next()) {
+                return rows.getLong(1);
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO id_sequence (last_used_id) VALUES (-1)");
+        }
+        return -1L;
+    }
+
+    private <T> T read(SqlAction<T> action) {
+        try {
+            final T result = action.run();
+            connection.commit();
+            return result;
+        } catch (SQLException exception) {
+            rollback();
+            throw new ManagerLoadException("cannot load from database \"%s\"".formatted(url), exception);
+        } catch (RuntimeException exception) {
+            rollback();
+            throw exception;
+        }
+    }
+
+    private <T> T write(SqlAction<T> action) {
+        try {
+            final T result = action.run();
+            if (lastUsedId != savedLastUsedId) {
+                updateSequence.setLong(1, lastUsedId);
+                updateSequence.executeUpdate();
+            }
+            connection.commit();
+            savedLastUsedId = lastUsedId;
+            return result;
+        } catch (SQLException exception) {
+            rollback();
+            throw new ManagerSaveException("cannot write to database \"%s\"".formatted(url), exception);
+        } catch (RuntimeException exception) {
+            rollback();
+            throw exception;
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException exception) {
+            throw new ManagerSaveException("cannot roll back database \"%s\"".formatted(url), exception);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlAction<T> {
+        T run() throws SQLException;
+    }
+}
@@ -0,0 +1,330 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+import io.github.akuniutka.kanban.util.CSVTaskFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+class JournalStorage extends SnapshotStorage {
+    private final long compactionThreshold;
+    private final Duration compactionInterval;
+    private final ScheduledExecutorService compactor;
+    private final GroupCommit groupCommit;
+    private FileChannel journal;
+    private long snapshotSize;
+    private long fileSize;
+    private boolean isCompactionPending;
+    private ManagerSaveException failure;
+    private ManagerSaveException compactionFailure;
+
+    JournalStorage(FileBackedTaskManager manager, Path path, StorageOptions options) {
+        super(manager, path, options);
+        this.compactionThreshold = options.getJournalCompactionThreshold();
+        this.compactionInterval = options.getJournalCompactionInterval();
+        if (compactionThreshold > 0L || compactionInterval != null) {
+            this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.compactor = null;
+        }
+        if (fsyncPolicy == FsyncPolicy.GROUP_COMMIT) {
+            this.groupCommit = new GroupCommit(options.getGroupCommitWindow(), options.getGroupCommitSize());
+        } else {
+            this.groupCommit = null;
+        }
+    }
+
+    @Override
+    public void load() {
+        try {
+            Files.deleteIfExists(tmpPath);
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot delete file \"%s\"".formatted(tmpPath), exception);
+        }
+        super.load();
+    }
+
+    @Override
+    public void checkpoint() {
+        compact();
+        if (compactionInterval != null) {
+            final long delay = compactionInterval.toMillis();
+            compactor.scheduleWithFixedDelay(this::compactIfJournalNotEmpty, delay, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void taskSaved(Task task) {
+        append(PUT + "," + CSVTaskFormat.format(task));
+    }
+
+    @Override
+    public void taskDeleted(Task task) {
+        append(DELETE + "," + task.getId());
+    }
+
+    @Override
+    public void tasksDeleted(TaskType type) {
+        append(CLEAR + "," + type);
+    }
+
+    @Override
+    public void tasksSaved(List<Task> tasks) {
+        append(tasks.stream().map(task -> PUT + "," + CSVTaskFormat.format(task)).toList());
+    }
+
+    @Override
+    public void tasksDeleted(List<Task> tasks) {
+        append(tasks.stream().map(task -> DELETE + "," + task.getId()).toList());
+    }
+
+    @Override
+    public SnapshotImage openImage() {
+        return journal == null ? null : openImage(fileSize);
+    }
+
+    @Override
+    public void awaitDurability() {
+        synchronized (manager) {
+            rethrowCompactionFailure();
+        }
+        if (groupCommit == null) {
+            return;
+        }
+        try {
+            groupCommit.awaitDurable(this::forceJournal);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    @Override
+    public void flush() {
+        synchronized (manager) {
+            recoverFromFailure();
+            rethrowCompactionFailure();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (manager) {
+            closeJournal();
+            rethrowCompactionFailure();
+        }
+    }
+
+    protected void compact() {
+        final List<Task> snapshot;
+        final long journalStart;
+        synchronized (manager) {
+            snapshot = manager.snapshot();
+            journalStart = fileSize;
+        }
+        writeSnapshot(tmpPath, snapshot);
+        synchronized (manager) {
+            boolean isMoved = false;
+            try {
+                final long newSnapshotSize = Files.size(tmpPath);
+                final long tailSize = fileSize - journalStart;
+                if (tailSize > 0L) {
+                    copyJournalTail(journalStart, tailSize);
+                }
+                // the old channel stays open until the rename succeeds, so a failed swap leaves the journal usable
+                Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                isMoved = true;
+                if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+                    forceDirectory(path);
+                }
+                reopenJournal();
+                snapshotSize = newSnapshotSize;
+                fileSize = newSnapshotSize + tailSize;
+                if (groupCommit != null) {
+                    groupCommit.markAllDurable();
+                }
+            } catch (IOException exception) {
+                final ManagerSaveException saveException = new ManagerSaveException(
+                        "cannot write to file \"%s\"".formatted(path), exception);
+                if (isMoved) {
+                    // the open channel now points to the replaced file, appending to it would lose records
+                    failure = saveException;
+                }
+                throw saveException;
+            } finally {
+                isCompactionPending = false;
+            }
+        }
+    }
+
+    protected void append(String record) {
+        append(List.of(record));
+    }
+
+    protected void append(List<String> records) {
+        recoverFromFailure();
+        final StringBuilder lines = new StringBuilder();
+        for (String record : records) {
+            lines.append(options.isChecksums() ? CSVTaskFormat.appendChecksum(record) : record)
+                    .append(System.lineSeparator());
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                fileSize += journal.write(buffer);
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                journal.force(false);
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+        if (groupCommit != null) {
+            groupCommit.recordAppended(records.size());
+        }
+        if (compactionThreshold > 0L && !isCompactionPending && fileSize - snapshotSize >= compactionThreshold) {
+            isCompactionPending = true;
+            compactor.execute(this::compactInBackground);
+        }
+    }
+
+    private void compactIfJournalNotEmpty() {
+        synchronized (manager) {
+            if (isCompactionPending || fileSize == snapshotSize) {
+                return;
+            }
+            isCompactionPending = true;
+        }
+        compactInBackground();
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (ManagerSaveException exception) {
+            synchronized (manager) {
+                // nobody waits for a background compaction, so the next caller to ask for durability gets the error
+                compactionFailure = exception;
+                isCompactionPending = false;
+            }
+            try {
+                Files.deleteIfExists(tmpPath);
+            } catch (IOException ignored) {
+                // the leftover is removed on next start anyway
+            }
+        }
+    }
+
+    private void copyJournalTail(long position, long size) throws IOException {
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(tmpPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long copied = 0L;
+            while (copied < size) {
+                copied += source.transferTo(position + copied, size - copied, target);
+            }
+            if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+                target.force(false);
+            }
+        }
+    }
+
+    private void forceJournal() throws IOException {
+        FileChannel channel;
+        synchronized (manager) {
+            channel = journal;
+        }
+        // a null channel means close() has already forced the journal
+        while (channel != null) {
+            try {
+                channel.force(false);
+                return;
+            } catch (ClosedChannelException exception) {
+                synchronized (manager) {
+                    // a swap or close happens under the lock, so by now it has completed one way or another
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    if (journal == channel) {
+                        throw exception;
+                    }
+                    channel = journal;
+                }
+            }
+        }
+    }
+
+    private void recoverFromFailure() {
+        if (failure == null) {
+            return;
+        }
+        try {
+            reopenJournal();
+            fileSize = Files.size(path);
+            snapshotSize = fileSize;
+            failure = null;
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    private void rethrowCompactionFailure() {
+        if (compactionFailure == null) {
+            return;
+        }
+        final ManagerSaveException exception = compactionFailure;
+        compactionFailure = null;
+        throw exception;
+    }
+
+    private void reopenJournal() throws IOException {
+        final FileChannel replaced = journal;
+        journal = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (replaced != null) {
+            try {
+                replaced.close();
+            } catch (IOException ignored) {
+                // everything the old channel holds has been copied to the new file already
+            }
+        }
+    }
+
+    private void closeJournal() {
+        try {
+            if (journal != null) {
+                if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+                    journal.force(false);
+                }
+                journal.close();
+                journal = null;
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot close file \"%s\"".formatted(path), exception);
+        }
+    }
+}
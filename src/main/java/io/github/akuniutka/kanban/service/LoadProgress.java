@@ -0,0 +1,46 @@
+package io.github.akuniutka.kanban.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+class LoadProgress {
+    private static final int CHECK_EVERY = 1024;
+    private final LoadProgressListener listener;
+    private final long intervalNanos;
+    private final long totalBytes;
+    private final LongSupplier bytesRead;
+    private final long startedAt;
+    private long lastReportedAt;
+    private long records;
+
+    LoadProgress(StorageOptions options, long totalBytes, LongSupplier bytesRead) {
+        this.listener = options.getLoadProgressListener();
+        this.intervalNanos = options.getLoadProgressInterval().toNanos();
+        this.totalBytes = totalBytes;
+        this.bytesRead = bytesRead;
+        this.startedAt = System.nanoTime();
+        this.lastReportedAt = startedAt;
+    }
+
+    void recordLoaded() {
+        records++;
+        if (listener == null || records % CHECK_EVERY != 0L) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (now - lastReportedAt >= intervalNanos) {
+            lastReportedAt = now;
+            report(now);
+        }
+    }
+
+    void finish() {
+        if (listener != null) {
+            report(System.nanoTime());
+        }
+    }
+
+    private void report(long now) {
+        listener.onProgress(records, bytesRead.getAsLong(), totalBytes, Duration.ofNanos(now - startedAt));
+    }
+}
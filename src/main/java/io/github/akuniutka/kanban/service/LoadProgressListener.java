@@ -0,0 +1,8 @@
+package io.github.akuniutka.kanban.service;
+
+import java.time.Duration;
+
+@FunctionalInterface
+public interface LoadProgressListener {
+    void onProgress(long records, long bytesRead, long totalBytes, Duration elapsed);
+}
@@ -0,0 +1,19 @@
+package io.github.akuniutka.kanban.service;
+
+import java.time.Duration;
+import java.util.List;
+
+public record MaintenanceReport(long records, long tasks, long epics, long subtasks, Duration elapsed,
+        List<String> problems) {
+
+    public boolean isClean() {
+        return problems.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        final String summary = "%d records read, %d tasks, %d epics, %d subtasks in %d ms".formatted(records, tasks,
+                epics, subtasks, elapsed.toMillis());
+        return isClean() ? summary : summary + ", problems: " + String.join("; ", problems);
+    }
+}
@@ -8,6 +8,14 @@ public final class Managers {
         return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    public static JdbcTaskManager getJdbc(String url) {
+        return JdbcTaskManager.open(url, getDefaultHistory());
+    }
+
+    public static ReplicaTaskManager getReplica(String host, int port) {
+        return ReplicaTaskManager.connect(host, port, getDefaultHistory());
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
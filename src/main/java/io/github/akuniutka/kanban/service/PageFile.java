@@ -0,0 +1,271 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+final class PageFile implements Closeable {
+    static final int META_SLOTS = 8;
+    private static final int MAGIC = 0x4B425450;
+    private static final int VERSION = 1;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_PAGE_SIZE = 8;
+    private static final int HEADER_PAGE_COUNT = 12;
+    private static final int HEADER_FREE_LIST = 16;
+    private static final int HEADER_META = 24;
+    private static final int NO_PAGE = 0;
+    private static final int JOURNAL_MAGIC = 0x4B424A4C;
+    private static final int JOURNAL_HEADER_SIZE = 12;
+    private final FileChannel channel;
+    private final Path journalPath;
+    private final FileChannel journal;
+    private final int pageSize;
+    private final boolean isSynced;
+    private final long[] meta;
+    private final Set<Integer> journaledPages;
+    private int pageCount;
+    private int freeListHead;
+    private int committedPageCount;
+    private long journalSize;
+
+    private PageFile(FileChannel channel, Path journalPath, FileChannel journal, int pageSize, boolean isSynced) {
+        this.channel = channel;
+        this.journalPath = journalPath;
+        this.journal = journal;
+        this.pageSize = pageSize;
+        this.isSynced = isSynced;
+        this.meta = new long[META_SLOTS];
+        this.journaledPages = new HashSet<>();
+        this.pageCount = 1;
+        this.freeListHead = NO_PAGE;
+    }
+
+    // pages are overwritten in place, so the committed image of each page goes to a rollback journal before
+    // its first change; a journal found on open belongs to a write that never committed and is played back
+    static PageFile open(Path path, int pageSize, boolean isSynced) throws IOException {
+        final Path journalPath = path.resolveSibling(path.getFileName() + ".journal");
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        FileChannel journal = null;
+        try {
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            rollBack(channel, journal);
+            if (channel.size() == 0L) {
+                final PageFile file = new PageFile(channel, journalPath, journal, pageSize, isSynced);
+                file.writeHeader();
+                return file;
+            }
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_META + 8 * META_SLOTS);
+            channel.read(header, 0L);
+            header.flip();
+            if (header.limit() < header.capacity() || header.getInt(HEADER_MAGIC) != MAGIC) {
+                throw new ManagerLoadException("wrong file format, expected paged task store");
+            }
+            if (header.getInt(HEADER_VERSION) != VERSION) {
+                throw new ManagerLoadException("unsupported paged task store version "
+                        + header.getInt(HEADER_VERSION));
+            }
+            final PageFile file = new PageFile(channel, journalPath, journal, header.getInt(HEADER_PAGE_SIZE),
+                    isSynced);
+            file.pageCount = header.getInt(HEADER_PAGE_COUNT);
+            file.committedPageCount = file.pageCount;
+            file.freeListHead = header.getInt(HEADER_FREE_LIST);
+            for (int i = 0; i < META_SLOTS; i++) {
+                file.meta[i] = header.getLong(HEADER_META + 8 * i);
+            }
+            if (file.pageCount < 1 || (long) file.pageCount * file.pageSize > channel.size()) {
+                throw new ManagerLoadException("paged task store is truncated");
+            }
+            return file;
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            if (journal != null) {
+                journal.close();
+            }
+            throw exception;
+        }
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    long getMeta(int slot) {
+        return meta[slot];
+    }
+
+    void setMeta(int slot, long value) {
+        meta[slot] = value;
+    }
+
+    int allocate() throws IOException {
+        if (freeListHead == NO_PAGE) {
+            return pageCount++;
+        }
+        final int page = freeListHead;
+        freeListHead = read(page).getInt(0);
+        return page;
+    }
+
+    void free(int page) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(pageSize);
+        buffer.putInt(0, freeListHead);
+        write(page, buffer);
+        freeListHead = page;
+    }
+
+    ByteBuffer read(int page) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(pageSize);
+        final long position = (long) page * pageSize;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new ManagerLoadException("paged task store is truncated at page " + page);
+            }
+        }
+        return buffer.clear();
+    }
+
+    void write(int page, ByteBuffer buffer) throws IOException {
+        journal(page);
+        final long position = (long) page * pageSize;
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    void writeHeader() throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(pageSize);
+        header.putInt(HEADER_MAGIC, MAGIC);
+        header.putInt(HEADER_VERSION, VERSION);
+        header.putInt(HEADER_PAGE_SIZE, pageSize);
+        header.putInt(HEADER_PAGE_COUNT, pageCount);
+        header.putInt(HEADER_FREE_LIST, freeListHead);
+        for (int i = 0; i < META_SLOTS; i++) {
+            header.putLong(HEADER_META + 8 * i, meta[i]);
+        }
+        write(0, header);
+    }
+
+    // journals a batch of pages about to be written with one force instead of one per page
+    void journal(Collection<Integer> pages) throws IOException {
+        final long initialSize = journalSize;
+        for (int page : pages) {
+            append(page);
+        }
+        append(0);
+        if (isSynced && journalSize > initialSize) {
+            journal.force(false);
+        }
+    }
+
+    void commit() throws IOException {
+        if (isSynced) {
+            channel.force(false);
+        }
+        if (journalSize > 0L) {
+            journal.truncate(0L);
+            if (isSynced) {
+                journal.force(false);
+            }
+            journalSize = 0L;
+        }
+        journaledPages.clear();
+        committedPageCount = pageCount;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            journal.close();
+        }
+        if (journalSize == 0L) {
+            Files.deleteIfExists(journalPath);
+        }
+    }
+
+    private void journal(int page) throws IOException {
+        final long initialSize = journalSize;
+        append(page);
+        if (isSynced && journalSize > initialSize) {
+            journal.force(false);
+        }
+    }
+
+    private void append(int page) throws IOException {
+        if (page >= committedPageCount || !journaledPages.add(page)) {
+            return;
+        }
+        if (journalSize == 0L) {
+            final ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE)
+                    .putInt(JOURNAL_MAGIC)
+                    .putInt(pageSize)
+                    .putInt(committedPageCount)
+                    .flip();
+            writeFully(journal, header, 0L);
+            journalSize = JOURNAL_HEADER_SIZE;
+        }
+        final ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + pageSize)
+                .putInt(page)
+                .put(read(page))
+                .flip();
+        writeFully(journal, record, journalSize);
+        journalSize += record.capacity();
+    }
+
+    private static void rollBack(FileChannel channel, FileChannel journal) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+        if (!readFully(journal, header, 0L) || header.getInt(0) != JOURNAL_MAGIC || header.getInt(4) <= 0) {
+            journal.truncate(0L);
+            return;
+        }
+        final int pageSize = header.getInt(4);
+        final int pageCount = header.getInt(8);
+        final ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + pageSize);
+        long position = JOURNAL_HEADER_SIZE;
+        // a torn last record was never followed by the write it protects
+        while (readFully(journal, record.clear(), position)) {
+            final int page = record.getInt(0);
+            writeFully(channel, record.position(Integer.BYTES), (long) page * pageSize);
+            position += record.capacity();
+        }
+        channel.truncate((long) pageCount * pageSize);
+        channel.force(false);
+        journal.truncate(0L);
+        journal.force(false);
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        final long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        final long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+    }
+}
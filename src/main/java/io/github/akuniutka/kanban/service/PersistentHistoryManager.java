@@ -0,0 +1,287 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.Task;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+class PersistentHistoryManager implements HistoryManager {
+    private static final int ADD = 'A';
+    private static final int REMOVE = 'R';
+    private static final int MAX_RECORD_SIZE = 11;
+    private static final long FLUSH_INTERVAL_MILLIS = 100L;
+    private static final long MIN_RECORDS_TO_COMPACT = 1024L;
+    private final HistoryManager delegate;
+    private final Path path;
+    private final Path tmpPath;
+    private final FsyncPolicy fsyncPolicy;
+    private final ScheduledExecutorService writer;
+    private final Object writeLock;
+    private ByteBuffer pending;
+    private List<Long> pendingCompaction;
+    private long recordsSinceCompaction;
+    private long compactedRecords;
+    private FileChannel log;
+    private ManagerSaveException failure;
+
+    PersistentHistoryManager(HistoryManager delegate, Path path, StorageOptions options) {
+        this.delegate = delegate;
+        this.path = path.resolveSibling(path.getFileName() + ".history");
+        this.tmpPath = path.resolveSibling(path.getFileName() + ".history.tmp");
+        this.fsyncPolicy = options.getFsyncPolicy();
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "history-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writeLock = new Object();
+        this.pending = ByteBuffer.allocate(1024);
+    }
+
+    @Override
+    public void add(Task task) {
+        delegate.add(task);
+        append(ADD, task.getId());
+    }
+
+    @Override
+    public void remove(long id) {
+        delegate.remove(id);
+        append(REMOVE, id);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    // returns what had to be repaired to read the file, empty when it was intact
+    List<String> restore(LongFunction<Task> lookup) {
+        final List<String> recoveryActions = new ArrayList<>();
+        final Collection<Long> ids;
+        try {
+            Files.deleteIfExists(tmpPath);
+            ids = replay(recoveryActions);
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+        final List<Long> restoredIds = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            final Task task = lookup.apply(id);
+            if (task != null) {
+                delegate.add(task);
+                restoredIds.add(id);
+            }
+        }
+        synchronized (writeLock) {
+            compact(restoredIds);
+        }
+        synchronized (this) {
+            compactedRecords = restoredIds.size();
+        }
+        writer.scheduleWithFixedDelay(this::flushInBackground, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        return recoveryActions;
+    }
+
+    void flush() {
+        writePending();
+        rethrowFailure();
+    }
+
+    void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writeLock) {
+            writePending();
+            try {
+                if (log != null) {
+                    log.close();
+                    log = null;
+                }
+            } catch (IOException exception) {
+                throw new ManagerSaveException("cannot close file \"%s\"".formatted(path), exception);
+            }
+        }
+        rethrowFailure();
+    }
+
+    private void writePending() {
+        synchronized (writeLock) {
+            final List<Long> compaction;
+            final ByteBuffer records;
+            synchronized (this) {
+                if (pendingCompaction == null && pending.position() == 0) {
+                    return;
+                }
+                compaction = pendingCompaction;
+                records = pending;
+                pendingCompaction = null;
+                pending = ByteBuffer.allocate(records.capacity());
+            }
+            if (compaction != null) {
+                compact(compaction);
+            }
+            write(records);
+        }
+    }
+
+    private synchronized void append(int operation, long id) {
+        if (pending.remaining() < MAX_RECORD_SIZE) {
+            pending = ByteBuffer.allocate(pending.capacity() * 2).put(pending.flip());
+        }
+        putRecord(pending, operation, id);
+        recordsSinceCompaction++;
+        if (recordsSinceCompaction > 3L * compactedRecords + MIN_RECORDS_TO_COMPACT) {
+            final List<Task> history = delegate.getHistory();
+            pendingCompaction = new ArrayList<>(history.size());
+            history.forEach(task -> pendingCompaction.add(task.getId()));
+            pending.clear();
+            recordsSinceCompaction = 0L;
+            compactedRecords = history.size();
+        }
+    }
+
+    private Collection<Long> replay(List<String> recoveryActions) throws IOException {
+        final SequencedSet<Long> ids = new LinkedHashSet<>();
+        if (!Files.exists(path)) {
+            return ids;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            int operation = in.read();
+            while (operation != -1) {
+                final long id;
+                try {
+                    id = unZigZag(readVarLong(in));
+                } catch (EOFException exception) {
+                    break;
+                }
+                if (operation == ADD) {
+                    ids.remove(id);
+                    ids.add(id);
+                } else if (operation == REMOVE) {
+                    ids.remove(id);
+                } else {
+                    recoveryActions.add("history file \"%s\" is corrupted, ignored its tail".formatted(path));
+                    break;
+                }
+                operation = in.read();
+            }
+        }
+        return ids;
+    }
+
+    private void compact(List<Long> ids) {
+        try {
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+            try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                for (long id : ids) {
+                    if (buffer.remaining() < MAX_RECORD_SIZE) {
+                        drain(channel, buffer.flip());
+                        buffer.clear();
+                    }
+                    putRecord(buffer, ADD, id);
+                }
+                drain(channel, buffer.flip());
+                channel.force(false);
+            }
+            Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    private void write(ByteBuffer records) {
+        if (log == null || records.position() == 0) {
+            return;
+        }
+        try {
+            drain(log, records.flip());
+            if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+                log.force(false);
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            writePending();
+        } catch (ManagerSaveException exception) {
+            synchronized (this) {
+                // the writer runs on a timer with nobody to tell, so the next flush() or close() reports it
+                failure = exception;
+            }
+        }
+    }
+
+    private synchronized void rethrowFailure() {
+        if (failure == null) {
+            return;
+        }
+        final ManagerSaveException exception = failure;
+        failure = null;
+        throw exception;
+    }
+
+    private static void putRecord(ByteBuffer buffer, int operation, long id) {
+        buffer.put((byte) operation);
+        long value = (id << 1) ^ (id >> 63);
+        while ((value & ~0x7FL) != 0L) {
+            buffer.put((byte) ((value & 0x7FL) | 0x80L));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.read();
+            if (b == -1) {
+                throw new EOFException("incomplete history record");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("malformed history record");
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
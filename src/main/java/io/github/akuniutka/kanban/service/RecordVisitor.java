@@ -0,0 +1,12 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+
+interface RecordVisitor {
+    void put(Task task);
+
+    void delete(long id);
+
+    void clear(TaskType type);
+}
@@ -0,0 +1,336 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerException;
+import io.github.akuniutka.kanban.exception.ReadOnlyManagerException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+import io.github.akuniutka.kanban.util.CSVTaskFormat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+public class ReplicaTaskManager extends InMemoryTaskManager implements ReplicationCapable, AutoCloseable {
+    private static final long RECONNECT_DELAY = 500L;
+    private final String host;
+    private final int port;
+    private final Thread follower;
+    private volatile Socket socket;
+    private volatile boolean isClosed;
+    private boolean connected;
+    private long epoch;
+    private long appliedSequence;
+    private long primarySequence;
+    private long delayMillis;
+    private long lastContactAt;
+
+    private ReplicaTaskManager(String host, int port, HistoryManager historyManager) {
+        super(historyManager);
+        this.host = host;
+        this.port = port;
+        this.follower = new Thread(this::follow, "replication-follower");
+        this.follower.setDaemon(true);
+        this.lastContactAt = System.currentTimeMillis();
+    }
+
+    public static ReplicaTaskManager connect(String host, int port, HistoryManager historyManager) {
+        Objects.requireNonNull(host, "cannot start: primary host is null");
+        final ReplicaTaskManager manager = new ReplicaTaskManager(host, port, historyManager);
+        manager.follower.start();
+        return manager;
+    }
+
+    @Override
+    public synchronized List<Task> getTasks() {
+        return super.getTasks();
+    }
+
+    @Override
+    public void deleteTasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public synchronized Optional<Task> getTaskById(long id) {
+        return super.getTaskById(id);
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        throw readOnly();
+    }
+
+    @Override
+    public Task updateTask(Task task) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteTask(long id) {
+        throw readOnly();
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics() {
+        return super.getEpics();
+    }
+
+    @Override
+    public void deleteEpics() {
+        throw readOnly();
+    }
+
+    @Override
+    public synchronized Optional<Epic> getEpicById(long id) {
+        return super.getEpicById(id);
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        throw readOnly();
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteEpic(long id) {
+        throw readOnly();
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks() {
+        return super.getSubtasks();
+    }
+
+    @Override
+    public void deleteSubtasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public synchronized Optional<Subtask> getSubtaskById(long id) {
+        return super.getSubtaskById(id);
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        throw readOnly();
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteSubtask(long id) {
+        throw readOnly();
+    }
+
+    @Override
+    public synchronized List<Subtask> getEpicSubtasks(long epicId) {
+        return super.getEpicSubtasks(epicId);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return super.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public synchronized Optional<ReplicationStatus> getReplicationStatus() {
+        final long delay = connected ? delayMillis : System.currentTimeMillis() - lastContactAt;
+        return Optional.of(new ReplicationStatus("follower", connected, appliedSequence,
+                primarySequence - appliedSequence, delay, 0));
+    }
+
+    @Override
+    public void close() {
+        isClosed = true;
+        disconnect();
+        follower.interrupt();
+        try {
+            follower.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void follow() {
+        while (!isClosed) {
+            try (Socket connection = new Socket(host, port)) {
+                socket = connection;
+                if (isClosed) {
+                    return;
+                }
+                final BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                        StandardCharsets.UTF_8));
+                final Writer out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(),
+                        StandardCharsets.UTF_8));
+                synchronized (this) {
+                    out.write("%s,%d,%d%n".formatted(ReplicationSource.FOLLOW, epoch, appliedSequence));
+                    connected = true;
+                    lastContactAt = System.currentTimeMillis();
+                }
+                out.flush();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    receive(line, in);
+                    if (!in.ready()) {
+                        out.write("%s,%d%n".formatted(ReplicationSource.ACK, getAppliedSequence()));
+                        out.flush();
+                    }
+                }
+            } catch (IOException | ManagerException | IllegalArgumentException exception) {
+                if (exception instanceof ManagerException) {
+                    synchronized (this) {
+                        epoch = 0L;
+                    }
+                }
+            } finally {
+                synchronized (this) {
+                    connected = false;
+                }
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY);
+            } catch (InterruptedException exception) {
+                return;
+            }
+        }
+    }
+
+    private void receive(String line, BufferedReader in) throws IOException {
+        final String[] tokens = line.split(",", 4);
+        switch (tokens[0]) {
+            case ReplicationSource.SNAPSHOT -> {
+                final long count = Long.parseLong(tokens[3]);
+                final List<Task> snapshot = new ArrayList<>();
+                for (long i = 0; i < count; i++) {
+                    final String taskString = in.readLine();
+                    if (taskString == null) {
+                        throw new IOException("snapshot truncated");
+                    }
+                    snapshot.add(CSVTaskFormat.parse(taskString));
+                }
+                applySnapshot(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]), snapshot);
+            }
+            case ReplicationSource.RECORD -> applyRecord(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]),
+                    tokens[3]);
+            case ReplicationSource.HEARTBEAT -> applyHeartbeat(Long.parseLong(tokens[1]));
+            default -> throw new IOException("unknown message \"%s\"".formatted(tokens[0]));
+        }
+    }
+
+    private synchronized void applySnapshot(long snapshotEpoch, long sequence, List<Task> snapshot) {
+        super.deleteTasks();
+        super.deleteEpics();
+        snapshot.forEach(this::apply);
+        epoch = snapshotEpoch;
+        appliedSequence = sequence;
+        primarySequence = sequence;
+        delayMillis = 0L;
+        lastContactAt = System.currentTimeMillis();
+    }
+
+    private synchronized void applyRecord(long sequence, long committedAt, String record) throws IOException {
+        if (sequence != appliedSequence + 1) {
+            throw new IOException("expected sequence %d, got %d".formatted(appliedSequence + 1, sequence));
+        }
+        SnapshotStorage.visit(record, new RecordVisitor() {
+            @Override
+            public void put(Task task) {
+                apply(task);
+            }
+
+            @Override
+            public void delete(long id) {
+                applyDeletion(id);
+            }
+
+            @Override
+            public void clear(TaskType type) {
+                applyDeletionOfAll(type);
+            }
+        });
+        appliedSequence = sequence;
+        primarySequence = Long.max(primarySequence, sequence);
+        lastContactAt = System.currentTimeMillis();
+        delayMillis = Long.max(0L, lastContactAt - committedAt);
+    }
+
+    private synchronized void applyHeartbeat(long sequence) {
+        primarySequence = Long.max(primarySequence, sequence);
+        lastContactAt = System.currentTimeMillis();
+        if (appliedSequence == primarySequence) {
+            delayMillis = 0L;
+        }
+    }
+
+    private synchronized long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    private void apply(Task task) {
+        switch (task) {
+            case Subtask subtask -> super.updateSubtask(subtask);
+            case Epic epic -> super.updateEpic(epic);
+            default -> super.updateTask(task);
+        }
+    }
+
+    private void applyDeletion(long id) {
+        final TaskType type = getTaskTypeById(id);
+        if (type == null) {
+            throw new ManagerException("cannot delete missing id=" + id);
+        }
+        switch (type) {
+            case TASK -> super.deleteTask(id);
+            case EPIC -> super.deleteEpic(id);
+            case SUBTASK -> super.deleteSubtask(id);
+        }
+    }
+
+    private void applyDeletionOfAll(TaskType type) {
+        switch (type) {
+            case TASK -> super.deleteTasks();
+            case EPIC -> super.deleteEpics();
+            case SUBTASK -> super.deleteSubtasks();
+        }
+    }
+
+    private void disconnect() {
+        final Socket connection = socket;
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+            // the follower thread stops on the closed connection anyway
+        }
+    }
+
+    private static ReadOnlyManagerException readOnly() {
+        return new ReadOnlyManagerException("replica is read-only, send changes to the primary");
+    }
+}
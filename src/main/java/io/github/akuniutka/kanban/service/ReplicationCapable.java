@@ -0,0 +1,8 @@
+package io.github.akuniutka.kanban.service;
+
+import java.util.Optional;
+
+public interface ReplicationCapable {
+    // empty when the manager is neither a primary nor a follower
+    Optional<ReplicationStatus> getReplicationStatus();
+}
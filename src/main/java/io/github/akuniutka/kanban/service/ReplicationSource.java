@@ -0,0 +1,302 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+import io.github.akuniutka.kanban.util.CSVTaskFormat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+class ReplicationSource implements TaskStorage {
+    static final String FOLLOW = "FOLLOW";
+    static final String ACK = "ACK";
+    static final String SNAPSHOT = "SNAPSHOT";
+    static final String RECORD = "RECORD";
+    static final String HEARTBEAT = "HEARTBEAT";
+    static final long HEARTBEAT_INTERVAL = 1000L;
+    private static final int BACKLOG_SIZE = 65536;
+    private final FileBackedTaskManager manager;
+    private final TaskStorage storage;
+    private final String host;
+    private final int port;
+    private final long epoch;
+    private final ReplicationRecord[] backlog;
+    private final List<Follower> followers;
+    private ServerSocket serverSocket;
+    private long sequence;
+    private volatile boolean isClosed;
+
+    ReplicationSource(FileBackedTaskManager manager, TaskStorage storage, String host, int port) {
+        this.manager = manager;
+        this.storage = storage;
+        this.host = host;
+        this.port = port;
+        this.epoch = ThreadLocalRandom.current().nextLong(1L, Long.MAX_VALUE);
+        this.backlog = new ReplicationRecord[BACKLOG_SIZE];
+        this.followers = new CopyOnWriteArrayList<>();
+    }
+
+    @Override
+    public void load() {
+        storage.load();
+    }
+
+    @Override
+    public void checkpoint() {
+        storage.checkpoint();
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(host, port));
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot listen for followers at %s:%d".formatted(host, port), exception);
+        }
+        final Thread acceptor = new Thread(this::acceptFollowers, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    public void taskSaved(Task task) {
+        storage.taskSaved(task);
+        publish(SnapshotStorage.PUT + "," + CSVTaskFormat.format(task));
+    }
+
+    @Override
+    public void taskDeleted(Task task) {
+        storage.taskDeleted(task);
+        publish(SnapshotStorage.DELETE + "," + task.getId());
+    }
+
+    @Override
+    public void tasksDeleted(TaskType type) {
+        storage.tasksDeleted(type);
+        publish(SnapshotStorage.CLEAR + "," + type);
+    }
+
+    @Override
+    public void tasksSaved(List<Task> tasks) {
+        storage.tasksSaved(tasks);
+        tasks.forEach(task -> publish(SnapshotStorage.PUT + "," + CSVTaskFormat.format(task)));
+    }
+
+    @Override
+    public void tasksDeleted(List<Task> tasks) {
+        storage.tasksDeleted(tasks);
+        // archived tasks stay on the primary only, followers replicate the hot set and drop them here
+        tasks.forEach(task -> publish(SnapshotStorage.DELETE + "," + task.getId()));
+    }
+
+    @Override
+    public SnapshotImage openImage() {
+        return storage.openImage();
+    }
+
+    @Override
+    public void awaitDurability() {
+        storage.awaitDurability();
+    }
+
+    @Override
+    public void flush() {
+        storage.flush();
+    }
+
+    @Override
+    public void close() {
+        isClosed = true;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ignored) {
+            // followers reconnect to the next primary anyway
+        }
+        followers.forEach(Follower::disconnect);
+        synchronized (this) {
+            notifyAll();
+        }
+        storage.close();
+    }
+
+    synchronized ReplicationStatus status() {
+        final long now = System.currentTimeMillis();
+        long lag = 0L;
+        long delay = 0L;
+        for (Follower follower : followers) {
+            final long acknowledged = follower.acknowledged;
+            if (acknowledged < sequence) {
+                lag = Long.max(lag, sequence - acknowledged);
+                final ReplicationRecord oldest = get(acknowledged + 1);
+                delay = Long.max(delay, now - (oldest != null ? oldest.committedAt() : follower.connectedAt));
+            }
+        }
+        return new ReplicationStatus("primary", !isClosed, sequence, lag, delay, followers.size());
+    }
+
+    private synchronized void publish(String record) {
+        sequence++;
+        backlog[(int) (sequence % BACKLOG_SIZE)] = new ReplicationRecord(sequence, System.currentTimeMillis(),
+                record);
+        notifyAll();
+    }
+
+    private ReplicationRecord get(long recordSequence) {
+        if (recordSequence > sequence || recordSequence <= sequence - BACKLOG_SIZE || recordSequence < 1L) {
+            return null;
+        }
+        return backlog[(int) (recordSequence % BACKLOG_SIZE)];
+    }
+
+    private void acceptFollowers() {
+        while (!isClosed) {
+            try {
+                final Socket socket = serverSocket.accept();
+                final Follower follower = new Follower(socket);
+                final Thread thread = new Thread(follower::serve, "replication-" + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException ignored) {
+                // the follower retries, and the loop ends once the socket is closed
+            }
+        }
+    }
+
+    private class Follower {
+        private final Socket socket;
+        private final long connectedAt;
+        private volatile long acknowledged;
+
+        Follower(Socket socket) {
+            this.socket = socket;
+            this.connectedAt = System.currentTimeMillis();
+        }
+
+        void serve() {
+            try (socket; BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8)); Writer out = new BufferedWriter(new OutputStreamWriter(
+                    socket.getOutputStream(), StandardCharsets.UTF_8))) {
+                long sent = handshake(in.readLine(), out);
+                followers.add(this);
+                final Thread reader = new Thread(() -> readAcknowledgements(in),
+                        "replication-ack-" + socket.getRemoteSocketAddress());
+                reader.setDaemon(true);
+                reader.start();
+                while (!isClosed) {
+                    sent = ship(sent, out);
+                }
+            } catch (IOException | RuntimeException ignored) {
+                // a follower that left reconnects and resumes from its last applied sequence
+            } finally {
+                followers.remove(this);
+            }
+        }
+
+        void disconnect() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // the follower notices the closed connection on its own
+            }
+        }
+
+        private long handshake(String hello, Writer out) throws IOException {
+            if (hello == null || !hello.startsWith(FOLLOW + ",")) {
+                throw new IOException("wrong handshake");
+            }
+            final String[] tokens = hello.split(",");
+            if (tokens.length == 3 && Long.parseLong(tokens[1]) == epoch) {
+                final long applied = Long.parseLong(tokens[2]);
+                synchronized (ReplicationSource.this) {
+                    if (applied == sequence || get(applied + 1) != null) {
+                        acknowledged = applied;
+                        return applied;
+                    }
+                }
+            }
+            return sendSnapshot(out);
+        }
+
+        private long sendSnapshot(Writer out) throws IOException {
+            final List<Task> snapshot;
+            final long snapshotSequence;
+            synchronized (manager) {
+                snapshot = manager.snapshot();
+                synchronized (ReplicationSource.this) {
+                    snapshotSequence = sequence;
+                }
+            }
+            out.write("%s,%d,%d,%d%n".formatted(SNAPSHOT, epoch, snapshotSequence, snapshot.size()));
+            for (Task task : snapshot) {
+                out.write(CSVTaskFormat.format(task));
+                out.write(System.lineSeparator());
+            }
+            out.flush();
+            return snapshotSequence;
+        }
+
+        private long ship(long sent, Writer out) throws IOException {
+            final List<ReplicationRecord> batch = new ArrayList<>();
+            final long current;
+            synchronized (ReplicationSource.this) {
+                if (sequence == sent && !isClosed) {
+                    try {
+                        ReplicationSource.this.wait(HEARTBEAT_INTERVAL);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("interrupted");
+                    }
+                }
+                current = sequence;
+                for (long next = sent + 1; next <= current; next++) {
+                    final ReplicationRecord record = get(next);
+                    if (record == null) {
+                        batch.clear();
+                        break;
+                    }
+                    batch.add(record);
+                }
+            }
+            if (current > sent && batch.isEmpty()) {
+                return sendSnapshot(out);
+            }
+            if (batch.isEmpty()) {
+                out.write("%s,%d,%d%n".formatted(HEARTBEAT, current, System.currentTimeMillis()));
+            }
+            for (ReplicationRecord record : batch) {
+                out.write("%s,%d,%d,%s%n".formatted(RECORD, record.sequence(), record.committedAt(),
+                        record.record()));
+            }
+            out.flush();
+            return current;
+        }
+
+        private void readAcknowledgements(BufferedReader in) {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith(ACK + ",")) {
+                        acknowledged = Long.parseLong(line.substring(ACK.length() + 1));
+                    }
+                }
+            } catch (IOException | NumberFormatException exception) {
+                disconnect();
+            }
+        }
+    }
+
+    private record ReplicationRecord(long sequence, long committedAt, String record) {
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.akuniutka.kanban.service;
+
+public class ReplicationStatus {
+    private final String role;
+    private final boolean connected;
+    private final long sequence;
+    private final long lag;
+    private final long delayMillis;
+    private final int followers;
+
+    public ReplicationStatus(String role, boolean connected, long sequence, long lag, long delayMillis, int followers) {
+        this.role = role;
+        this.connected = connected;
+        this.sequence = sequence;
+        this.lag = lag;
+        this.delayMillis = delayMillis;
+        this.followers = followers;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    public int getFollowers() {
+        return followers;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicationStatus{role=%s, connected=%s, sequence=%d, lag=%d, delayMillis=%d, followers=%d}"
+                .formatted(role, connected, sequence, lag, delayMillis, followers);
+    }
+}
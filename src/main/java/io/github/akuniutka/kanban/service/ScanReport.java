@@ -0,0 +1,31 @@
+package io.github.akuniutka.kanban.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public record ScanReport(boolean hasChecksums, long validPrefixRecords, long validPrefixLength,
+        List<ByteRange> corruptRanges) {
+
+    public boolean isClean() {
+        return corruptRanges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (!hasChecksums) {
+            return "no checksums";
+        }
+        if (isClean()) {
+            return "%d records, no corruption".formatted(validPrefixRecords);
+        }
+        return "corrupted at bytes %s, valid prefix of %d records (%d bytes)".formatted(corruptRanges.stream()
+                .map(ByteRange::toString).collect(Collectors.joining(", ")), validPrefixRecords, validPrefixLength);
+    }
+
+    public record ByteRange(long start, long end) {
+        @Override
+        public String toString() {
+            return start + "-" + end;
+        }
+    }
+}
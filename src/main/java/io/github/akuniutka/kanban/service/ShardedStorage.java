@@ -0,0 +1,333 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class ShardedStorage implements TaskStorage {
+    private static final String MANIFEST_HEADER = "shards";
+    private static final Comparator<Shard> SAVING_ORDER = Comparator.comparing((Shard shard) -> switch (shard.type()) {
+        case SUBTASK -> 0;
+        case TASK -> 1;
+        case EPIC -> 2;
+    }).thenComparingLong(Shard::range);
+    private final FileBackedTaskManager manager;
+    private final Path path;
+    private final Path tmpPath;
+    private final FsyncPolicy fsyncPolicy;
+    private final StorageOptions options;
+    private final Pattern shardFileName;
+    private final Map<Shard, SortedSet<Long>> idsByShard;
+    private final Set<Shard> savedShards;
+    private final Set<Shard> dirtyShards;
+    private long shardSize;
+    private boolean isRewriteNeeded;
+
+    ShardedStorage(FileBackedTaskManager manager, Path path, StorageOptions options) {
+        this.manager = manager;
+        this.path = path;
+        this.tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        this.fsyncPolicy = options.getFsyncPolicy();
+        this.options = options;
+        this.shardSize = options.getShardSize();
+        this.shardFileName = Pattern.compile(Pattern.quote(path.getFileName() + ".")
+                + "(TASK|EPIC|SUBTASK)\\.(-?\\d+)(\\.tmp)?");
+        this.idsByShard = new HashMap<>();
+        this.savedShards = new HashSet<>();
+        this.dirtyShards = new HashSet<>();
+    }
+
+    @Override
+    public void load() {
+        try {
+            Files.deleteIfExists(tmpPath);
+            if (!Files.exists(path) || !isManifest()) {
+                deleteShardFilesExcept(Set.of());
+                new SnapshotStorage(manager, path, options).load();
+                isRewriteNeeded = true;
+                return;
+            }
+            final List<Shard> shards = readManifest();
+            deleteShardFilesExcept(new HashSet<>(shards));
+            loadShards(shards);
+            savedShards.addAll(shards);
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    @Override
+    public void checkpoint() {
+        if (!isRewriteNeeded) {
+            return;
+        }
+        manager.snapshot().forEach(task -> idsOf(shardOf(task.getType(), task.getId())).add(task.getId()));
+        dirtyShards.addAll(idsByShard.keySet());
+        saveDirtyShards(true);
+        isRewriteNeeded = false;
+    }
+
+    @Override
+    public void taskSaved(Task task) {
+        final Shard shard = shardOf(task.getType(), task.getId());
+        idsOf(shard).add(task.getId());
+        dirtyShards.add(shard);
+        saveDirtyShards(false);
+    }
+
+    @Override
+    public void taskDeleted(Task task) {
+        tasksDeleted(List.of(task));
+    }
+
+    @Override
+    public void tasksDeleted(TaskType type) {
+        forgetShardsOf(type);
+        if (type == TaskType.EPIC) {
+            forgetShardsOf(TaskType.SUBTASK);
+        }
+        saveDirtyShards(false);
+    }
+
+    @Override
+    public void tasksSaved(List<Task> tasks) {
+        for (Task task : tasks) {
+            final Shard shard = shardOf(task.getType(), task.getId());
+            idsOf(shard).add(task.getId());
+            dirtyShards.add(shard);
+        }
+        saveDirtyShards(false);
+    }
+
+    @Override
+    public void tasksDeleted(List<Task> tasks) {
+        for (Task task : tasks) {
+            forget(task.getType(), task.getId());
+            if (task instanceof Epic epic) {
+                epic.getSubtaskIds().forEach(subtaskId -> forget(TaskType.SUBTASK, subtaskId));
+            }
+        }
+        saveDirtyShards(false);
+    }
+
+    @Override
+    public SnapshotImage openImage() {
+        return null;
+    }
+
+    @Override
+    public void awaitDurability() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private boolean isManifest() throws IOException {
+        final byte[] expected = (MANIFEST_HEADER + ",").getBytes(StandardCharsets.UTF_8);
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(expected.length), expected);
+        }
+    }
+
+    private List<Shard> readManifest() throws IOException {
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        try {
+            shardSize = Long.parseLong(lines.getFirst().substring(MANIFEST_HEADER.length() + 1));
+        } catch (NumberFormatException exception) {
+            shardSize = 0L;
+        }
+        if (shardSize < 1L) {
+            throw new ManagerLoadException("wrong shard size in file \"%s\"".formatted(path));
+        }
+        final List<Shard> shards = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            final Matcher matcher = shardFileName.matcher(line);
+            if (!matcher.matches() || matcher.group(3) != null) {
+                throw new ManagerLoadException("wrong shard \"%s\" in file \"%s\"".formatted(line, path));
+            }
+            shards.add(new Shard(TaskType.valueOf(matcher.group(1)), Long.parseLong(matcher.group(2))));
+        }
+        return shards;
+    }
+
+    private void loadShards(List<Shard> shards) throws IOException {
+        final List<Shard> loadingOrder = shards.stream()
+                .sorted(Comparator.comparing(Shard::type).thenComparingLong(Shard::range))
+                .toList();
+        long totalBytes = 0L;
+        for (Shard shard : loadingOrder) {
+            totalBytes += Files.size(pathOf(shard));
+        }
+        final AtomicLong bytesRead = new AtomicLong();
+        final LoadProgress progress = new LoadProgress(options, totalBytes, bytesRead::get);
+        final int parallelism = Integer.max(1, Integer.min(loadingOrder.size(),
+                Runtime.getRuntime().availableProcessors()));
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final List<ForkJoinTask<List<Task>>> parsedShards = new ArrayList<>(loadingOrder.size());
+            for (Shard shard : loadingOrder) {
+                parsedShards.add(pool.submit(() -> readShard(shard)));
+            }
+            for (int i = 0; i < loadingOrder.size(); i++) {
+                final Shard shard = loadingOrder.get(i);
+                final SortedSet<Long> ids = idsOf(shard);
+                for (Task task : parsedShards.get(i).join()) {
+                    if (task.getType() != shard.type() || !shard.equals(shardOf(task.getType(), task.getId()))) {
+                        throw new ManagerLoadException("id=%d does not belong to shard \"%s\""
+                                .formatted(task.getId(), pathOf(shard).getFileName()));
+                    }
+                    manager.restore(task);
+                    ids.add(task.getId());
+                    progress.recordLoaded();
+                }
+                bytesRead.addAndGet(Files.size(pathOf(shard)));
+            }
+            progress.finish();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<Task> readShard(Shard shard) {
+        final Path shardPath = pathOf(shard);
+        if (!Files.exists(shardPath)) {
+            throw new ManagerLoadException("missing shard file \"%s\"".formatted(shardPath));
+        }
+        return new SnapshotStorage(manager, shardPath, options).readSnapshot();
+    }
+
+    private void saveDirtyShards(boolean isManifestChanged) {
+        final List<Shard> shards = dirtyShards.stream().sorted(SAVING_ORDER).toList();
+        dirtyShards.clear();
+        final List<Shard> emptyShards = new ArrayList<>();
+        for (Shard shard : shards) {
+            final SortedSet<Long> ids = idsByShard.get(shard);
+            if (ids == null || ids.isEmpty()) {
+                idsByShard.remove(shard);
+                isManifestChanged |= savedShards.remove(shard);
+                emptyShards.add(shard);
+                continue;
+            }
+            final List<Task> tasks = new ArrayList<>(ids.size());
+            ids.forEach(id -> tasks.add(manager.lookup(shard.type(), id)));
+            new ShardWriter(pathOf(shard)).saveSnapshot(tasks);
+            isManifestChanged |= savedShards.add(shard);
+        }
+        if (isManifestChanged) {
+            writeManifest();
+        }
+        try {
+            for (Shard shard : emptyShards) {
+                Files.deleteIfExists(pathOf(shard));
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot delete file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    private void writeManifest() {
+        final StringBuilder manifest = new StringBuilder(MANIFEST_HEADER).append(',').append(shardSize)
+                .append(System.lineSeparator());
+        savedShards.stream()
+                .sorted(Comparator.comparing(Shard::type).thenComparingLong(Shard::range))
+                .forEach(shard -> manifest.append(pathOf(shard).getFileName()).append(System.lineSeparator()));
+        try {
+            try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer buffer = StandardCharsets.UTF_8.encode(manifest.toString());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+                SnapshotStorage.forceDirectory(path);
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    private void forget(TaskType type, long id) {
+        final Shard shard = shardOf(type, id);
+        idsOf(shard).remove(id);
+        dirtyShards.add(shard);
+    }
+
+    private void forgetShardsOf(TaskType type) {
+        for (Map.Entry<Shard, SortedSet<Long>> entry : idsByShard.entrySet()) {
+            if (entry.getKey().type() == type) {
+                entry.getValue().clear();
+                dirtyShards.add(entry.getKey());
+            }
+        }
+    }
+
+    private void deleteShardFilesExcept(Set<Shard> shards) throws IOException {
+        final Path directory = path.toAbsolutePath().getParent();
+        final List<Path> leftovers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, path.getFileName() + ".*")) {
+            for (Path file : files) {
+                final Matcher matcher = shardFileName.matcher(file.getFileName().toString());
+                if (matcher.matches() && (matcher.group(3) != null || !shards.contains(
+                        new Shard(TaskType.valueOf(matcher.group(1)), Long.parseLong(matcher.group(2)))))) {
+                    leftovers.add(file);
+                }
+            }
+        }
+        for (Path leftover : leftovers) {
+            Files.deleteIfExists(leftover);
+        }
+    }
+
+    private SortedSet<Long> idsOf(Shard shard) {
+        return idsByShard.computeIfAbsent(shard, key -> new TreeSet<>());
+    }
+
+    private Shard shardOf(TaskType type, long id) {
+        return new Shard(type, Math.floorDiv(id, shardSize));
+    }
+
+    private Path pathOf(Shard shard) {
+        return path.resolveSibling(path.getFileName() + "." + shard.type() + "." + shard.range());
+    }
+
+    private record Shard(TaskType type, long range) {
+    }
+
+    private class ShardWriter extends SnapshotStorage {
+        ShardWriter(Path shardPath) {
+            super(ShardedStorage.this.manager, shardPath, ShardedStorage.this.options);
+        }
+
+        @Override
+        protected boolean isAtomicSave() {
+            return true;
+        }
+    }
+}
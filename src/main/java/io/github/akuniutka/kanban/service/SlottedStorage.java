@@ -0,0 +1,694 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+class SlottedStorage implements TaskStorage {
+    private static final int MAGIC = 0x4B42534C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long MIN_GARBAGE_TO_COMPACT = 64L * 1024L;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_SLOT_SIZE = 8;
+    private static final int HEADER_TEXT_GENERATION = 16;
+    private static final int SLOT_STATE = 0;
+    private static final int SLOT_TYPE = 1;
+    private static final int SLOT_STATUS = 2;
+    private static final int SLOT_ID = 8;
+    private static final int SLOT_EPIC_ID = 16;
+    private static final int SLOT_DURATION = 24;
+    private static final int SLOT_START_TIME = 32;
+    private static final int SLOT_TITLE_OFFSET = 40;
+    private static final int SLOT_TITLE_LENGTH = 48;
+    private static final int SLOT_DESCRIPTION_LENGTH = 52;
+    private static final int SLOT_DESCRIPTION_OFFSET = 56;
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+    private static final long NULL_VALUE = Long.MIN_VALUE;
+    private static final int NULL_LENGTH = -1;
+    private final FileBackedTaskManager manager;
+    private final Path path;
+    private final Path tmpPath;
+    private final FsyncPolicy fsyncPolicy;
+    private final StorageOptions options;
+    private final Map<Long, Integer> slotById;
+    private final Map<TaskType, Set<Long>> idsByType;
+    private final Deque<Integer> freeSlots;
+    private final boolean isLazyDescriptions;
+    private final long descriptionCacheSize;
+    private final LinkedHashMap<StoredText, String> descriptionCache;
+    private final Set<StoredText> storedTexts;
+    private long cachedDescriptionSize;
+    private FileChannel slotChannel;
+    private MappedByteBuffer slots;
+    private int capacity;
+    private int highWaterMark;
+    private int scannedSlots;
+    private long textGeneration;
+    private FileChannel textChannel;
+    private long textSize;
+    private long liveTextSize;
+
+    SlottedStorage(FileBackedTaskManager manager, Path path, StorageOptions options) {
+        this.manager = manager;
+        this.path = path;
+        this.tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        this.fsyncPolicy = options.getFsyncPolicy();
+        this.options = options;
+        this.slotById = new HashMap<>();
+        this.idsByType = new EnumMap<>(TaskType.class);
+        for (TaskType type : TaskType.values()) {
+            idsByType.put(type, new HashSet<>());
+        }
+        this.freeSlots = new ArrayDeque<>();
+        this.isLazyDescriptions = options.isLazyDescriptions();
+        this.descriptionCacheSize = options.getDescriptionCacheSize();
+        this.descriptionCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.storedTexts = Collections.newSetFromMap(new WeakHashMap<>());
+    }
+
+    @Override
+    public void load() {
+        try {
+            Files.deleteIfExists(tmpPath);
+            if (!Files.exists(path) || Files.size(path) == 0L) {
+                return;
+            }
+            slotChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            slots = slotChannel.map(FileChannel.MapMode.READ_WRITE, 0L, slotChannel.size());
+            checkHeader();
+            textGeneration = slots.getLong(HEADER_TEXT_GENERATION);
+            Files.deleteIfExists(textPath(textGeneration + 1L));
+            textChannel = FileChannel.open(textPath(textGeneration), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            textSize = textChannel.size();
+            final ByteBuffer text = textChannel.map(FileChannel.MapMode.READ_ONLY, 0L, textSize);
+            capacity = (slots.capacity() - HEADER_SIZE) / SLOT_SIZE;
+            final LoadProgress progress = new LoadProgress(options, slots.capacity(), () -> offsetOf(scannedSlots));
+            final List<Integer> emptySlots = new ArrayList<>();
+            final List<Subtask> restoredSubtasks = new ArrayList<>();
+            for (int slot = 0; slot < capacity; slot++) {
+                scannedSlots = slot;
+                if (slots.get(offsetOf(slot) + SLOT_STATE) != USED) {
+                    emptySlots.add(slot);
+                    continue;
+                }
+                final Task task = readSlot(slot, text);
+                index(task, slot);
+                highWaterMark = slot + 1;
+                if (task instanceof Subtask subtask) {
+                    restoredSubtasks.add(subtask);
+                } else {
+                    manager.restore(task);
+                    progress.recordLoaded();
+                }
+            }
+            scannedSlots = capacity;
+            for (Subtask subtask : restoredSubtasks) {
+                manager.restore(subtask);
+                progress.recordLoaded();
+            }
+            progress.finish();
+            emptySlots.stream().filter(slot -> slot < highWaterMark).forEach(freeSlots::add);
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    @Override
+    public void checkpoint() {
+        if (slotChannel != null && !hasTooMuchGarbage()) {
+            return;
+        }
+        try {
+            rewrite();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    @Override
+    public void taskSaved(Task task) {
+        tasksSaved(List.of(task));
+    }
+
+    @Override
+    public void taskDeleted(Task task) {
+        tasksDeleted(List.of(task));
+    }
+
+    @Override
+    public void tasksDeleted(TaskType type) {
+        final List<Integer> freedSlots = new ArrayList<>();
+        freeSlotsOf(type, freedSlots);
+        if (type == TaskType.EPIC) {
+            freeSlotsOf(TaskType.SUBTASK, freedSlots);
+        }
+        forceSlots(freedSlots);
+        compactIfNeeded();
+    }
+
+    @Override
+    public void tasksSaved(List<Task> tasks) {
+        try {
+            final List<Integer> writtenSlots = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                writtenSlots.add(writeTask(task));
+            }
+            if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+                textChannel.force(false);
+            }
+            forceSlots(writtenSlots);
+            if (isLazyDescriptions) {
+                for (int i = 0; i < tasks.size(); i++) {
+                    if (tasks.get(i).getDescription() != null) {
+                        manager.replay(lazyCopyOf(tasks.get(i), writtenSlots.get(i)));
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public void tasksDeleted(List<Task> tasks) {
+        final List<Integer> freedSlots = new ArrayList<>();
+        for (Task task : tasks) {
+            freeSlotOf(task.getId(), freedSlots);
+            if (task instanceof Epic epic) {
+                epic.getSubtaskIds().forEach(subtaskId -> freeSlotOf(subtaskId, freedSlots));
+            }
+        }
+        forceSlots(freedSlots);
+        compactIfNeeded();
+    }
+
+    @Override
+    public SnapshotImage openImage() {
+        return null;
+    }
+
+    @Override
+    public void awaitDurability() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        synchronized (manager) {
+            try {
+                if (slotChannel != null) {
+                    if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+                        slots.force();
+                        textChannel.force(false);
+                    }
+                    slotChannel.close();
+                    textChannel.close();
+                    slotChannel = null;
+                    textChannel = null;
+                }
+            } catch (IOException exception) {
+                throw new ManagerSaveException("cannot close file \"%s\"".formatted(path), exception);
+            }
+        }
+    }
+
+    private void checkHeader() {
+        if (slots.capacity() < HEADER_SIZE || slots.getInt(HEADER_MAGIC) != MAGIC
+                || slots.getInt(HEADER_VERSION) != VERSION || slots.getInt(HEADER_SLOT_SIZE) != SLOT_SIZE
+                || (slots.capacity() - HEADER_SIZE) % SLOT_SIZE != 0) {
+            throw new ManagerLoadException("wrong file format, expected slotted records");
+        }
+    }
+
+    private Task readSlot(int slot, ByteBuffer text) {
+        final int base = offsetOf(slot);
+        final long id = slots.getLong(base + SLOT_ID);
+        final byte typeOrdinal = slots.get(base + SLOT_TYPE);
+        if (typeOrdinal < 0 || typeOrdinal >= TaskType.values().length) {
+            throw new ManagerLoadException("unknown task type for id=" + id);
+        }
+        final TaskType type = TaskType.values()[typeOrdinal];
+        final long descriptionOffset = slots.getLong(base + SLOT_DESCRIPTION_OFFSET);
+        final int descriptionLength = slots.getInt(base + SLOT_DESCRIPTION_LENGTH);
+        final boolean isLazy = isLazyDescriptions && descriptionLength != NULL_LENGTH;
+        if (isLazy) {
+            checkTextReference(descriptionOffset, descriptionLength, id);
+        }
+        final Task task = newTask(type, isLazy ? storedText(descriptionOffset, descriptionLength) : null);
+        task.setId(id);
+        task.setTitle(readText(text, slots.getLong(base + SLOT_TITLE_OFFSET),
+                slots.getInt(base + SLOT_TITLE_LENGTH), id));
+        if (isLazy) {
+            liveTextSize += descriptionLength;
+        } else {
+            task.setDescription(readText(text, descriptionOffset, descriptionLength, id));
+        }
+        if (type != TaskType.EPIC) {
+            final byte statusOrdinal = slots.get(base + SLOT_STATUS);
+            if (statusOrdinal >= TaskStatus.values().length) {
+                throw new ManagerLoadException("unknown task status for id=" + id);
+            }
+            task.setStatus(statusOrdinal < 0 ? null : TaskStatus.values()[statusOrdinal]);
+            final long duration = slots.getLong(base + SLOT_DURATION);
+            task.setDuration(duration == NULL_VALUE ? null : Duration.ofMinutes(duration));
+            final long startTime = slots.getLong(base + SLOT_START_TIME);
+            task.setStartTime(startTime == NULL_VALUE ? null
+                    : LocalDateTime.ofEpochSecond(startTime * 60L, 0, ZoneOffset.UTC));
+        }
+        if (task instanceof Subtask subtask) {
+            subtask.setEpicId(slots.getLong(base + SLOT_EPIC_ID));
+        }
+        return task;
+    }
+
+    private String readText(ByteBuffer text, long offset, int length, long id) {
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        checkTextReference(offset, length, id);
+        final byte[] bytes = new byte[length];
+        text.get((int) offset, bytes);
+        liveTextSize += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void checkTextReference(long offset, int length, long id) {
+        if (length < 0 || offset < 0L || offset + length > textSize) {
+            throw new ManagerLoadException("text reference out of bounds for id=" + id);
+        }
+    }
+
+    private String loadDescription(StoredText text) {
+        synchronized (manager) {
+            if (text.value != null) {
+                return text.value;
+            }
+            final String cached = descriptionCache.get(text);
+            if (cached != null) {
+                return cached;
+            }
+            if (textChannel == null) {
+                throw new ManagerLoadException("cannot load description: file \"%s\" is closed"
+                        .formatted(textPath(textGeneration)));
+            }
+            final String description;
+            try {
+                description = readText(textChannel, text);
+            } catch (IOException exception) {
+                throw new ManagerLoadException("cannot load from file \"%s\"".formatted(textPath(textGeneration)),
+                        exception);
+            }
+            cacheDescription(text, description);
+            return description;
+        }
+    }
+
+    private static String readText(FileChannel channel, StoredText text) throws IOException {
+        final ByteBuffer bytes = ByteBuffer.allocate(text.length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, text.offset + bytes.position()) < 0) {
+                throw new ManagerLoadException("text reference out of bounds at offset " + text.offset);
+            }
+        }
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+
+    private void cacheDescription(StoredText text, String description) {
+        if (descriptionCacheSize == 0L || description.length() > descriptionCacheSize) {
+            return;
+        }
+        descriptionCache.put(text, description);
+        cachedDescriptionSize += description.length();
+        final Iterator<String> iterator = descriptionCache.values().iterator();
+        while (cachedDescriptionSize > descriptionCacheSize) {
+            cachedDescriptionSize -= iterator.next().length();
+            iterator.remove();
+        }
+    }
+
+    private StoredText storedText(long offset, int length) {
+        final StoredText text = new StoredText(offset, length);
+        storedTexts.add(text);
+        return text;
+    }
+
+    private Task newTask(TaskType type, StoredText description) {
+        if (description == null) {
+            return switch (type) {
+                case TASK -> new Task();
+                case EPIC -> new Epic();
+                case SUBTASK -> new Subtask();
+            };
+        }
+        return switch (type) {
+            case TASK -> new LazyTask(this, description);
+            case EPIC -> new LazyEpic(this, description);
+            case SUBTASK -> new LazySubtask(this, description);
+        };
+    }
+
+    // the manager keeps this copy, so the caller's object is left as it was passed in
+    private Task lazyCopyOf(Task task, int slot) {
+        final int base = offsetOf(slot);
+        final Task copy = newTask(task.getType(), storedText(slots.getLong(base + SLOT_DESCRIPTION_OFFSET),
+                slots.getInt(base + SLOT_DESCRIPTION_LENGTH)));
+        copy.setId(task.getId());
+        copy.setTitle(task.getTitle());
+        copy.setStatus(task.getStatus());
+        copy.setDuration(task.getDuration());
+        copy.setStartTime(task.getStartTime());
+        if (task instanceof Subtask subtask) {
+            ((Subtask) copy).setEpicId(subtask.getEpicId());
+        } else if (task instanceof Epic epic) {
+            ((Epic) copy).setSubtaskIds(epic.getSubtaskIds());
+            ((Epic) copy).setEndTime(epic.getEndTime());
+        }
+        return copy;
+    }
+
+    private int writeTask(Task task) throws IOException {
+        Integer slot = slotById.get(task.getId());
+        if (slot == null) {
+            slot = allocateSlot();
+            index(task, slot);
+        }
+        writeSlot(slot, task, task.getDescription());
+        return slot;
+    }
+
+    private void writeSlot(int slot, Task task, String description) throws IOException {
+        final int base = offsetOf(slot);
+        final boolean isUsed = slots.get(base + SLOT_STATE) == USED;
+        writeText(task.getTitle(), base + SLOT_TITLE_OFFSET, base + SLOT_TITLE_LENGTH, isUsed);
+        writeText(description, base + SLOT_DESCRIPTION_OFFSET, base + SLOT_DESCRIPTION_LENGTH, isUsed);
+        slots.put(base + SLOT_TYPE, (byte) task.getType().ordinal());
+        slots.put(base + SLOT_STATUS, task.getType() == TaskType.EPIC || task.getStatus() == null ? (byte) -1
+                : (byte) task.getStatus().ordinal());
+        slots.putLong(base + SLOT_ID, task.getId());
+        slots.putLong(base + SLOT_EPIC_ID, task instanceof Subtask subtask ? subtask.getEpicId() : NULL_VALUE);
+        final boolean hasSchedule = task.getType() != TaskType.EPIC;
+        slots.putLong(base + SLOT_DURATION, hasSchedule && task.getDuration() != null
+                ? task.getDuration().toMinutes() : NULL_VALUE);
+        slots.putLong(base + SLOT_START_TIME, hasSchedule && task.getStartTime() != null
+                ? task.getStartTime().toEpochSecond(ZoneOffset.UTC) / 60L : NULL_VALUE);
+        slots.put(base + SLOT_STATE, USED);
+    }
+
+    private void writeText(String value, int offsetAt, int lengthAt, boolean isUsed) throws IOException {
+        final int storedLength = isUsed ? slots.getInt(lengthAt) : NULL_LENGTH;
+        if (value == null) {
+            forgetText(storedLength);
+            slots.putInt(lengthAt, NULL_LENGTH);
+            slots.putLong(offsetAt, 0L);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (isUsed && isStoredText(bytes, slots.getLong(offsetAt), storedLength)) {
+            return;
+        }
+        forgetText(storedLength);
+        liveTextSize += bytes.length;
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final long offset = textSize;
+        while (buffer.hasRemaining()) {
+            textSize += textChannel.write(buffer, textSize);
+        }
+        slots.putLong(offsetAt, offset);
+        slots.putInt(lengthAt, bytes.length);
+    }
+
+    private void forgetText(int length) {
+        if (length != NULL_LENGTH) {
+            liveTextSize -= length;
+        }
+    }
+
+    private boolean isStoredText(byte[] bytes, long offset, int length) throws IOException {
+        if (length != bytes.length) {
+            return false;
+        }
+        final ByteBuffer stored = ByteBuffer.allocate(length);
+        while (stored.hasRemaining()) {
+            if (textChannel.read(stored, offset + stored.position()) < 0) {
+                return false;
+            }
+        }
+        return Arrays.equals(stored.array(), bytes);
+    }
+
+    private int allocateSlot() throws IOException {
+        final Integer freeSlot = freeSlots.poll();
+        if (freeSlot != null) {
+            return freeSlot;
+        }
+        if (highWaterMark == capacity) {
+            capacity *= 2;
+            slots = slotChannel.map(FileChannel.MapMode.READ_WRITE, 0L, mappingSize(capacity));
+            if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+                slotChannel.force(true);
+            }
+        }
+        return highWaterMark++;
+    }
+
+    private void freeSlot(int slot) {
+        final int base = offsetOf(slot);
+        forgetText(slots.getInt(base + SLOT_TITLE_LENGTH));
+        forgetText(slots.getInt(base + SLOT_DESCRIPTION_LENGTH));
+        slots.put(base + SLOT_STATE, FREE);
+        freeSlots.push(slot);
+    }
+
+    private void index(Task task, int slot) {
+        slotById.put(task.getId(), slot);
+        idsByType.get(task.getType()).add(task.getId());
+    }
+
+    private void freeSlotOf(long id, List<Integer> freedSlots) {
+        final Integer slot = slotById.remove(id);
+        if (slot != null) {
+            idsByType.get(TaskType.values()[slots.get(offsetOf(slot) + SLOT_TYPE)]).remove(id);
+            freeSlot(slot);
+            freedSlots.add(slot);
+        }
+    }
+
+    private void freeSlotsOf(TaskType type, List<Integer> freedSlots) {
+        final Set<Long> ids = idsByType.get(type);
+        for (long id : ids) {
+            final int slot = slotById.remove(id);
+            freeSlot(slot);
+            freedSlots.add(slot);
+        }
+        ids.clear();
+    }
+
+    private void forceSlots(List<Integer> changedSlots) {
+        if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+            changedSlots.forEach(slot -> slots.force(offsetOf(slot), SLOT_SIZE));
+        }
+    }
+
+    // updates and deletes leave old text behind, rewrite once it outgrows the live text
+    private boolean hasTooMuchGarbage() {
+        return textSize - liveTextSize > Long.max(liveTextSize, MIN_GARBAGE_TO_COMPACT);
+    }
+
+    private void compactIfNeeded() {
+        if (!hasTooMuchGarbage()) {
+            return;
+        }
+        try {
+            rewrite();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    private void rewrite() throws IOException {
+        final List<Task> snapshot = manager.snapshot();
+        final long newTextGeneration = textGeneration + 1L;
+        final Path oldTextPath = textPath(textGeneration);
+        final FileChannel oldSlotChannel = slotChannel;
+        final FileChannel oldTextChannel = textChannel;
+        final Set<StoredText> movedTexts = Collections.newSetFromMap(new IdentityHashMap<>());
+        textChannel = FileChannel.open(textPath(newTextGeneration), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        textSize = 0L;
+        slotChannel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        capacity = Integer.max(INITIAL_CAPACITY, Integer.highestOneBit(Integer.max(snapshot.size(), 1)) * 2);
+        slots = slotChannel.map(FileChannel.MapMode.READ_WRITE, 0L, mappingSize(capacity));
+        slots.putInt(HEADER_MAGIC, MAGIC);
+        slots.putInt(HEADER_VERSION, VERSION);
+        slots.putInt(HEADER_SLOT_SIZE, SLOT_SIZE);
+        slots.putLong(HEADER_TEXT_GENERATION, newTextGeneration);
+        slotById.clear();
+        idsByType.values().forEach(Set::clear);
+        freeSlots.clear();
+        highWaterMark = 0;
+        for (Task task : snapshot) {
+            final StoredText storedText = task instanceof LazyDescription lazy ? lazy.storedText() : null;
+            final String description = storedText == null ? task.getDescription()
+                    : readText(oldTextChannel, storedText);
+            final int base = offsetOf(highWaterMark);
+            index(task, highWaterMark);
+            writeSlot(highWaterMark++, task, description);
+            if (storedText != null) {
+                storedText.offset = slots.getLong(base + SLOT_DESCRIPTION_OFFSET);
+                movedTexts.add(storedText);
+            }
+        }
+        // replaced or deleted versions may still be held by callers, keep their text before the old file goes
+        for (StoredText storedText : storedTexts) {
+            if (storedText.value == null && !movedTexts.contains(storedText)) {
+                storedText.value = readText(oldTextChannel, storedText);
+            }
+        }
+        storedTexts.removeIf(storedText -> storedText.value != null);
+        liveTextSize = textSize;
+        if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+            textChannel.force(false);
+            slots.force();
+        }
+        Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+            SnapshotStorage.forceDirectory(path);
+        }
+        textGeneration = newTextGeneration;
+        if (oldSlotChannel != null) {
+            oldSlotChannel.close();
+            oldTextChannel.close();
+        }
+        Files.deleteIfExists(oldTextPath);
+    }
+
+    private Path textPath(long generation) {
+        return path.resolveSibling(path.getFileName() + ".text." + generation);
+    }
+
+    private static int offsetOf(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static long mappingSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+    }
+
+    private interface LazyDescription {
+        StoredText storedText();
+    }
+
+    private static final class StoredText {
+        private final int length;
+        private long offset;
+        private String value;
+
+        StoredText(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class LazyTask extends Task implements LazyDescription {
+        private final transient SlottedStorage storage;
+        private transient StoredText storedText;
+
+        LazyTask(SlottedStorage storage, StoredText storedText) {
+            this.storage = storage;
+            this.storedText = storedText;
+        }
+
+        @Override
+        public String getDescription() {
+            return storedText == null ? super.getDescription() : storage.loadDescription(storedText);
+        }
+
+        @Override
+        public void setDescription(String description) {
+            super.setDescription(description);
+            storedText = null;
+        }
+
+        @Override
+        public StoredText storedText() {
+            return storedText;
+        }
+    }
+
+    private static final class LazyEpic extends Epic implements LazyDescription {
+        private final transient SlottedStorage storage;
+        private transient StoredText storedText;
+
+        LazyEpic(SlottedStorage storage, StoredText storedText) {
+            this.storage = storage;
+            this.storedText = storedText;
+        }
+
+        @Override
+        public String getDescription() {
+            return storedText == null ? super.getDescription() : storage.loadDescription(storedText);
+        }
+
+        @Override
+        public void setDescription(String description) {
+            super.setDescription(description);
+            storedText = null;
+        }
+
+        @Override
+        public StoredText storedText() {
+            return storedText;
+        }
+    }
+
+    private static final class LazySubtask extends Subtask implements LazyDescription {
+        private final transient SlottedStorage storage;
+        private transient StoredText storedText;
+
+        LazySubtask(SlottedStorage storage, StoredText storedText) {
+            this.storage = storage;
+            this.storedText = storedText;
+        }
+
+        @Override
+        public String getDescription() {
+            return storedText == null ? super.getDescription() : storage.loadDescription(storedText);
+        }
+
+        @Override
+        public void setDescription(String description) {
+            super.setDescription(description);
+            storedText = null;
+        }
+
+        @Override
+        public StoredText storedText() {
+            return storedText;
+        }
+    }
+}
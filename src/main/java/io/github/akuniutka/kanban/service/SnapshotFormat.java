@@ -0,0 +1,6 @@
+package io.github.akuniutka.kanban.service;
+
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
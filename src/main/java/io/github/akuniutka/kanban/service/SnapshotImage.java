@@ -0,0 +1,6 @@
+package io.github.akuniutka.kanban.service;
+
+import java.nio.channels.FileChannel;
+
+record SnapshotImage(FileChannel channel, long size) {
+}
@@ -0,0 +1,607 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+import io.github.akuniutka.kanban.util.BinaryTaskFormat;
+import io.github.akuniutka.kanban.util.CSVTaskFormat;
+import io.github.akuniutka.kanban.util.CSVTaskWriter;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+class SnapshotStorage implements TaskStorage {
+    protected static final String PUT = "PUT";
+    protected static final String DELETE = "DELETE";
+    protected static final String CLEAR = "CLEAR";
+    private static final int PARSING_CHUNK_SIZE = 8 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_MAGIC = 0x1F8B;
+    protected final FileBackedTaskManager manager;
+    protected final Path path;
+    protected final Path tmpPath;
+    protected final FsyncPolicy fsyncPolicy;
+    protected final SnapshotFormat snapshotFormat;
+    protected final StorageOptions options;
+
+    SnapshotStorage(FileBackedTaskManager manager, Path path, StorageOptions options) {
+        this.manager = manager;
+        this.path = path;
+        this.tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        this.options = options;
+        this.fsyncPolicy = options.getFsyncPolicy();
+        this.snapshotFormat = options.getSnapshotFormat();
+    }
+
+    @Override
+    public void load() {
+        if (isAtomicSave()) {
+            recoverTemporaryFile();
+        }
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final LoadProgress progress = new LoadProgress(options, channel.size(), () -> positionOf(channel));
+            final boolean isCompressed = isCompressed(channel);
+            try (InputStream in = openInputStream(channel, isCompressed)) {
+                if (BinaryTaskFormat.hasMagic(in)) {
+                    loadBinary(in, progress);
+                } else {
+                    final ScanReport report = checkIntegrity(scan(path));
+                    loadCSV(openReader(in, report), channel, isCompressed || report.hasChecksums(), progress);
+                }
+                progress.finish();
+            }
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    @Override
+    public void checkpoint() {
+        save();
+    }
+
+    List<Task> readSnapshot() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             InputStream in = openInputStream(channel, isCompressed(channel))) {
+            if (BinaryTaskFormat.hasMagic(in)) {
+                return BinaryTaskFormat.read(in);
+            }
+            final ScanReport report = scan(path);
+            if (!report.isClean()) {
+                throw new ManagerLoadException("file \"%s\" is %s".formatted(path, report));
+            }
+            final BufferedReader reader = openReader(in, report);
+            final List<Task> tasks = new ArrayList<>();
+            final String header = reader.readLine();
+            if (header == null) {
+                return tasks;
+            }
+            CSVTaskFormat.checkHeader(header);
+            String line = reader.readLine();
+            while (line != null) {
+                if (isJournalRecord(line)) {
+                    throw new ManagerLoadException("unexpected journal record in file \"%s\"".formatted(path));
+                }
+                tasks.add(CSVTaskFormat.parse(line));
+                line = reader.readLine();
+            }
+            return tasks;
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    static void read(Path path, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final boolean isCompressed = isCompressed(channel);
+            try (InputStream in = openInputStream(channel, isCompressed)) {
+                if (BinaryTaskFormat.hasMagic(in)) {
+                    BinaryTaskFormat.read(in, visitor::put);
+                    return;
+                }
+                final ScanReport report = scan(path);
+                if (!report.isClean()) {
+                    throw new ManagerLoadException("file \"%s\" is %s".formatted(path, report));
+                }
+                final BufferedReader reader = openReader(in, report);
+                final String header = reader.readLine();
+                if (header == null) {
+                    return;
+                }
+                CSVTaskFormat.checkHeader(header);
+                final boolean isLastLineComplete = isCompressed || report.hasChecksums()
+                        || endsWithLineSeparator(channel);
+                String line = reader.readLine();
+                while (line != null) {
+                    final String nextLine = reader.readLine();
+                    if (!isJournalRecord(line)) {
+                        visitor.put(CSVTaskFormat.parse(line));
+                    } else if (nextLine != null || isLastLineComplete) {
+                        visit(line, visitor);
+                    }
+                    line = nextLine;
+                }
+            }
+        }
+    }
+
+    static StorageOptions.Builder formatOf(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final boolean isCompressed = isCompressed(channel);
+            try (InputStream in = openInputStream(channel, isCompressed)) {
+                final boolean isBinary = BinaryTaskFormat.hasMagic(in);
+                return StorageOptions.builder()
+                        .withSnapshotFormat(isBinary ? SnapshotFormat.BINARY : SnapshotFormat.CSV)
+                        .withCompression(isCompressed)
+                        .withChecksums(!isBinary && ChecksumScanner.scan(in).hasChecksums());
+            }
+        }
+    }
+
+    static ScanReport scan(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             InputStream in = openInputStream(channel, isCompressed(channel))) {
+            if (BinaryTaskFormat.hasMagic(in)) {
+                return new ScanReport(false, 0L, 0L, List.of());
+            }
+            return ChecksumScanner.scan(in);
+        }
+    }
+
+    @Override
+    public void taskSaved(Task task) {
+        save();
+    }
+
+    @Override
+    public void taskDeleted(Task task) {
+        save();
+    }
+
+    @Override
+    public void tasksDeleted(TaskType type) {
+        save();
+    }
+
+    @Override
+    public void tasksSaved(List<Task> tasks) {
+        save();
+    }
+
+    @Override
+    public void tasksDeleted(List<Task> tasks) {
+        save();
+    }
+
+    @Override
+    public SnapshotImage openImage() {
+        if (!isAtomicSave() || !Files.exists(path)) {
+            return null;
+        }
+        return openImage(-1L);
+    }
+
+    @Override
+    public void awaitDurability() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    protected void save() {
+        saveSnapshot(manager.snapshot());
+    }
+
+    protected boolean isAtomicSave() {
+        return options.isAtomicSave();
+    }
+
+    protected void saveSnapshot(List<Task> snapshot) {
+        if (!isAtomicSave()) {
+            writeSnapshot(path, snapshot);
+            return;
+        }
+        if (Files.exists(path) && !Files.isWritable(path)) {
+            // the rename would silently replace a file that cannot be written in place
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path),
+                    new AccessDeniedException(path.toString()));
+        }
+        writeSnapshot(tmpPath, snapshot, true);
+        try {
+            Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+        if (fsyncPolicy != FsyncPolicy.OS_BUFFERED) {
+            forceDirectory(path);
+        }
+    }
+
+    protected void writeSnapshot(Path target, List<Task> snapshot) {
+        writeSnapshot(target, snapshot, fsyncPolicy != FsyncPolicy.OS_BUFFERED);
+    }
+
+    protected void writeSnapshot(Path target, List<Task> snapshot, boolean force) {
+        try (SnapshotWriter writer = SnapshotWriter.open(target, options, snapshot.size())) {
+            for (Task task : snapshot) {
+                writer.write(task);
+            }
+            writer.finish(force);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(target), exception);
+        }
+    }
+
+    private static OutputStream openOutputStream(OutputStream out, StorageOptions options) throws IOException {
+        if (!options.isCompressed()) {
+            return out;
+        }
+        final int level = options.getCompressionLevel();
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    protected SnapshotImage openImage(long size) {
+        try {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            return new SnapshotImage(channel, size < 0L ? channel.size() : size);
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    protected static void forceDirectory(Path file) {
+        final Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // not every platform allows to sync a directory, the rename is still atomic there
+        }
+    }
+
+    private void recoverTemporaryFile() {
+        if (!Files.exists(tmpPath)) {
+            return;
+        }
+        try {
+            if (!FileBackedTaskManager.canLoad(path) && FileBackedTaskManager.canLoad(tmpPath)) {
+                Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                manager.recovered("recovered from temporary file \"%s\"".formatted(tmpPath));
+            } else {
+                Files.delete(tmpPath);
+            }
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot recover from file \"%s\"".formatted(tmpPath), exception);
+        }
+    }
+
+    private ScanReport checkIntegrity(ScanReport report) throws IOException {
+        if (report.isClean()) {
+            return report;
+        }
+        if (!options.isValidPrefixRecovery()) {
+            throw new ManagerLoadException("file \"%s\" is %s".formatted(path, report));
+        }
+        final Path corruptPath = path.resolveSibling(path.getFileName() + ".corrupt");
+        Files.copy(path, corruptPath, StandardCopyOption.REPLACE_EXISTING);
+        manager.recovered("file \"%s\" is %s, loaded valid prefix, original saved to \"%s\""
+                .formatted(path, report, corruptPath));
+        return report;
+    }
+
+    protected static boolean isJournalRecord(String line) {
+        return line.startsWith(PUT + ",") || line.startsWith(DELETE + ",") || line.startsWith(CLEAR + ",");
+    }
+
+    protected void replay(String record) {
+        visit(record, new RecordVisitor() {
+            @Override
+            public void put(Task task) {
+                manager.replay(task);
+            }
+
+            @Override
+            public void delete(long id) {
+                manager.replayDeletion(id);
+            }
+
+            @Override
+            public void clear(TaskType type) {
+                manager.replayDeletionOfAll(type);
+            }
+        });
+    }
+
+    static void visit(String record, RecordVisitor visitor) {
+        final int delimiterAt = record.indexOf(',');
+        final String operation = record.substring(0, delimiterAt);
+        final String argument = record.substring(delimiterAt + 1);
+        switch (operation) {
+            case PUT -> visitor.put(CSVTaskFormat.parse(argument));
+            case DELETE -> visitor.delete(extractId(argument));
+            default -> visitor.clear(extractType(argument));
+        }
+    }
+
+    private static long extractId(String token) {
+        try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException exception) {
+            throw new ManagerLoadException("wrong id in journal record");
+        }
+    }
+
+    private static TaskType extractType(String token) {
+        try {
+            return TaskType.valueOf(token);
+        } catch (IllegalArgumentException exception) {
+            throw new ManagerLoadException("wrong task type in journal record");
+        }
+    }
+
+    private void loadCSV(BufferedReader reader, FileChannel channel, boolean isLastLineComplete,
+            LoadProgress progress) throws IOException {
+        final String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        CSVTaskFormat.checkHeader(header);
+        if (options.getLoadParallelism() > 1) {
+            loadCSVInParallel(reader, channel, isLastLineComplete, progress);
+            return;
+        }
+        String line = reader.readLine();
+        while (line != null) {
+            final String nextLine = reader.readLine();
+            if (!isJournalRecord(line)) {
+                manager.restore(CSVTaskFormat.parse(line));
+            } else if (nextLine != null || isLastLineComplete || endsWithLineSeparator(channel)) {
+                replay(line);
+            }
+            progress.recordLoaded();
+            line = nextLine;
+        }
+    }
+
+    private void loadCSVInParallel(BufferedReader reader, FileChannel channel, boolean isLastLineComplete,
+            LoadProgress progress) throws IOException {
+        final int parallelism = options.getLoadParallelism();
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final Deque<ForkJoinTask<List<ParsedLine>>> parsedChunks = new ArrayDeque<>();
+            final List<Subtask> deferredSubtasks = new ArrayList<>();
+            List<String> chunk = new ArrayList<>(PARSING_CHUNK_SIZE);
+            String line = reader.readLine();
+            while (line != null) {
+                final String nextLine = reader.readLine();
+                if (!isJournalRecord(line) || nextLine != null || isLastLineComplete
+                        || endsWithLineSeparator(channel)) {
+                    chunk.add(line);
+                }
+                if (chunk.size() == PARSING_CHUNK_SIZE || nextLine == null) {
+                    final List<String> lines = chunk;
+                    parsedChunks.add(pool.submit(() -> parse(lines)));
+                    chunk = new ArrayList<>(PARSING_CHUNK_SIZE);
+                }
+                if (parsedChunks.size() > 2 * parallelism) {
+                    apply(parsedChunks.poll().join(), deferredSubtasks, progress);
+                }
+                line = nextLine;
+            }
+            while (!parsedChunks.isEmpty()) {
+                apply(parsedChunks.poll().join(), deferredSubtasks, progress);
+            }
+            restoreDeferredSubtasks(deferredSubtasks);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<ParsedLine> parse(List<String> lines) {
+        final List<ParsedLine> parsedLines = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            if (isJournalRecord(line)) {
+                parsedLines.add(new ParsedLine(null, line, null));
+                continue;
+            }
+            try {
+                parsedLines.add(new ParsedLine(CSVTaskFormat.parse(line), null, null));
+            } catch (RuntimeException exception) {
+                parsedLines.add(new ParsedLine(null, null, exception));
+            }
+        }
+        return parsedLines;
+    }
+
+    private void apply(List<ParsedLine> parsedLines, List<Subtask> deferredSubtasks, LoadProgress progress) {
+        for (ParsedLine parsedLine : parsedLines) {
+            if (parsedLine.error() != null) {
+                throw parsedLine.error();
+            } else if (parsedLine.record() != null) {
+                restoreDeferredSubtasks(deferredSubtasks);
+                replay(parsedLine.record());
+            } else if (parsedLine.task() instanceof Subtask subtask) {
+                deferredSubtasks.add(subtask);
+            } else {
+                manager.restore(parsedLine.task());
+            }
+            progress.recordLoaded();
+        }
+    }
+
+    private void restoreDeferredSubtasks(List<Subtask> deferredSubtasks) {
+        deferredSubtasks.forEach(manager::restore);
+        deferredSubtasks.clear();
+    }
+
+    private void loadBinary(InputStream in, LoadProgress progress) throws IOException {
+        BinaryTaskFormat.read(in, task -> {
+            manager.restore(task);
+            progress.recordLoaded();
+        });
+    }
+
+    private static long positionOf(FileChannel channel) {
+        try {
+            return channel.position();
+        } catch (IOException exception) {
+            return -1L;
+        }
+    }
+
+    private static InputStream openInputStream(FileChannel channel, boolean isCompressed) throws IOException {
+        final InputStream in = Channels.newInputStream(channel);
+        return new BufferedInputStream(isCompressed ? new GZIPInputStream(in, BUFFER_SIZE) : in, BUFFER_SIZE);
+    }
+
+    private static BufferedReader openReader(InputStream in, ScanReport report) {
+        final Reader decoder = new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder());
+        if (report.hasChecksums()) {
+            return new ChecksummedReader(decoder, report.validPrefixRecords());
+        }
+        return new BufferedReader(decoder, BUFFER_SIZE);
+    }
+
+    private static boolean isCompressed(FileChannel channel) throws IOException {
+        final ByteBuffer head = ByteBuffer.allocate(2);
+        channel.read(head, 0L);
+        return head.position() == 2 && (head.getShort(0) & 0xFFFF) == GZIP_MAGIC;
+    }
+
+    static final class SnapshotWriter implements Closeable {
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final BinaryTaskFormat.Writer binaryWriter;
+        private final CSVTaskWriter csvWriter;
+
+        private SnapshotWriter(FileChannel channel, OutputStream target, StorageOptions options, long count)
+                throws IOException {
+            this.channel = channel;
+            this.out = openOutputStream(target, options);
+            if (options.getSnapshotFormat() == SnapshotFormat.BINARY) {
+                this.binaryWriter = BinaryTaskFormat.writer(out, count);
+                this.csvWriter = null;
+            } else {
+                this.binaryWriter = null;
+                this.csvWriter = new CSVTaskWriter(out, options.isChecksums(), BUFFER_SIZE);
+                csvWriter.writeHeader();
+            }
+        }
+
+        static SnapshotWriter open(Path target, StorageOptions options, long count) throws IOException {
+            final FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                return new SnapshotWriter(channel, Channels.newOutputStream(channel), options, count);
+            } catch (IOException | RuntimeException exception) {
+                channel.close();
+                throw exception;
+            }
+        }
+
+        static SnapshotWriter of(OutputStream out, StorageOptions options, long count) throws IOException {
+            return new SnapshotWriter(null, out, options, count);
+        }
+
+        void write(Task task) throws IOException {
+            if (binaryWriter != null) {
+                binaryWriter.write(task);
+                return;
+            }
+            csvWriter.write(task);
+        }
+
+        void finish(boolean force) throws IOException {
+            if (binaryWriter != null) {
+                binaryWriter.finish();
+            } else {
+                csvWriter.flush();
+            }
+            if (out instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            if (force && channel != null) {
+                channel.force(false);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+            } finally {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    private record ParsedLine(Task task, String record, RuntimeException error) {
+    }
+
+    private static class ChecksummedReader extends BufferedReader {
+        private long remainingRecords;
+        private boolean isHeaderRead;
+
+        ChecksummedReader(Reader in, long records) {
+            super(in, BUFFER_SIZE);
+            this.remainingRecords = records;
+        }
+
+        @Override
+        public String readLine() throws IOException {
+            if (!isHeaderRead) {
+                isHeaderRead = true;
+                return super.readLine();
+            }
+            if (remainingRecords == 0L) {
+                return null;
+            }
+            final String line = super.readLine();
+            if (line == null) {
+                return null;
+            }
+            remainingRecords--;
+            return CSVTaskFormat.stripChecksum(line);
+        }
+    }
+
+    private static boolean endsWithLineSeparator(FileChannel channel) throws IOException {
+        if (channel.size() == 0L) {
+            return true;
+        }
+        final ByteBuffer lastByte = ByteBuffer.allocate(1);
+        channel.read(lastByte, channel.size() - 1L);
+        return lastByte.get(0) == '\n';
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class StorageIndex extends InMemoryTaskManager implements RecordVisitor {
+    private static final int MAX_PROBLEMS = 100;
+    private final Map<Long, Long> lastPuts;
+    private final List<String> problems;
+    private long problemCount;
+    private long records;
+    private long puts;
+
+    StorageIndex() {
+        super(Managers.getDefaultHistory());
+        this.lastPuts = new HashMap<>();
+        this.problems = new ArrayList<>();
+    }
+
+    @Override
+    public void put(Task task) {
+        records++;
+        final long ordinal = puts++;
+        task.setTitle(null);
+        task.setDescription(null);
+        try {
+            switch (task) {
+                case Subtask subtask -> updateSubtask(subtask);
+                case Epic epic -> updateEpic(epic);
+                default -> updateTask(task);
+            }
+            lastPuts.put(task.getId(), ordinal);
+        } catch (ManagerException exception) {
+            addProblem(exception.getMessage() + " for id=" + task.getId());
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        records++;
+        final TaskType type = getTaskTypeById(id);
+        if (type == null) {
+            addProblem("cannot delete missing id=" + id);
+            return;
+        }
+        switch (type) {
+            case TASK -> deleteTask(id);
+            case EPIC -> {
+                epics.get(id).getSubtaskIds().forEach(lastPuts::remove);
+                deleteEpic(id);
+            }
+            case SUBTASK -> deleteSubtask(id);
+        }
+        lastPuts.remove(id);
+    }
+
+    @Override
+    public void clear(TaskType type) {
+        records++;
+        switch (type) {
+            case TASK -> {
+                tasks.keySet().forEach(lastPuts::remove);
+                deleteTasks();
+            }
+            case EPIC -> {
+                epics.keySet().forEach(lastPuts::remove);
+                subtasks.keySet().forEach(lastPuts::remove);
+                deleteEpics();
+            }
+            case SUBTASK -> {
+                subtasks.keySet().forEach(lastPuts::remove);
+                deleteSubtasks();
+            }
+        }
+    }
+
+    boolean isLive(Task task, long ordinal) {
+        final Long lastPut = lastPuts.get(task.getId());
+        return lastPut != null && lastPut == ordinal;
+    }
+
+    long size() {
+        return lastPuts.size();
+    }
+
+    long size(TaskType type) {
+        return switch (type) {
+            case TASK -> tasks.size();
+            case EPIC -> epics.size();
+            case SUBTASK -> subtasks.size();
+        };
+    }
+
+    boolean isClean() {
+        return problemCount == 0L;
+    }
+
+    String getFirstProblem() {
+        return problems.isEmpty() ? null : problems.getFirst();
+    }
+
+    void addProblem(String problem) {
+        if (problemCount++ < MAX_PROBLEMS) {
+            problems.add(problem);
+        }
+    }
+
+    MaintenanceReport report(Duration elapsed) {
+        final List<String> reported = new ArrayList<>(problems);
+        if (problemCount > MAX_PROBLEMS) {
+            reported.add("%d more problems".formatted(problemCount - MAX_PROBLEMS));
+        }
+        return new MaintenanceReport(records, tasks.size(), epics.size(), subtasks.size(), elapsed,
+                List.copyOf(reported));
+    }
+}
@@ -0,0 +1,180 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+public final class StorageMaintenance {
+    private StorageMaintenance() {
+    }
+
+    public static MaintenanceReport verify(Path path) {
+        Objects.requireNonNull(path, "cannot verify: file is null");
+        final long startedAt = System.nanoTime();
+        return index(path).report(since(startedAt));
+    }
+
+    public static MaintenanceReport convert(Path source, Path target, StorageOptions options, boolean renumber) {
+        Objects.requireNonNull(source, "cannot convert: source file is null");
+        Objects.requireNonNull(target, "cannot convert: target file is null");
+        Objects.requireNonNull(options, "cannot convert: storage options are null");
+        final long startedAt = System.nanoTime();
+        final StorageIndex index = requireClean(source, index(source));
+        write(source, target, options, index, renumber);
+        return index.report(since(startedAt));
+    }
+
+    public static MaintenanceReport compact(Path path, boolean renumber) {
+        Objects.requireNonNull(path, "cannot compact: file is null");
+        final Path historyPath = path.resolveSibling(path.getFileName() + ".history");
+        if (renumber && Files.exists(historyPath)) {
+            throw new IllegalStateException("cannot renumber \"%s\": view history in \"%s\" refers to current ids"
+                    .formatted(path, historyPath));
+        }
+        final long startedAt = System.nanoTime();
+        final StorageIndex index = requireClean(path, index(path));
+        final StorageOptions options;
+        try {
+            options = SnapshotStorage.formatOf(path).build();
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        write(path, tmpPath, options, index, renumber);
+        try {
+            Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+        SnapshotStorage.forceDirectory(path);
+        return index.report(since(startedAt));
+    }
+
+    public static MaintenanceReport reindex(Path source, Path target, StorageOptions options) {
+        Objects.requireNonNull(source, "cannot re-index: source file is null");
+        Objects.requireNonNull(target, "cannot re-index: target file is null");
+        Objects.requireNonNull(options, "cannot re-index: storage options are null");
+        try {
+            if (Files.exists(target) && Files.size(target) > 0L) {
+                throw new FileAlreadyExistsException(target.toString());
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(target), exception);
+        }
+        final long startedAt = System.nanoTime();
+        final StorageIndex index = requireClean(source, index(source));
+        try (BTreeTaskManager manager = BTreeTaskManager.open(target, Managers.getDefaultHistory(), options)) {
+            copy(source, index, false, task -> {
+                switch (task) {
+                    case Subtask subtask -> manager.updateSubtask(subtask);
+                    case Epic epic -> manager.updateEpic(epic);
+                    default -> manager.updateTask(task);
+                }
+            });
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(target), exception);
+        }
+        return index.report(since(startedAt));
+    }
+
+    private static StorageIndex index(Path path) {
+        final StorageIndex index = new StorageIndex();
+        try {
+            SnapshotStorage.read(path, index);
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        } catch (ManagerLoadException exception) {
+            index.addProblem(exception.getMessage());
+        }
+        return index;
+    }
+
+    private static StorageIndex requireClean(Path path, StorageIndex index) {
+        if (!index.isClean()) {
+            throw new ManagerLoadException("file \"%s\" failed verification: %s".formatted(path,
+                    index.getFirstProblem()));
+        }
+        return index;
+    }
+
+    private static void write(Path source, Path target, StorageOptions options, StorageIndex index,
+            boolean renumber) {
+        try (SnapshotStorage.SnapshotWriter writer = SnapshotStorage.SnapshotWriter.open(target, options,
+                index.size())) {
+            copy(source, index, renumber, writer::write);
+            writer.finish(true);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(target), exception);
+        }
+    }
+
+    private static void copy(Path source, StorageIndex index, boolean renumber, TaskSink sink) throws IOException {
+        final Map<Long, Long> newIds = new HashMap<>();
+        for (TaskType type : TaskType.values()) {
+            if (index.size(type) == 0L) {
+                continue;
+            }
+            final RecordVisitor visitor = new RecordVisitor() {
+                private long ordinal;
+
+                @Override
+                public void put(Task task) {
+                    if (!index.isLive(task, ordinal++) || task.getType() != type) {
+                        return;
+                    }
+                    if (renumber) {
+                        final long newId = newIds.size();
+                        newIds.put(task.getId(), newId);
+                        task.setId(newId);
+                        if (task instanceof Subtask subtask) {
+                            subtask.setEpicId(newIds.get(subtask.getEpicId()));
+                        }
+                    }
+                    try {
+                        sink.accept(task);
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                }
+
+                @Override
+                public void delete(long id) {
+                }
+
+                @Override
+                public void clear(TaskType type) {
+                }
+            };
+            try {
+                SnapshotStorage.read(source, visitor);
+            } catch (UncheckedIOException exception) {
+                throw exception.getCause();
+            } catch (IOException exception) {
+                throw new ManagerLoadException("cannot load from file \"%s\"".formatted(source), exception);
+            }
+        }
+    }
+
+    private static Duration since(long startedAt) {
+        return Duration.ofNanos(System.nanoTime() - startedAt);
+    }
+
+    @FunctionalInterface
+    private interface TaskSink {
+        void accept(Task task) throws IOException;
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.akuniutka.kanban.service;
+
+public enum StorageMode {
+    SNAPSHOT,
+    JOURNAL,
+    WRITE_BEHIND,
+    SLOTTED,
+    SHARDED
+}
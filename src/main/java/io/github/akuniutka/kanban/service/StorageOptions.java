@@ -0,0 +1,410 @@
+package io.github.akuniutka.kanban.service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+public final class StorageOptions {
+    private final StorageMode mode;
+    private final SnapshotFormat snapshotFormat;
+    private final long journalCompactionThreshold;
+    private final Duration journalCompactionInterval;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration groupCommitWindow;
+    private final int groupCommitSize;
+    private final Duration writeBehindDelay;
+    private final LoadProgressListener loadProgressListener;
+    private final Duration loadProgressInterval;
+    private final int loadParallelism;
+    private final boolean atomicSave;
+    private final boolean compressed;
+    private final int compressionLevel;
+    private final long shardSize;
+    private final boolean historyPersisted;
+    private final boolean lazyDescriptions;
+    private final long descriptionCacheSize;
+    private final boolean checksums;
+    private final boolean validPrefixRecovery;
+    private final int pageSize;
+    private final int bufferPoolSize;
+    private final Duration archiveAge;
+    private final String replicationHost;
+    private final int replicationPort;
+
+    private StorageOptions(Builder builder) {
+        this.mode = builder.mode;
+        this.snapshotFormat = builder.snapshotFormat;
+        this.journalCompactionThreshold = builder.journalCompactionThreshold;
+        this.journalCompactionInterval = builder.journalCompactionInterval;
+        this.fsyncPolicy = builder.fsyncPolicy;
+        this.groupCommitWindow = builder.groupCommitWindow;
+        this.groupCommitSize = builder.groupCommitSize;
+        this.writeBehindDelay = builder.writeBehindDelay;
+        this.loadProgressListener = builder.loadProgressListener;
+        this.loadProgressInterval = builder.loadProgressInterval;
+        this.loadParallelism = builder.loadParallelism;
+        this.atomicSave = builder.atomicSave;
+        this.compressed = builder.compressed;
+        this.compressionLevel = builder.compressionLevel;
+        this.shardSize = builder.shardSize;
+        this.historyPersisted = builder.historyPersisted;
+        this.lazyDescriptions = builder.lazyDescriptions;
+        this.descriptionCacheSize = builder.descriptionCacheSize;
+        this.checksums = builder.checksums;
+        this.validPrefixRecovery = builder.validPrefixRecovery;
+        this.pageSize = builder.pageSize;
+        this.bufferPoolSize = builder.bufferPoolSize;
+        this.archiveAge = builder.archiveAge;
+        this.replicationHost = builder.replicationHost;
+        this.replicationPort = builder.replicationPort;
+    }
+
+    public static StorageOptions defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public StorageMode getMode() {
+        return mode;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public long getJournalCompactionThreshold() {
+        return journalCompactionThreshold;
+    }
+
+    public Duration getJournalCompactionInterval() {
+        return journalCompactionInterval;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public Duration getGroupCommitWindow() {
+        return groupCommitWindow;
+    }
+
+    public int getGroupCommitSize() {
+        return groupCommitSize;
+    }
+
+    public Duration getWriteBehindDelay() {
+        return writeBehindDelay;
+    }
+
+    public LoadProgressListener getLoadProgressListener() {
+        return loadProgressListener;
+    }
+
+    public Duration getLoadProgressInterval() {
+        return loadProgressInterval;
+    }
+
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    public boolean isAtomicSave() {
+        return atomicSave;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public long getShardSize() {
+        return shardSize;
+    }
+
+    public boolean isHistoryPersisted() {
+        return historyPersisted;
+    }
+
+    public boolean isLazyDescriptions() {
+        return lazyDescriptions;
+    }
+
+    public long getDescriptionCacheSize() {
+        return descriptionCacheSize;
+    }
+
+    public boolean isChecksums() {
+        return checksums;
+    }
+
+    public boolean isValidPrefixRecovery() {
+        return validPrefixRecovery;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getBufferPoolSize() {
+        return bufferPoolSize;
+    }
+
+    public Duration getArchiveAge() {
+        return archiveAge;
+    }
+
+    public String getReplicationHost() {
+        return replicationHost;
+    }
+
+    public int getReplicationPort() {
+        return replicationPort;
+    }
+
+    public static final class Builder {
+        private StorageMode mode;
+        private SnapshotFormat snapshotFormat;
+        private long journalCompactionThreshold;
+        private Duration journalCompactionInterval;
+        private FsyncPolicy fsyncPolicy;
+        private Duration groupCommitWindow;
+        private int groupCommitSize;
+        private Duration writeBehindDelay;
+        private LoadProgressListener loadProgressListener;
+        private Duration loadProgressInterval;
+        private int loadParallelism;
+        private boolean atomicSave;
+        private boolean compressed;
+        private int compressionLevel;
+        private long shardSize;
+        private boolean historyPersisted;
+        private boolean lazyDescriptions;
+        private long descriptionCacheSize;
+        private boolean checksums;
+        private boolean validPrefixRecovery;
+        private int pageSize;
+        private int bufferPoolSize;
+        private Duration archiveAge;
+        private String replicationHost;
+        private int replicationPort;
+
+        private Builder() {
+            this.mode = StorageMode.SNAPSHOT;
+            this.snapshotFormat = SnapshotFormat.CSV;
+            this.journalCompactionThreshold = 8L * 1024L * 1024L;
+            this.fsyncPolicy = FsyncPolicy.OS_BUFFERED;
+            this.groupCommitWindow = Duration.ofMillis(2L);
+            this.groupCommitSize = 64;
+            this.writeBehindDelay = Duration.ofMillis(10L);
+            this.loadProgressInterval = Duration.ofSeconds(1L);
+            this.loadParallelism = 1;
+            this.atomicSave = true;
+            this.compressionLevel = Deflater.BEST_SPEED;
+            this.shardSize = 4096L;
+            this.descriptionCacheSize = 1024L * 1024L;
+            this.pageSize = 4096;
+            this.bufferPoolSize = 1024;
+            this.replicationHost = "localhost";
+        }
+
+        public Builder withMode(StorageMode mode) {
+            this.mode = Objects.requireNonNull(mode, "storage mode cannot be null");
+            return this;
+        }
+
+        public Builder withSnapshotFormat(SnapshotFormat snapshotFormat) {
+            this.snapshotFormat = Objects.requireNonNull(snapshotFormat, "snapshot format cannot be null");
+            return this;
+        }
+
+        public Builder withJournalCompactionThreshold(long bytes) {
+            if (bytes < 0L) {
+                throw new IllegalArgumentException("journal compaction threshold cannot be negative");
+            }
+            this.journalCompactionThreshold = bytes;
+            return this;
+        }
+
+        public Builder withJournalCompactionInterval(Duration interval) {
+            if (interval != null && !interval.isPositive()) {
+                throw new IllegalArgumentException("journal compaction interval must be positive");
+            }
+            this.journalCompactionInterval = interval;
+            return this;
+        }
+
+        public Builder withFsyncPolicy(FsyncPolicy fsyncPolicy) {
+            this.fsyncPolicy = Objects.requireNonNull(fsyncPolicy, "fsync policy cannot be null");
+            return this;
+        }
+
+        public Builder withGroupCommitWindow(Duration window) {
+            Objects.requireNonNull(window, "group commit window cannot be null");
+            if (window.isNegative()) {
+                throw new IllegalArgumentException("group commit window cannot be negative");
+            }
+            this.groupCommitWindow = window;
+            return this;
+        }
+
+        public Builder withGroupCommitSize(int operations) {
+            if (operations < 1) {
+                throw new IllegalArgumentException("group commit size must be positive");
+            }
+            this.groupCommitSize = operations;
+            return this;
+        }
+
+        public Builder withWriteBehindDelay(Duration delay) {
+            Objects.requireNonNull(delay, "write-behind delay cannot be null");
+            if (delay.isNegative()) {
+                throw new IllegalArgumentException("write-behind delay cannot be negative");
+            }
+            this.writeBehindDelay = delay;
+            return this;
+        }
+
+        public Builder withLoadProgressListener(LoadProgressListener listener) {
+            this.loadProgressListener = listener;
+            return this;
+        }
+
+        public Builder withLoadProgressInterval(Duration interval) {
+            Objects.requireNonNull(interval, "load progress interval cannot be null");
+            if (interval.isNegative()) {
+                throw new IllegalArgumentException("load progress interval cannot be negative");
+            }
+            this.loadProgressInterval = interval;
+            return this;
+        }
+
+        public Builder withLoadParallelism(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("load parallelism must be positive");
+            }
+            this.loadParallelism = threads;
+            return this;
+        }
+
+        public Builder withAtomicSave(boolean atomicSave) {
+            this.atomicSave = atomicSave;
+            return this;
+        }
+
+        public Builder withCompression(boolean compressed) {
+            this.compressed = compressed;
+            return this;
+        }
+
+        public Builder withCompressionLevel(int level) {
+            if (level != Deflater.DEFAULT_COMPRESSION
+                    && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+                throw new IllegalArgumentException("compression level must be from 0 to 9");
+            }
+            this.compressionLevel = level;
+            return this;
+        }
+
+        public Builder withShardSize(long ids) {
+            if (ids < 1L) {
+                throw new IllegalArgumentException("shard size must be positive");
+            }
+            this.shardSize = ids;
+            return this;
+        }
+
+        public Builder withHistoryPersisted(boolean historyPersisted) {
+            this.historyPersisted = historyPersisted;
+            return this;
+        }
+
+        public Builder withLazyDescriptions(boolean lazyDescriptions) {
+            this.lazyDescriptions = lazyDescriptions;
+            return this;
+        }
+
+        public Builder withDescriptionCacheSize(long chars) {
+            if (chars < 0L) {
+                throw new IllegalArgumentException("description cache size cannot be negative");
+            }
+            this.descriptionCacheSize = chars;
+            return this;
+        }
+
+        public Builder withChecksums(boolean checksums) {
+            this.checksums = checksums;
+            return this;
+        }
+
+        public Builder withValidPrefixRecovery(boolean validPrefixRecovery) {
+            this.validPrefixRecovery = validPrefixRecovery;
+            return this;
+        }
+
+        public Builder withPageSize(int bytes) {
+            if (bytes < 512 || bytes > 65536 || Integer.bitCount(bytes) != 1) {
+                throw new IllegalArgumentException("page size must be a power of two from 512 to 65536");
+            }
+            this.pageSize = bytes;
+            return this;
+        }
+
+        public Builder withBufferPoolSize(int pages) {
+            if (pages < 16) {
+                throw new IllegalArgumentException("buffer pool size must be at least 16 pages");
+            }
+            this.bufferPoolSize = pages;
+            return this;
+        }
+
+        public Builder withArchiveAge(Duration age) {
+            if (age != null && age.isNegative()) {
+                throw new IllegalArgumentException("archive age cannot be negative");
+            }
+            this.archiveAge = age;
+            return this;
+        }
+
+        public Builder withReplicationPort(int port) {
+            if (port < 1 || port > 65535) {
+                throw new IllegalArgumentException("replication port must be from 1 to 65535");
+            }
+            this.replicationPort = port;
+            return this;
+        }
+
+        public Builder withReplicationHost(String host) {
+            this.replicationHost = Objects.requireNonNull(host, "replication host cannot be null");
+            return this;
+        }
+
+        public StorageOptions build() {
+            if (snapshotFormat == SnapshotFormat.BINARY && !isWholeFileMode()) {
+                throw new IllegalArgumentException("binary snapshot format is not supported in " + mode + " mode");
+            }
+            if (compressed && !isWholeFileMode()) {
+                throw new IllegalArgumentException("compression is not supported in " + mode + " mode");
+            }
+            if (checksums && snapshotFormat == SnapshotFormat.BINARY) {
+                throw new IllegalArgumentException("checksums are not supported in binary snapshot format");
+            }
+            if (checksums && mode == StorageMode.SLOTTED) {
+                throw new IllegalArgumentException("checksums are not supported in " + mode + " mode");
+            }
+            if (lazyDescriptions && mode != StorageMode.SLOTTED) {
+                throw new IllegalArgumentException("lazy descriptions are not supported in " + mode + " mode");
+            }
+            return new StorageOptions(this);
+        }
+
+        private boolean isWholeFileMode() {
+            return mode == StorageMode.SNAPSHOT || mode == StorageMode.WRITE_BEHIND || mode == StorageMode.SHARDED;
+        }
+    }
+}
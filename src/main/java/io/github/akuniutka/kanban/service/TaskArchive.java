@@ -0,0 +1,327 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.exception.TaskOverlapException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+import io.github.akuniutka.kanban.util.CSVTaskFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+class TaskArchive {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte TOMBSTONE = '-';
+    private final Path path;
+    private final Map<Long, Entry> entries;
+    private final Map<Long, List<Long>> epicSubtaskIds;
+    private final TreeMap<LocalDateTime, Slot> slots;
+    private FileChannel channel;
+    private long size;
+    private long lastUsedId;
+
+    TaskArchive(Path path) {
+        this.path = path.resolveSibling(path.getFileName() + ".archive");
+        this.entries = new HashMap<>();
+        this.epicSubtaskIds = new HashMap<>();
+        this.slots = new TreeMap<>();
+        this.lastUsedId = -1L;
+    }
+
+    void load(LongPredicate isHot) {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() == 0L) {
+                appendBytes((CSVTaskFormat.FILE_HEADER + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            scan(isHot);
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    long getLastUsedId() {
+        return lastUsedId;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    TaskType getType(long id) {
+        final Entry entry = entries.get(id);
+        return entry == null ? null : entry.type();
+    }
+
+    Long getEpicId(long id) {
+        final Entry entry = entries.get(id);
+        return entry == null ? null : entry.epicId();
+    }
+
+    List<Long> getIds(TaskType type) {
+        return entries.entrySet().stream()
+                .filter(entry -> entry.getValue().type() == type)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+
+    Task get(long id) {
+        final Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        final Task task = read(entry.offset());
+        if (!(task instanceof Epic epic)) {
+            return task;
+        }
+        final List<Subtask> subtasks = getSubtasks(id);
+        final EpicAggregate aggregate = new EpicAggregate();
+        subtasks.forEach(aggregate::put);
+        epic.setSubtaskIds(subtasks.stream().map(Subtask::getId).collect(Collectors.toCollection(ArrayList::new)));
+        aggregate.applyTo(epic);
+        return epic;
+    }
+
+    List<Subtask> getSubtasks(long epicId) {
+        return epicSubtaskIds.getOrDefault(epicId, List.of()).stream()
+                .map(id -> (Subtask) read(entries.get(id).offset()))
+                .toList();
+    }
+
+    List<Task> getAll() {
+        return entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().offset()))
+                .map(entry -> get(entry.getKey()))
+                .toList();
+    }
+
+    // records are never rewritten in place, so a copy of their offsets can be read after the caller lets go
+    // of the manager
+    Iterable<Task> iterate() {
+        final long[] offsets = entries.values().stream()
+                .mapToLong(Entry::offset)
+                .sorted()
+                .toArray();
+        final Map<Long, long[]> subtaskOffsets = new HashMap<>();
+        epicSubtaskIds.forEach((epicId, ids) -> subtaskOffsets.put(epicId, ids.stream()
+                .mapToLong(id -> entries.get(id).offset())
+                .toArray()));
+        return () -> new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < offsets.length;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Task task = read(offsets[next++]);
+                if (task instanceof Epic epic) {
+                    final EpicAggregate aggregate = new EpicAggregate();
+                    final List<Long> subtaskIds = new ArrayList<>();
+                    for (long offset : subtaskOffsets.getOrDefault(epic.getId(), new long[0])) {
+                        final Subtask subtask = (Subtask) read(offset);
+                        aggregate.put(subtask);
+                        subtaskIds.add(subtask.getId());
+                    }
+                    epic.setSubtaskIds(subtaskIds);
+                    aggregate.applyTo(epic);
+                }
+                return task;
+            }
+        };
+    }
+
+    void append(List<Task> tasks) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final List<Long> offsets = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            offsets.add(size + out.size());
+            out.writeBytes((CSVTaskFormat.format(task) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            appendBytes(out.toByteArray());
+            channel.force(false);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            index(tasks.get(i), offsets.get(i));
+        }
+    }
+
+    void remove(Collection<Long> ids) {
+        final StringBuilder tombstones = new StringBuilder();
+        for (long id : ids) {
+            if (entries.containsKey(id)) {
+                tombstones.append((char) TOMBSTONE).append(id).append(System.lineSeparator());
+            }
+        }
+        if (tombstones.isEmpty()) {
+            return;
+        }
+        try {
+            appendBytes(tombstones.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot write to file \"%s\"".formatted(path), exception);
+        }
+        ids.forEach(this::forget);
+    }
+
+    void requireDoesNotOverlap(Task task) {
+        final Map.Entry<LocalDateTime, Slot> before = slots.floorEntry(task.getStartTime());
+        if (before != null && before.getValue().id() != task.getId()
+                && task.getStartTime().isBefore(before.getValue().end())) {
+            throw new TaskOverlapException("conflict with another task for time slot");
+        }
+        Map.Entry<LocalDateTime, Slot> after = slots.higherEntry(task.getStartTime());
+        if (after != null && after.getValue().id() == task.getId()) {
+            after = slots.higherEntry(after.getKey());
+        }
+        if (after != null && task.getEndTime().isAfter(after.getKey())) {
+            throw new TaskOverlapException("conflict with another task for time slot");
+        }
+    }
+
+    void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("cannot close file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    private void scan(LongPredicate isHot) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long position = 0L;
+        long lineStart = 0L;
+        boolean isHeaderRead = false;
+        while (channel.read(buffer, position) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                final byte b = buffer.get();
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                final String text = line.toString(StandardCharsets.UTF_8).stripTrailing();
+                line.reset();
+                if (!isHeaderRead) {
+                    CSVTaskFormat.checkHeader(text);
+                    isHeaderRead = true;
+                } else {
+                    replay(text, lineStart, isHot);
+                }
+                lineStart = position;
+            }
+            buffer.clear();
+        }
+        if (lineStart < position) {
+            channel.truncate(lineStart);
+        }
+        size = lineStart;
+    }
+
+    private void replay(String line, long offset, LongPredicate isHot) {
+        if (line.isEmpty()) {
+            return;
+        }
+        if (line.charAt(0) == TOMBSTONE) {
+            forget(Long.parseLong(line.substring(1)));
+            return;
+        }
+        final Task task = CSVTaskFormat.parse(line);
+        lastUsedId = Long.max(lastUsedId, task.getId());
+        forget(task.getId());
+        if (!isHot.test(task.getId())) {
+            index(task, offset);
+        }
+    }
+
+    private void index(Task task, long offset) {
+        final Long epicId = task instanceof Subtask subtask ? subtask.getEpicId() : null;
+        entries.put(task.getId(), new Entry(task.getType(), offset, task.getStartTime(), epicId));
+        lastUsedId = Long.max(lastUsedId, task.getId());
+        if (epicId != null) {
+            epicSubtaskIds.computeIfAbsent(epicId, key -> new ArrayList<>()).add(task.getId());
+        }
+        if (task.getType() != TaskType.EPIC && task.getStartTime() != null) {
+            slots.put(task.getStartTime(), new Slot(task.getId(), task.getEndTime()));
+        }
+    }
+
+    private void forget(long id) {
+        final Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        if (entry.startTime() != null) {
+            slots.remove(entry.startTime());
+        }
+        if (entry.type() == TaskType.EPIC) {
+            epicSubtaskIds.remove(id);
+        } else if (entry.epicId() != null && epicSubtaskIds.containsKey(entry.epicId())) {
+            epicSubtaskIds.get(entry.epicId()).remove(id);
+        }
+    }
+
+    private Task read(long offset) {
+        try {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            final ByteBuffer buffer = ByteBuffer.allocate(4096);
+            long position = offset;
+            while (channel.read(buffer, position) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    final byte b = buffer.get();
+                    if (b == '\n') {
+                        return CSVTaskFormat.parse(line.toString(StandardCharsets.UTF_8).stripTrailing());
+                    }
+                    line.write(b);
+                }
+                position += buffer.limit();
+                buffer.clear();
+            }
+            throw new ManagerLoadException("unexpected end of file \"%s\"".formatted(path));
+        } catch (IOException exception) {
+            throw new ManagerLoadException("cannot load from file \"%s\"".formatted(path), exception);
+        }
+    }
+
+    private void appendBytes(byte[] bytes) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer, size);
+        }
+    }
+
+    private record Entry(TaskType type, long offset, LocalDateTime startTime, Long epicId) {
+    }
+
+    private record Slot(long id, LocalDateTime end) {
+    }
+}
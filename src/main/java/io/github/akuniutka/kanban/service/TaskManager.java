@@ -4,7 +4,9 @@ import io.github.akuniutka.kanban.model.Epic;
 import io.github.akuniutka.kanban.model.Subtask;
 import io.github.akuniutka.kanban.model.Task;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 public interface TaskManager {
@@ -49,4 +51,33 @@ public interface TaskManager {
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    // creates the whole batch or, if any element is rejected, none of it
+    default List<Task> createAll(List<? extends Task> batch) {
+        Objects.requireNonNull(batch, "cannot create null batch");
+        final List<Task> created = new ArrayList<>(batch.size());
+        try {
+            for (Task task : batch) {
+                created.add(switch (task) {
+                    case Subtask subtask -> createSubtask(subtask);
+                    case Epic epic -> createEpic(epic);
+                    case null, default -> createTask(task);
+                });
+            }
+        } catch (RuntimeException exception) {
+            for (int i = created.size() - 1; i >= 0; i--) {
+                final Task task = created.get(i);
+                switch (task) {
+                    case Subtask subtask -> deleteSubtask(subtask.getId());
+                    case Epic epic -> deleteEpic(epic.getId());
+                    default -> deleteTask(task.getId());
+                }
+            }
+            throw exception;
+        }
+        return created;
+    }
+
+    default void flush() {
+    }
 }
@@ -0,0 +1,30 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+
+import java.util.List;
+
+interface TaskStorage {
+    void load();
+
+    void checkpoint();
+
+    void taskSaved(Task task);
+
+    void taskDeleted(Task task);
+
+    void tasksDeleted(TaskType type);
+
+    void tasksSaved(List<Task> tasks);
+
+    void tasksDeleted(List<Task> tasks);
+
+    SnapshotImage openImage();
+
+    void awaitDurability();
+
+    void flush();
+
+    void close();
+}
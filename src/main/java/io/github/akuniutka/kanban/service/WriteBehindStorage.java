@@ -0,0 +1,183 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class WriteBehindStorage extends SnapshotStorage {
+    private final long delayNanos;
+    private final Thread writer;
+    private long generation;
+    private long savedGeneration;
+    private int flushWaiters;
+    private ManagerSaveException failure;
+    private boolean isFailureReported;
+    private boolean isClosed;
+
+    WriteBehindStorage(FileBackedTaskManager manager, Path path, StorageOptions options) {
+        super(manager, path, options);
+        this.delayNanos = options.getWriteBehindDelay().toNanos();
+        this.writer = new Thread(this::writeLoop, "snapshot-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @Override
+    public void checkpoint() {
+        save();
+        writer.start();
+    }
+
+    @Override
+    public void taskSaved(Task task) {
+        markDirty();
+    }
+
+    @Override
+    public void taskDeleted(Task task) {
+        markDirty();
+    }
+
+    @Override
+    public void tasksDeleted(TaskType type) {
+        markDirty();
+    }
+
+    @Override
+    public void tasksSaved(List<Task> tasks) {
+        markDirty();
+    }
+
+    @Override
+    public void tasksDeleted(List<Task> tasks) {
+        markDirty();
+    }
+
+    @Override
+    public SnapshotImage openImage() {
+        return null;
+    }
+
+    @Override
+    public synchronized void awaitDurability() {
+        // a failing writer keeps retrying, so a caller who is not waiting for the file hears of it only once
+        if (failure != null && !isFailureReported) {
+            isFailureReported = true;
+            throw failure;
+        }
+    }
+
+    @Override
+    public void flush() {
+        boolean isInterrupted = false;
+        synchronized (this) {
+            final long target = generation;
+            flushWaiters++;
+            notifyAll();
+            try {
+                while (savedGeneration < target) {
+                    if (failure != null) {
+                        isFailureReported = true;
+                        throw failure;
+                    }
+                    if (!writer.isAlive()) {
+                        throw new IllegalStateException("storage already closed");
+                    }
+                    isInterrupted |= await(0L);
+                }
+            } finally {
+                flushWaiters--;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            synchronized (this) {
+                isClosed = true;
+                notifyAll();
+            }
+            try {
+                writer.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    protected boolean isAtomicSave() {
+        return true;
+    }
+
+    private synchronized void markDirty() {
+        generation++;
+        notifyAll();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            synchronized (this) {
+                while (generation == savedGeneration && !isClosed) {
+                    await(0L);
+                }
+                if (generation == savedGeneration || (isClosed && failure != null)) {
+                    return;
+                }
+                final long deadline = System.nanoTime() + delayNanos;
+                long remaining = delayNanos;
+                while (remaining > 0L && flushWaiters == 0 && !isClosed) {
+                    await(remaining);
+                    remaining = deadline - System.nanoTime();
+                }
+            }
+            final List<Task> snapshot;
+            final long target;
+            synchronized (manager) {
+                snapshot = manager.snapshot();
+                synchronized (this) {
+                    target = generation;
+                }
+            }
+            try {
+                saveSnapshot(snapshot);
+                synchronized (this) {
+                    savedGeneration = target;
+                    failure = null;
+                    notifyAll();
+                }
+            } catch (ManagerSaveException exception) {
+                synchronized (this) {
+                    if (failure == null) {
+                        isFailureReported = false;
+                    }
+                    failure = exception;
+                    notifyAll();
+                    await(Math.max(delayNanos, TimeUnit.MILLISECONDS.toNanos(100L)));
+                }
+            }
+        }
+    }
+
+    private boolean await(long nanos) {
+        try {
+            if (nanos > 0L) {
+                TimeUnit.NANOSECONDS.timedWait(this, nanos);
+            } else {
+                wait();
+            }
+            return false;
+        } catch (InterruptedException exception) {
+            return true;
+        }
+    }
+}
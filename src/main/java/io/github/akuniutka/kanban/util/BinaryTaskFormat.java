@@ -0,0 +1,330 @@
+package io.github.akuniutka.kanban.util;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+public final class BinaryTaskFormat {
+    private static final byte[] MAGIC = {'K', 'B', 'T', 'S'};
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int HAS_TITLE = 1;
+    private static final int HAS_DESCRIPTION = 1 << 1;
+    private static final int HAS_DURATION = 1 << 2;
+    private static final int HAS_START_TIME = 1 << 3;
+    private static final int STATUS_SHIFT = 4;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinaryTaskFormat() {
+    }
+
+    public static boolean hasMagic(InputStream in) throws IOException {
+        in.mark(MAGIC.length);
+        final byte[] head = in.readNBytes(MAGIC.length);
+        in.reset();
+        return Arrays.equals(head, MAGIC);
+    }
+
+    public static void write(OutputStream stream, List<Task> tasks) throws IOException {
+        final Writer writer = writer(stream, tasks.size());
+        for (Task task : tasks) {
+            writer.write(task);
+        }
+        writer.finish();
+    }
+
+    public static Writer writer(OutputStream stream, long count) throws IOException {
+        if (count < 0L || count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("wrong number of records for binary snapshot");
+        }
+        final Output out = new Output(stream);
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarLong(out, count);
+        return new Writer(out, count);
+    }
+
+    public static List<Task> read(InputStream stream) throws IOException {
+        final List<Task> tasks = new ArrayList<>();
+        read(stream, tasks::add);
+        return tasks;
+    }
+
+    public static void read(InputStream stream, Consumer<Task> consumer) throws IOException {
+        final Input in = new Input(stream);
+        if (!Arrays.equals(in.readNBytes(MAGIC.length), MAGIC)) {
+            throw new ManagerLoadException("wrong file format, expected binary snapshot");
+        }
+        final int version = in.read();
+        if (version != VERSION) {
+            throw new ManagerLoadException("unsupported binary snapshot version " + version);
+        }
+        final long count = readVarLong(in);
+        if (count < 0L || count > Integer.MAX_VALUE) {
+            throw new ManagerLoadException("wrong number of records in binary snapshot");
+        }
+        for (long i = 0L; i < count; i++) {
+            consumer.accept(readTask(in));
+        }
+        if (in.read() != -1) {
+            throw new ManagerLoadException("unexpected data after last record");
+        }
+    }
+
+    private static void writeTask(Output out, Task task) throws IOException {
+        final boolean isEpic = task.getType() == TaskType.EPIC;
+        int flags = 0;
+        if (task.getTitle() != null) {
+            flags |= HAS_TITLE;
+        }
+        if (task.getDescription() != null) {
+            flags |= HAS_DESCRIPTION;
+        }
+        if (!isEpic && task.getDuration() != null) {
+            flags |= HAS_DURATION;
+        }
+        if (!isEpic && task.getStartTime() != null) {
+            flags |= HAS_START_TIME;
+        }
+        if (!isEpic && task.getStatus() != null) {
+            flags |= (task.getStatus().ordinal() + 1) << STATUS_SHIFT;
+        }
+        out.write(task.getType().ordinal());
+        out.write(flags);
+        writeVarLong(out, zigZag(task.getId()));
+        if ((flags & HAS_TITLE) != 0) {
+            writeText(out, task.getTitle());
+        }
+        if ((flags & HAS_DESCRIPTION) != 0) {
+            writeText(out, task.getDescription());
+        }
+        if ((flags & HAS_DURATION) != 0) {
+            writeVarLong(out, zigZag(task.getDuration().toMinutes()));
+        }
+        if ((flags & HAS_START_TIME) != 0) {
+            writeVarLong(out, zigZag(Math.floorDiv(task.getStartTime().toEpochSecond(ZoneOffset.UTC), 60L)));
+        }
+        if (task instanceof Subtask subtask) {
+            writeVarLong(out, zigZag(subtask.getEpicId()));
+        }
+    }
+
+    private static Task readTask(Input in) throws IOException {
+        final int typeOrdinal = readByte(in);
+        final int flags = readByte(in);
+        final long id = unZigZag(readVarLong(in));
+        if (typeOrdinal >= TYPES.length) {
+            throw new ManagerLoadException("unknown task type for id=" + id);
+        }
+        final TaskType type = TYPES[typeOrdinal];
+        final Task task = switch (type) {
+            case TASK -> new Task();
+            case EPIC -> new Epic();
+            case SUBTASK -> new Subtask();
+        };
+        task.setId(id);
+        if ((flags & HAS_TITLE) != 0) {
+            task.setTitle(readText(in));
+        }
+        if ((flags & HAS_DESCRIPTION) != 0) {
+            task.setDescription(readText(in));
+        }
+        final int statusCode = flags >>> STATUS_SHIFT;
+        if (type == TaskType.EPIC && (statusCode != 0 || (flags & (HAS_DURATION | HAS_START_TIME)) != 0)) {
+            throw new ManagerLoadException("explicit epic status, duration or start time for id=" + id);
+        }
+        if (statusCode > STATUSES.length) {
+            throw new ManagerLoadException("unknown task status for id=" + id);
+        }
+        if (statusCode > 0) {
+            task.setStatus(STATUSES[statusCode - 1]);
+        }
+        if ((flags & HAS_DURATION) != 0) {
+            task.setDuration(Duration.ofMinutes(unZigZag(readVarLong(in))));
+        }
+        if ((flags & HAS_START_TIME) != 0) {
+            task.setStartTime(LocalDateTime.ofEpochSecond(unZigZag(readVarLong(in)) * 60L, 0, ZoneOffset.UTC));
+        }
+        if (task instanceof Subtask subtask) {
+            subtask.setEpicId(unZigZag(readVarLong(in)));
+        }
+        return task;
+    }
+
+    private static void writeText(Output out, String text) throws IOException {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(Input in) throws IOException {
+        final long length = readVarLong(in);
+        if (length < 0L || length > Integer.MAX_VALUE) {
+            throw new ManagerLoadException("wrong text length in binary snapshot");
+        }
+        return in.readText((int) length);
+    }
+
+    private static void writeVarLong(Output out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0L) {
+            out.write((int) ((value & 0x7FL) | 0x80L));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(Input in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ManagerLoadException("malformed varint in binary snapshot");
+    }
+
+    private static int readByte(Input in) throws IOException {
+        final int b = in.read();
+        if (b == -1) {
+            throw new EOFException("unexpected end of binary snapshot");
+        }
+        return b;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    public static final class Writer {
+        private final Output out;
+        private long remaining;
+
+        private Writer(Output out, long count) {
+            this.out = out;
+            this.remaining = count;
+        }
+
+        public void write(Task task) throws IOException {
+            if (remaining == 0L) {
+                throw new IllegalStateException("more records than declared in binary snapshot");
+            }
+            writeTask(out, task);
+            remaining--;
+        }
+
+        public void finish() throws IOException {
+            if (remaining != 0L) {
+                throw new IllegalStateException("fewer records than declared in binary snapshot");
+            }
+            out.flush();
+        }
+    }
+
+    private static final class Input {
+        private final InputStream stream;
+        private final byte[] buffer;
+        private int position;
+        private int limit;
+
+        private Input(InputStream stream) {
+            this.stream = stream;
+            this.buffer = new byte[BUFFER_SIZE];
+        }
+
+        private int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private byte[] readNBytes(int length) throws IOException {
+            final byte[] bytes = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                if (position == limit && !fill()) {
+                    return Arrays.copyOf(bytes, copied);
+                }
+                final int chunk = Integer.min(length - copied, limit - position);
+                System.arraycopy(buffer, position, bytes, copied, chunk);
+                position += chunk;
+                copied += chunk;
+            }
+            return bytes;
+        }
+
+        private String readText(int length) throws IOException {
+            if (limit - position >= length) {
+                final String text = new String(buffer, position, length, StandardCharsets.UTF_8);
+                position += length;
+                return text;
+            }
+            final byte[] bytes = readNBytes(length);
+            if (bytes.length != length) {
+                throw new EOFException("unexpected end of binary snapshot");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private boolean fill() throws IOException {
+            final int read = stream.read(buffer, 0, buffer.length);
+            position = 0;
+            limit = Integer.max(read, 0);
+            return read > 0;
+        }
+    }
+
+    private static final class Output {
+        private final OutputStream stream;
+        private final byte[] buffer;
+        private int position;
+
+        private Output(OutputStream stream) {
+            this.stream = stream;
+            this.buffer = new byte[BUFFER_SIZE];
+        }
+
+        private void write(int b) throws IOException {
+            if (position == buffer.length) {
+                flush();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                flush();
+                if (bytes.length > buffer.length) {
+                    stream.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void flush() throws IOException {
+            stream.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
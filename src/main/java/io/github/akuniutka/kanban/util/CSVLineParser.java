@@ -2,46 +2,176 @@ package io.github.akuniutka.kanban.util;
 
 import io.github.akuniutka.kanban.exception.CSVParsingException;
 
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Objects;
 
 public class CSVLineParser {
-    private final String line;
+    private final CharSequence line;
+    private final int length;
     private int prevDelimiterAt;
+    private int fieldStart;
+    private int fieldEnd;
 
-    public CSVLineParser(String line) {
+    public CSVLineParser(CharSequence line) {
         Objects.requireNonNull(line, "cannot parse null string");
         this.line = line;
+        this.length = line.length();
         this.prevDelimiterAt = -1;
     }
 
     public boolean hasNext() {
-        return prevDelimiterAt != line.length();
+        return prevDelimiterAt != length;
     }
 
     public String next() {
+        advance();
+        return line.subSequence(fieldStart, fieldEnd).toString();
+    }
+
+    public void advance() {
         if (!hasNext()) {
             throw new CSVParsingException("unexpected end of line");
         }
-        int startIndex = prevDelimiterAt + 1;
-        if (line.length() > startIndex && line.charAt(startIndex) == '"') {
-            prevDelimiterAt = line.indexOf('"', startIndex + 1);
-            if (prevDelimiterAt == -1) {
+        final int startIndex = prevDelimiterAt + 1;
+        int i = startIndex;
+        if (i < length && line.charAt(i) == '"') {
+            i++;
+            while (i < length && line.charAt(i) != '"') {
+                i++;
+            }
+            if (i == length) {
                 throw new CSVParsingException("no closing double quote");
             }
-            prevDelimiterAt++;
-            if (prevDelimiterAt != line.length() && line.charAt(prevDelimiterAt) != ',') {
+            i++;
+            if (i != length && line.charAt(i) != ',') {
                 throw new CSVParsingException("no comma after closing double quote");
             }
         } else {
-            prevDelimiterAt = line.indexOf(',', startIndex);
-            if (prevDelimiterAt == -1) {
-                prevDelimiterAt = line.length();
+            while (i < length) {
+                final char c = line.charAt(i);
+                if (c == ',') {
+                    break;
+                }
+                if (c == '"') {
+                    throw new CSVParsingException("no comma before opening double quote");
+                }
+                i++;
+            }
+        }
+        fieldStart = startIndex;
+        fieldEnd = i;
+        prevDelimiterAt = i;
+    }
+
+    public int fieldStart() {
+        return fieldStart;
+    }
+
+    public int fieldEnd() {
+        return fieldEnd;
+    }
+
+    public boolean isFieldEmpty() {
+        return fieldStart == fieldEnd;
+    }
+
+    public boolean isFieldQuoted() {
+        return fieldEnd - fieldStart >= 2 && line.charAt(fieldStart) == '"' && line.charAt(fieldEnd - 1) == '"';
+    }
+
+    public boolean fieldEquals(String value) {
+        if (fieldEnd - fieldStart != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (line.charAt(fieldStart + i) != value.charAt(i)) {
+                return false;
             }
-            int doubleQuoteIndex = line.indexOf('"', startIndex);
-            if (doubleQuoteIndex != -1 && doubleQuoteIndex < prevDelimiterAt) {
-                throw new CSVParsingException("no comma before opening double quote");
+        }
+        return true;
+    }
+
+    public String fieldAsUnquotedText() {
+        return line.subSequence(fieldStart + 1, fieldEnd - 1).toString();
+    }
+
+    public long fieldAsLong() {
+        return Long.parseLong(line, fieldStart, fieldEnd, 10);
+    }
+
+    public <E extends Enum<E>> E fieldAsEnum(E[] values) {
+        for (E value : values) {
+            if (fieldEquals(value.name())) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    public LocalDateTime fieldAsDateTime() {
+        final int fieldLength = fieldEnd - fieldStart;
+        if (fieldLength == 16 || fieldLength == 19 || fieldLength > 20 && fieldLength <= 29) {
+            try {
+                final LocalDateTime dateTime = decodeDateTime(fieldLength);
+                if (dateTime != null) {
+                    return dateTime;
+                }
+            } catch (DateTimeException exception) {
+                throw new DateTimeParseException(exception.getMessage(), line.subSequence(fieldStart, fieldEnd), 0);
+            }
+        }
+        return LocalDateTime.parse(line.subSequence(fieldStart, fieldEnd));
+    }
+
+    private LocalDateTime decodeDateTime(int fieldLength) {
+        if (!isAt(4, '-') || !isAt(7, '-') || !isAt(10, 'T') || !isAt(13, ':')) {
+            return null;
+        }
+        final int year = digits(0, 4);
+        final int month = digits(5, 2);
+        final int day = digits(8, 2);
+        final int hour = digits(11, 2);
+        final int minute = digits(14, 2);
+        if ((year | month | day | hour | minute) < 0) {
+            return null;
+        }
+        int second = 0;
+        int nanos = 0;
+        if (fieldLength > 16) {
+            if (!isAt(16, ':') || (second = digits(17, 2)) < 0) {
+                return null;
+            }
+        }
+        if (fieldLength > 19) {
+            if (!isAt(19, '.')) {
+                return null;
+            }
+            final int fractionLength = fieldLength - 20;
+            if ((nanos = digits(20, fractionLength)) < 0) {
+                return null;
+            }
+            for (int i = fractionLength; i < 9; i++) {
+                nanos *= 10;
+            }
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+    }
+
+    private boolean isAt(int offset, char c) {
+        return line.charAt(fieldStart + offset) == c;
+    }
+
+    private int digits(int offset, int count) {
+        int value = 0;
+        for (int i = fieldStart + offset; i < fieldStart + offset + count; i++) {
+            final int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
             }
+            value = value * 10 + digit;
         }
-        return line.substring(startIndex, prevDelimiterAt);
+        return value;
     }
 }
@@ -0,0 +1,217 @@
+package io.github.akuniutka.kanban.util;
+
+import io.github.akuniutka.kanban.exception.CSVParsingException;
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+public final class CSVTaskFormat {
+    public static final String FILE_HEADER = "id,type,name,status,description,duration,start,epic";
+    public static final String CHECKSUM_FILE_HEADER = FILE_HEADER + ",crc32c";
+    private static final int CHECKSUM_LENGTH = 8;
+    private static final HexFormat HEX_FORMAT = HexFormat.of();
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+
+    private CSVTaskFormat() {
+    }
+
+    public static void checkHeader(String header) {
+        if (!FILE_HEADER.equals(header) && !CHECKSUM_FILE_HEADER.equals(header)) {
+            throw new ManagerLoadException("wrong file header, expected \"%s\"".formatted(FILE_HEADER));
+        }
+    }
+
+    public static boolean hasChecksums(String header) {
+        return CHECKSUM_FILE_HEADER.equals(header);
+    }
+
+    public static String appendChecksum(String record) {
+        final CRC32C crc = new CRC32C();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return record + ',' + HEX_FORMAT.toHexDigits((int) crc.getValue());
+    }
+
+    public static String stripChecksum(String line) {
+        return line.substring(0, Integer.max(0, line.length() - CHECKSUM_LENGTH - 1));
+    }
+
+    public static boolean hasValidChecksum(byte[] line, int offset, int length) {
+        final int recordLength = length - CHECKSUM_LENGTH - 1;
+        if (recordLength < 0 || line[offset + recordLength] != ',') {
+            return false;
+        }
+        int expected = 0;
+        for (int i = offset + recordLength + 1; i < offset + length; i++) {
+            final int digit = Character.digit(line[i], 16);
+            if (digit < 0) {
+                return false;
+            }
+            expected = (expected << 4) | digit;
+        }
+        final CRC32C crc = new CRC32C();
+        crc.update(line, offset, recordLength);
+        return (int) crc.getValue() == expected;
+    }
+
+    public static String format(Task task) {
+        return "%s,%s,%s,%s,%s,%s,%s,%s".formatted(task.getId(), task.getType(), quoteIfNotNull(task.getTitle()),
+                task.getType() != TaskType.EPIC ? task.getStatus() : "", quoteIfNotNull(task.getDescription()),
+                task.getType() != TaskType.EPIC ?
+                        (task.getDuration() != null ? task.getDuration().toMinutes() : "null") : "",
+                task.getType() != TaskType.EPIC ? task.getStartTime() : "",
+                task.getType() == TaskType.SUBTASK ? ((Subtask) task).getEpicId() : "");
+    }
+
+    public static Task parse(CharSequence taskString) {
+        final CSVLineParser parser = new CSVLineParser(taskString);
+        final long id = extractId(parser);
+        try {
+            final TaskType type = extractType(parser);
+            final Task task = switch (type) {
+                case TASK -> new Task();
+                case EPIC -> new Epic();
+                case SUBTASK -> new Subtask();
+            };
+            task.setId(id);
+            task.setTitle(extractText(parser));
+            parser.advance();
+            if (type != TaskType.EPIC) {
+                task.setStatus(extractStatus(parser));
+                task.setDescription(extractText(parser));
+                task.setDuration(extractDuration(parser));
+                task.setStartTime(extractDateTime(parser));
+            } else {
+                requireNoStatusForEpic(parser);
+                task.setDescription(extractText(parser));
+                requireNoDurationForEpic(parser);
+                requireNoStartTimeForEpic(parser);
+            }
+            parser.advance();
+            if (type == TaskType.SUBTASK) {
+                ((Subtask) task).setEpicId(extractEpicId(parser));
+            } else {
+                requireNoEpicIdForNotSubtask(parser);
+            }
+            requireNoMoreData(parser);
+            return task;
+        } catch (CSVParsingException exception) {
+            throw new ManagerLoadException(exception.getMessage() + " for id=" + id);
+        }
+    }
+
+    private static String quoteIfNotNull(String text) {
+        return text == null ? "null" : '"' + text + '"';
+    }
+
+    private static long extractId(CSVLineParser parser) {
+        parser.advance();
+        try {
+            return parser.fieldAsLong();
+        } catch (NumberFormatException exception) {
+            throw new ManagerLoadException("line does not start with numeric id");
+        }
+    }
+
+    private static TaskType extractType(CSVLineParser parser) {
+        parser.advance();
+        final TaskType type = parser.fieldAsEnum(TASK_TYPES);
+        if (type == null) {
+            throw new CSVParsingException("unknown task type");
+        }
+        return type;
+    }
+
+    private static TaskStatus extractStatus(CSVLineParser parser) {
+        if (parser.fieldEquals("null")) {
+            return null;
+        }
+        final TaskStatus status = parser.fieldAsEnum(TASK_STATUSES);
+        if (status == null) {
+            throw new CSVParsingException("unknown task status");
+        }
+        return status;
+    }
+
+    private static void requireNoStatusForEpic(CSVLineParser parser) {
+        if (!parser.isFieldEmpty()) {
+            throw new CSVParsingException("explicit epic status");
+        }
+    }
+
+    private static String extractText(CSVLineParser parser) {
+        parser.advance();
+        if (parser.fieldEquals("null")) {
+            return null;
+        }
+        if (!parser.isFieldQuoted()) {
+            throw new CSVParsingException("text value must be inside double quotes");
+        }
+        return parser.fieldAsUnquotedText();
+    }
+
+    private static Duration extractDuration(CSVLineParser parser) {
+        parser.advance();
+        if (parser.fieldEquals("null")) {
+            return null;
+        }
+        try {
+            long minutes = parser.fieldAsLong();
+            return Duration.ofMinutes(minutes);
+        } catch (NumberFormatException | ArithmeticException exception) {
+            throw new CSVParsingException("wrong duration format");
+        }
+    }
+
+    private static void requireNoDurationForEpic(CSVLineParser parser) {
+        parser.advance();
+        if (!parser.isFieldEmpty()) {
+            throw new CSVParsingException("explicit epic duration");
+        }
+    }
+
+    private static LocalDateTime extractDateTime(CSVLineParser parser) {
+        parser.advance();
+        if (parser.fieldEquals("null")) {
+            return null;
+        }
+        try {
+            return parser.fieldAsDateTime();
+        } catch (DateTimeParseException exception) {
+            throw new CSVParsingException("wrong start time format");
+        }
+    }
+
+    private static void requireNoStartTimeForEpic(CSVLineParser parser) {
+        parser.advance();
+        if (!parser.isFieldEmpty()) {
+            throw new CSVParsingException("explicit epic start time");
+        }
+    }
+
+    private static long extractEpicId(CSVLineParser parser) {
+        try {
+            return parser.fieldAsLong();
+        } catch (NumberFormatException exception) {
+            throw new CSVParsingException("wrong epic id format");
+        }
+    }
+
+    private static void requireNoEpicIdForNotSubtask(CSVLineParser parser) {
+        if (!parser.isFieldEmpty()) {
+            throw new CSVParsingException("unexpected data");
+        }
+    }
+
+    private static void requireNoMoreData(CSVLineParser parser) {
+        if (parser.hasNext()) {
+            throw new CSVParsingException("unexpected data");
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package io.github.akuniutka.kanban.util;
+
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+public final class CSVTaskWriter {
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_LONG_LENGTH = 20;
+    private final OutputStream out;
+    private final boolean hasChecksums;
+    private final byte[] lineSeparator;
+    private final CRC32C crc;
+    private byte[] buffer;
+    private int position;
+
+    public CSVTaskWriter(OutputStream out, boolean hasChecksums, int bufferSize) {
+        this.out = Objects.requireNonNull(out, "cannot write to null stream");
+        this.hasChecksums = hasChecksums;
+        this.lineSeparator = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+        this.crc = hasChecksums ? new CRC32C() : null;
+        this.buffer = new byte[Integer.max(bufferSize, 256)];
+    }
+
+    public void writeHeader() throws IOException {
+        final int start = position;
+        appendText(hasChecksums ? CSVTaskFormat.CHECKSUM_FILE_HEADER : CSVTaskFormat.FILE_HEADER);
+        endLine(start, false);
+    }
+
+    public void write(Task task) throws IOException {
+        final int start = position;
+        final TaskType type = task.getType();
+        appendLong(task.getId());
+        appendByte(',');
+        appendAscii(type.name());
+        appendByte(',');
+        appendQuotedIfNotNull(task.getTitle());
+        appendByte(',');
+        if (type != TaskType.EPIC) {
+            if (task.getStatus() == null) {
+                appendBytes(NULL);
+            } else {
+                appendAscii(task.getStatus().name());
+            }
+        }
+        appendByte(',');
+        appendQuotedIfNotNull(task.getDescription());
+        appendByte(',');
+        if (type != TaskType.EPIC) {
+            final Duration duration = task.getDuration();
+            if (duration == null) {
+                appendBytes(NULL);
+            } else {
+                appendLong(duration.toMinutes());
+            }
+        }
+        appendByte(',');
+        if (type != TaskType.EPIC) {
+            appendDateTime(task.getStartTime());
+        }
+        appendByte(',');
+        if (type == TaskType.SUBTASK) {
+            appendLong(((Subtask) task).getEpicId());
+        }
+        endLine(start, hasChecksums);
+    }
+
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private void endLine(int start, boolean withChecksum) throws IOException {
+        if (withChecksum) {
+            ensureCapacity(9);
+            crc.reset();
+            crc.update(buffer, start, position - start);
+            final int checksum = (int) crc.getValue();
+            buffer[position++] = ',';
+            for (int shift = 28; shift >= 0; shift -= 4) {
+                buffer[position++] = HEX_DIGITS[(checksum >>> shift) & 0xF];
+            }
+        }
+        appendBytes(lineSeparator);
+        if (position >= buffer.length / 2) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Integer.max(buffer.length * 2, position + length));
+        }
+    }
+
+    private void appendByte(char c) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void appendBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void appendAscii(String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer[position++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void appendQuotedIfNotNull(String text) {
+        if (text == null) {
+            appendBytes(NULL);
+            return;
+        }
+        appendByte('"');
+        appendText(text);
+        appendByte('"');
+    }
+
+    private void appendText(String text) {
+        final int length = text.length();
+        ensureCapacity(3 * length);
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    private void appendLong(Long value) {
+        if (value == null) {
+            appendBytes(NULL);
+        } else {
+            appendLong(value.longValue());
+        }
+    }
+
+    private void appendLong(long value) {
+        ensureCapacity(MAX_LONG_LENGTH);
+        if (value == Long.MIN_VALUE) {
+            appendAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0L) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        final int length = digitCount(value);
+        for (int i = position + length - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10L);
+            value /= 10L;
+        }
+        position += length;
+    }
+
+    private void appendDateTime(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            appendBytes(NULL);
+            return;
+        }
+        final LocalDate date = dateTime.toLocalDate();
+        final int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            appendAscii(dateTime.toString());
+            return;
+        }
+        final LocalTime time = dateTime.toLocalTime();
+        ensureCapacity(29);
+        appendPadded(year, 4);
+        buffer[position++] = '-';
+        appendPadded(date.getMonthValue(), 2);
+        buffer[position++] = '-';
+        appendPadded(date.getDayOfMonth(), 2);
+        buffer[position++] = 'T';
+        appendPadded(time.getHour(), 2);
+        buffer[position++] = ':';
+        appendPadded(time.getMinute(), 2);
+        final int second = time.getSecond();
+        final int nano = time.getNano();
+        if (second > 0 || nano > 0) {
+            buffer[position++] = ':';
+            appendPadded(second, 2);
+            if (nano > 0) {
+                buffer[position++] = '.';
+                if (nano % 1_000_000 == 0) {
+                    appendPadded(nano / 1_000_000, 3);
+                } else if (nano % 1000 == 0) {
+                    appendPadded(nano / 1000, 6);
+                } else {
+                    appendPadded(nano, 9);
+                }
+            }
+        }
+    }
+
+    private void appendPadded(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10L) {
+            value /= 10L;
+            count++;
+        }
+        return count;
+    }
+}
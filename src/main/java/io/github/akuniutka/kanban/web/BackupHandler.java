@@ -0,0 +1,96 @@
+package io.github.akuniutka.kanban.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.service.BackupCapable;
+import io.github.akuniutka.kanban.service.TaskManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+public class BackupHandler extends HttpRequestHandler<Task> {
+    private static final int OK = 200;
+    private static final int NOT_IMPLEMENTED = 501;
+    private final TaskManager taskManager;
+
+    public BackupHandler(String path, TaskManager taskManager) {
+        super(path, Task.class, List::of);
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleCollectionRequest(HttpExchange exchange, String method) throws IOException {
+        if (!"GET".equals(method)) {
+            super.handleCollectionRequest(exchange, method);
+            return;
+        }
+        if (!(taskManager instanceof BackupCapable backupCapable)) {
+            System.out.println("backup is not supported");
+            respond(exchange, NOT_IMPLEMENTED);
+            return;
+        }
+        final ResponseChannel response = new ResponseChannel(exchange);
+        try {
+            backupCapable.backup(response);
+        } catch (RuntimeException | IOException exception) {
+            if (!response.isStarted()) {
+                throw exception;
+            }
+            System.out.printf("backup aborted after %d bytes: %s%n", response.getWritten(), exception.getMessage());
+            return;
+        }
+        response.start();
+        response.body.close();
+        System.out.printf("<< %d (%d bytes)%n", OK, response.getWritten());
+    }
+
+    private static class ResponseChannel implements WritableByteChannel {
+        private final HttpExchange exchange;
+        private OutputStream body;
+        private WritableByteChannel channel;
+        private long written;
+
+        ResponseChannel(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            start();
+            final int bytes = channel.write(source);
+            written += bytes;
+            return bytes;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void start() throws IOException {
+            if (body != null) {
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(OK, 0);
+            body = exchange.getResponseBody();
+            channel = Channels.newChannel(body);
+        }
+
+        boolean isStarted() {
+            return body != null;
+        }
+
+        long getWritten() {
+            return written;
+        }
+    }
+}
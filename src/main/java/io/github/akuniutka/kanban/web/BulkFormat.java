@@ -0,0 +1,42 @@
+package io.github.akuniutka.kanban.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.akuniutka.kanban.exception.ManagerValidationException;
+
+enum BulkFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private static final String FORMAT_PARAMETER = "format=";
+    private final String contentType;
+
+    BulkFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    static BulkFormat of(HttpExchange exchange) {
+        final String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(FORMAT_PARAMETER)) {
+                    return ofName(parameter.substring(FORMAT_PARAMETER.length()));
+                }
+            }
+        }
+        final String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        return contentType != null && contentType.startsWith(CSV.contentType) ? CSV : NDJSON;
+    }
+
+    private static BulkFormat ofName(String name) {
+        for (BulkFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new ManagerValidationException("unknown format \"%s\"".formatted(name));
+    }
+}
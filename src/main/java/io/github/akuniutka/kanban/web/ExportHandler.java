@@ -0,0 +1,106 @@
+package io.github.akuniutka.kanban.web;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.service.FileBackedTaskManager;
+import io.github.akuniutka.kanban.service.TaskManager;
+import io.github.akuniutka.kanban.util.CSVTaskFormat;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ExportHandler extends HttpRequestHandler<Task> {
+    private static final int OK = 200;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final TaskManager taskManager;
+
+    public ExportHandler(String path, TaskManager taskManager) {
+        super(path, Task.class, taskManager::getTasks);
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleCollectionRequest(HttpExchange exchange, String method) throws IOException {
+        if (!"GET".equals(method)) {
+            super.handleCollectionRequest(exchange, method);
+            return;
+        }
+        final BulkFormat format = BulkFormat.of(exchange);
+        final List<Iterable<? extends Task>> snapshot;
+        synchronized (taskManager) {
+            final Iterable<Task> archivedTasks = taskManager instanceof FileBackedTaskManager fileBackedTaskManager
+                    ? fileBackedTaskManager.iterateArchivedTasks() : List.of();
+            snapshot = List.of(taskManager.getTasks(), taskManager.getEpics(), taskManager.getSubtasks(),
+                    archivedTasks);
+        }
+        final AbortableOutputStream body = new AbortableOutputStream(exchange.getResponseBody());
+        exchange.setStreams(null, body);
+        exchange.getResponseHeaders().set("Content-Type", format.getContentType());
+        exchange.sendResponseHeaders(OK, 0);
+        long records = 0L;
+        try {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8),
+                    BUFFER_SIZE);
+            if (format == BulkFormat.CSV) {
+                writer.write(CSVTaskFormat.FILE_HEADER);
+                writer.write('\n');
+            }
+            for (Iterable<? extends Task> tasks : snapshot) {
+                for (Task task : tasks) {
+                    write(writer, format, task);
+                    records++;
+                }
+            }
+            writer.flush();
+        } catch (RuntimeException | IOException exception) {
+            body.abort();
+            System.out.printf("export aborted after %d records: %s%n", records, exception.getMessage());
+            return;
+        }
+        System.out.printf("<< %d (%d records)%n", OK, records);
+    }
+
+    private void write(Writer writer, BulkFormat format, Task task) throws IOException {
+        if (format == BulkFormat.CSV) {
+            writer.write(CSVTaskFormat.format(task));
+        } else {
+            final JsonObject json = gson.toJsonTree(task).getAsJsonObject();
+            json.addProperty("type", task.getType().name());
+            gson.toJson(json, writer);
+        }
+        writer.write('\n');
+    }
+
+    private static class AbortableOutputStream extends FilterOutputStream {
+        private boolean isAborted;
+
+        AbortableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (isAborted) {
+                // a failing close makes the server drop the connection instead of ending the chunked body
+                throw new IOException("export aborted");
+            }
+            super.close();
+        }
+
+        void abort() {
+            isAborted = true;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import io.github.akuniutka.kanban.exception.ManagerValidationException;
+import io.github.akuniutka.kanban.exception.ReadOnlyManagerException;
 import io.github.akuniutka.kanban.exception.TaskNotFoundException;
 import io.github.akuniutka.kanban.exception.TaskOverlapException;
 import io.github.akuniutka.kanban.model.Task;
@@ -32,9 +33,10 @@ public class HttpRequestHandler<T extends Task> implements HttpHandler {
     private static final int METHOD_NOT_ALLOWED = 405;
     private static final int NOT_ACCEPTABLE = 406;
     private static final int INTERNAL_SERVER_ERROR = 500;
-    private static final Gson gson = new GsonBuilder()
+    static final Gson gson = new GsonBuilder()
             .registerTypeAdapter(Duration.class, new DurationAdapter())
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .registerTypeAdapterFactory(new LazyDescriptionAdapterFactory())
             .create();
     private final String path;
     private final Class<T> elementType;
@@ -103,6 +105,8 @@ public class HttpRequestHandler<T extends Task> implements HttpHandler {
             logAndRespond(exception, exchange, NOT_ACCEPTABLE);
         } catch (JsonSyntaxException | ManagerValidationException exception) {
             logAndRespond(exception, exchange, BAD_REQUEST);
+        } catch (ReadOnlyManagerException exception) {
+            logAndRespond(exception, exchange, METHOD_NOT_ALLOWED);
         } catch (Exception exception) {
             logAndRespond(exception, exchange, INTERNAL_SERVER_ERROR);
         } finally {
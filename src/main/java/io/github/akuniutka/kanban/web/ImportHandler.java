@@ -0,0 +1,193 @@
+package io.github.akuniutka.kanban.web;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.ManagerValidationException;
+import io.github.akuniutka.kanban.exception.TaskOverlapException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskType;
+import io.github.akuniutka.kanban.service.TaskManager;
+import io.github.akuniutka.kanban.util.CSVTaskFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ImportHandler extends HttpRequestHandler<Task> {
+    private static final int CREATED = 201;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_ACCEPTABLE = 406;
+    private static final int BATCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final TaskManager taskManager;
+
+    public ImportHandler(String path, TaskManager taskManager) {
+        super(path, Task.class, null, null, taskManager::createTask, null, null);
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleCollectionRequest(HttpExchange exchange, String method) throws IOException {
+        if (!"POST".equals(method)) {
+            super.handleCollectionRequest(exchange, method);
+            return;
+        }
+        final BulkFormat format = BulkFormat.of(exchange);
+        final Batch batch = new Batch();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(),
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+        long lineNumber = 0L;
+        try {
+            String line = reader.readLine();
+            if (format == BulkFormat.CSV && line != null) {
+                lineNumber++;
+                CSVTaskFormat.checkHeader(line);
+                line = reader.readLine();
+            }
+            while (line != null) {
+                lineNumber++;
+                if (!line.isBlank()) {
+                    final Task task;
+                    try {
+                        task = format == BulkFormat.CSV ? CSVTaskFormat.parse(line) : parseJson(line);
+                    } catch (ManagerLoadException exception) {
+                        batch.flush();
+                        throw exception;
+                    }
+                    batch.add(task, lineNumber);
+                }
+                line = reader.readLine();
+            }
+            batch.flush();
+        } catch (TaskOverlapException exception) {
+            reject(exchange, NOT_ACCEPTABLE, batch, lineNumber, exception);
+            return;
+        } catch (ManagerLoadException | ManagerValidationException exception) {
+            reject(exchange, BAD_REQUEST, batch, lineNumber, exception);
+            return;
+        } catch (RuntimeException exception) {
+            System.out.printf("import stopped at line %d after %d records%n", lineNumber, batch.result.total());
+            throw exception;
+        }
+        respond(exchange, CREATED, batch.result);
+    }
+
+    private void reject(HttpExchange exchange, int code, Batch batch, long lineNumber, RuntimeException exception)
+            throws IOException {
+        final String location = batch.rejectedLines != null ? batch.rejectedLines : "line " + lineNumber;
+        final ImportFailure failure = new ImportFailure("%s: %s".formatted(location, exception.getMessage()),
+                batch.result);
+        System.out.printf("%s (%d records kept)%n", failure.error, failure.kept);
+        respond(exchange, code, failure);
+    }
+
+    private Task parseJson(String line) {
+        try {
+            final JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+            final JsonElement type = json.remove("type");
+            final Class<? extends Task> taskClass = switch (type == null ? TaskType.TASK
+                    : TaskType.valueOf(type.getAsString())) {
+                case TASK -> Task.class;
+                case EPIC -> Epic.class;
+                case SUBTASK -> Subtask.class;
+            };
+            return gson.fromJson(json, taskClass);
+        } catch (JsonParseException | IllegalStateException | IllegalArgumentException exception) {
+            throw new ManagerLoadException("wrong record");
+        }
+    }
+
+    // records go to the manager in bounded batches, each saved at once and all-or-nothing; a subtask of an epic
+    // still waiting in the batch flushes it first, since it needs the id the epic gets
+    private class Batch {
+        private final ImportResult result = new ImportResult();
+        private final Map<Long, Long> epicIds = new HashMap<>();
+        private final Map<Long, Integer> pendingEpics = new HashMap<>();
+        private final List<Task> tasks = new ArrayList<>(BATCH_SIZE);
+        private long firstLineNumber;
+        private long lastLineNumber;
+        private String rejectedLines;
+
+        private void add(Task task, long lineNumber) {
+            if (task instanceof Subtask subtask) {
+                if (pendingEpics.containsKey(subtask.getEpicId())) {
+                    flush();
+                }
+                final Long epicId = epicIds.get(subtask.getEpicId());
+                if (epicId == null) {
+                    flush();
+                    throw new ManagerLoadException("no epic with id=%s earlier in stream"
+                            .formatted(subtask.getEpicId()));
+                }
+                subtask.setEpicId(epicId);
+            } else if (task instanceof Epic && task.getId() != null) {
+                pendingEpics.put(task.getId(), tasks.size());
+            }
+            if (tasks.isEmpty()) {
+                firstLineNumber = lineNumber;
+            }
+            lastLineNumber = lineNumber;
+            tasks.add(task);
+            if (tasks.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (tasks.isEmpty()) {
+                return;
+            }
+            final List<Task> created;
+            try {
+                created = taskManager.createAll(tasks);
+            } catch (RuntimeException exception) {
+                rejectedLines = firstLineNumber == lastLineNumber ? "line " + firstLineNumber
+                        : "lines %d-%d".formatted(firstLineNumber, lastLineNumber);
+                throw exception;
+            }
+            pendingEpics.forEach((sourceId, index) -> epicIds.put(sourceId, created.get(index).getId()));
+            pendingEpics.clear();
+            for (Task task : tasks) {
+                switch (task.getType()) {
+                    case TASK -> result.tasks++;
+                    case EPIC -> result.epics++;
+                    case SUBTASK -> result.subtasks++;
+                }
+            }
+            tasks.clear();
+        }
+    }
+
+    private static class ImportResult {
+        private long tasks;
+        private long epics;
+        private long subtasks;
+
+        private long total() {
+            return tasks + epics + subtasks;
+        }
+    }
+
+    private static class ImportFailure {
+        private final String error;
+        private final long kept;
+        private final ImportResult imported;
+
+        private ImportFailure(String error, ImportResult imported) {
+            this.error = error;
+            this.kept = imported.total();
+            this.imported = imported;
+        }
+    }
+}
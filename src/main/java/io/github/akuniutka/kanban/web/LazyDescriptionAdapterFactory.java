@@ -0,0 +1,46 @@
+package io.github.akuniutka.kanban.web;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+
+import java.io.IOException;
+
+public class LazyDescriptionAdapterFactory implements TypeAdapterFactory {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!Task.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+        final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        final TypeAdapter<JsonElement> elementAdapter = gson.getAdapter(JsonElement.class);
+        return (TypeAdapter<T>) new TypeAdapter<Task>() {
+            @Override
+            public void write(JsonWriter jsonWriter, Task task) throws IOException {
+                // storage may hand out subclasses that read the description on demand instead of keeping the field
+                if (task == null || task.getClass() == Task.class || task.getClass() == Epic.class
+                        || task.getClass() == Subtask.class) {
+                    delegate.write(jsonWriter, (T) task);
+                    return;
+                }
+                final JsonObject json = delegate.toJsonTree((T) task).getAsJsonObject();
+                json.addProperty("description", task.getDescription());
+                elementAdapter.write(jsonWriter, json);
+            }
+
+            @Override
+            public Task read(JsonReader jsonReader) throws IOException {
+                return (Task) delegate.read(jsonReader);
+            }
+        };
+    }
+}
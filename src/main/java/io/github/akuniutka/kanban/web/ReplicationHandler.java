@@ -0,0 +1,38 @@
+package io.github.akuniutka.kanban.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.service.ReplicationCapable;
+import io.github.akuniutka.kanban.service.ReplicationStatus;
+import io.github.akuniutka.kanban.service.TaskManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+public class ReplicationHandler extends HttpRequestHandler<Task> {
+    private static final int OK = 200;
+    private static final int NOT_IMPLEMENTED = 501;
+    private final TaskManager taskManager;
+
+    public ReplicationHandler(String path, TaskManager taskManager) {
+        super(path, Task.class, List::of);
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleCollectionRequest(HttpExchange exchange, String method) throws IOException {
+        if (!"GET".equals(method)) {
+            super.handleCollectionRequest(exchange, method);
+            return;
+        }
+        final Optional<ReplicationStatus> status = taskManager instanceof ReplicationCapable replicationCapable
+                ? replicationCapable.getReplicationStatus() : Optional.empty();
+        if (status.isEmpty()) {
+            System.out.println("replication is not configured");
+            respond(exchange, NOT_IMPLEMENTED);
+            return;
+        }
+        respond(exchange, OK, status.get());
+    }
+}
@@ -2,16 +2,23 @@ package io.github.akuniutka.kanban;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
 import io.github.akuniutka.kanban.exception.ManagerValidationException;
+import io.github.akuniutka.kanban.exception.ReadOnlyManagerException;
 import io.github.akuniutka.kanban.exception.TaskNotFoundException;
 import io.github.akuniutka.kanban.exception.TaskOverlapException;
 import io.github.akuniutka.kanban.model.Epic;
 import io.github.akuniutka.kanban.model.Subtask;
 import io.github.akuniutka.kanban.model.Task;
 import io.github.akuniutka.kanban.model.TaskStatus;
+import io.github.akuniutka.kanban.service.InMemoryTaskManager;
+import io.github.akuniutka.kanban.service.Managers;
+import io.github.akuniutka.kanban.service.ReplicationStatus;
+import io.github.akuniutka.kanban.util.CSVTaskFormat;
 import io.github.akuniutka.kanban.web.DurationAdapter;
 import io.github.akuniutka.kanban.web.LocalDateTimeAdapter;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -41,13 +48,14 @@ class HttpTaskServerTest {
     private static final int METHOD_NOT_ALLOWED = 405;
     private static final int NOT_ACCEPTABLE = 406;
     private static final int INTERNAL_SERVER_ERROR = 500;
+    private static final int NOT_IMPLEMENTED = 501;
     private static final String JSON = "application/json";
     private static final Gson gson = new GsonBuilder()
             .registerTypeAdapter(Duration.class, new DurationAdapter())
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
             .create();
     private final HttpClient client;
-    private final HttpTaskServer httpTaskServer;
+    private HttpTaskServer httpTaskServer;
     private final MockTaskManager mock;
     private final Task emptyTask;
     private final Task testTask;
@@ -1339,6 +1347,173 @@ class HttpTaskServerTest {
         assertEquals(METHOD_NOT_ALLOWED, response.statusCode(), "wrong status code");
     }
 
+    @Test
+    public void shouldStreamAllTasksAsNdjsonWhenGetExport() {
+        mock.withGetTasks(() -> List.of(testTask)).withGetEpics(() -> List.of(testEpic))
+                .withGetSubtasks(() -> List.of(testSubtask));
+        final String expectedBody = toNdjson(testTask) + toNdjson(testEpic) + toNdjson(testSubtask);
+
+        HttpResponse<String> response = get("/api/v1/export");
+
+        assertAll("wrong export",
+                () -> assertEquals(OK, response.statusCode(), "wrong status code"),
+                () -> assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type")
+                        .orElse(null), "wrong content type"),
+                () -> assertEquals(expectedBody, response.body(), "wrong body")
+        );
+    }
+
+    @Test
+    public void shouldStreamAllTasksAsCsvWhenGetExportInCsvFormat() {
+        mock.withGetTasks(() -> List.of(testTask)).withGetEpics(() -> List.of(testEpic))
+                .withGetSubtasks(() -> List.of(testSubtask));
+        final String expectedBody = CSVTaskFormat.FILE_HEADER + "\n" + CSVTaskFormat.format(testTask) + "\n"
+                + CSVTaskFormat.format(testEpic) + "\n" + CSVTaskFormat.format(testSubtask) + "\n";
+
+        HttpResponse<String> response = get("/api/v1/export?format=csv");
+
+        assertAll("wrong export",
+                () -> assertEquals(OK, response.statusCode(), "wrong status code"),
+                () -> assertEquals("text/csv", response.headers().firstValue("Content-Type").orElse(null),
+                        "wrong content type"),
+                () -> assertEquals(expectedBody, response.body(), "wrong body")
+        );
+    }
+
+    @Test
+    public void shouldRespondBadRequestWhenGetExportInUnknownFormat() {
+        HttpResponse<String> response = get("/api/v1/export?format=xml");
+
+        assertEquals(BAD_REQUEST, response.statusCode(), "wrong status code");
+    }
+
+    @Test
+    public void shouldCreateTasksAndRemapEpicIdsWhenPostImport() {
+        mock.withCreateEpic(epic -> modifiedEpic).withCreateSubtask(subtask -> subtask);
+        final String requestBody = toNdjson(testEpic) + "\n" + toNdjson(testSubtask);
+
+        HttpResponse<String> response = post("/api/v1/import", requestBody);
+
+        assertAll("wrong import",
+                () -> assertEquals(1, mock.calls().createEpic().size(), "wrong number of calls to createEpic()"),
+                () -> assertEquals(ANOTHER_TEST_ID, mock.calls().createSubtask().getFirst().getEpicId(),
+                        "epic id not remapped"),
+                () -> assertEquals(CREATED, response.statusCode(), "wrong status code"),
+                () -> assertEquals("{\"tasks\":0,\"epics\":1,\"subtasks\":1}", response.body(), "wrong body")
+        );
+    }
+
+    @Test
+    public void shouldRespondBadRequestAndNotCreateSubtaskWhenPostImportWithSubtaskBeforeItsEpic() {
+        mock.withCreateEpic(epic -> modifiedEpic).withCreateSubtask(subtask -> subtask);
+        final String requestBody = toNdjson(testSubtask) + "\n" + toNdjson(testEpic);
+
+        HttpResponse<String> response = post("/api/v1/import", requestBody);
+
+        assertAll("wrong import",
+                () -> assertTrue(mock.calls().createSubtask().isEmpty(), "subtask should not be created"),
+                () -> assertEquals(BAD_REQUEST, response.statusCode(), "wrong status code")
+        );
+    }
+
+    @Test
+    public void shouldRespondBadRequestAndKeepImportedTasksWhenPostImportWithWrongCsvRecord() {
+        mock.withCreateTask(task -> task);
+        final String requestBody = CSVTaskFormat.FILE_HEADER + "\n" + CSVTaskFormat.format(testTask) + "\n"
+                + "2,TASK,wrong\n";
+
+        HttpResponse<String> response = post("/api/v1/import?format=csv", requestBody);
+
+        assertAll("wrong import",
+                () -> assertEquals(1, mock.calls().createTask().size(), "wrong number of calls to createTask()"),
+                () -> assertEquals(BAD_REQUEST, response.statusCode(), "wrong status code"),
+                () -> assertTrue(response.body().startsWith("{\"error\":\"line 3: "), "wrong error"),
+                () -> assertTrue(response.body().endsWith(",\"kept\":1,\"imported\":{\"tasks\":1,\"epics\":0,"
+                        + "\"subtasks\":0}}"), "number of kept records not reported")
+        );
+    }
+
+    @Test
+    public void shouldStreamBackupWhenGetAdminBackup() {
+        mock.withBackup("backup content".getBytes(StandardCharsets.UTF_8));
+
+        HttpResponse<String> response = get("/api/v1/admin/backup");
+
+        assertAll("wrong backup",
+                () -> assertEquals(OK, response.statusCode(), "wrong status code"),
+                () -> assertEquals("application/octet-stream", response.headers().firstValue("Content-Type")
+                        .orElse(null), "wrong content type"),
+                () -> assertEquals("backup content", response.body(), "wrong body")
+        );
+    }
+
+    @Test
+    public void shouldRespondNotImplementedWhenGetAdminBackupAndManagerNotPersistent() throws IOException {
+        httpTaskServer.stop();
+        httpTaskServer = new HttpTaskServer(new InMemoryTaskManager(Managers.getDefaultHistory()));
+        httpTaskServer.start();
+
+        HttpResponse<String> response = get("/api/v1/admin/backup");
+
+        assertEquals(NOT_IMPLEMENTED, response.statusCode(), "wrong status code");
+    }
+
+    @Test
+    public void shouldRespondMethodNotAllowedWhenDeleteAdminBackup() {
+        HttpResponse<String> response = delete("/api/v1/admin/backup");
+
+        assertEquals(METHOD_NOT_ALLOWED, response.statusCode(), "wrong status code");
+    }
+
+    @Test
+    public void shouldRespondWithStatusWhenGetAdminReplication() {
+        mock.withReplicationStatus(new ReplicationStatus("follower", true, 42L, 3L, 15L, 0));
+
+        HttpResponse<String> response = get("/api/v1/admin/replication");
+
+        assertAll("wrong replication status",
+                () -> assertEquals(OK, response.statusCode(), "wrong status code"),
+                () -> assertEquals("""
+                        {"role":"follower","connected":true,"sequence":42,"lag":3,"delayMillis":15,"followers":0}\
+                        """, response.body(), "wrong body")
+        );
+    }
+
+    @Test
+    public void shouldRespondNotImplementedWhenGetAdminReplicationAndReplicationNotConfigured() {
+        HttpResponse<String> response = get("/api/v1/admin/replication");
+
+        assertEquals(NOT_IMPLEMENTED, response.statusCode(), "wrong status code");
+    }
+
+    @Test
+    public void shouldRespondMethodNotAllowedWhenPostTaskToReadOnlyReplica() {
+        mock.withCreateTask(task -> {
+            throw new ReadOnlyManagerException("replica is read-only, send changes to the primary");
+        });
+
+        HttpResponse<String> response = post("/api/v1/tasks", gson.toJson(testTask));
+
+        assertEquals(METHOD_NOT_ALLOWED, response.statusCode(), "wrong status code");
+    }
+
+    @Test
+    public void shouldRespondInternalServerErrorWhenManagerThrowsUnsupportedOperationException() {
+        mock.withCreateTask(task -> {
+            throw new UnsupportedOperationException("unmodifiable list");
+        });
+
+        HttpResponse<String> response = post("/api/v1/tasks", gson.toJson(testTask));
+
+        assertEquals(INTERNAL_SERVER_ERROR, response.statusCode(), "wrong status code");
+    }
+
+    private String toNdjson(Task task) {
+        final JsonObject json = gson.toJsonTree(task).getAsJsonObject();
+        json.addProperty("type", task.getType().name());
+        return gson.toJson(json) + "\n";
+    }
+
     private HttpResponse<String> get(String url) {
         List<HttpResponse<String>> responses = new ArrayList<>();
         URI uri = URI.create(HOSTNAME + ":" + PORT + url);
@@ -3,8 +3,14 @@ package io.github.akuniutka.kanban;
 import io.github.akuniutka.kanban.model.Epic;
 import io.github.akuniutka.kanban.model.Subtask;
 import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.service.BackupCapable;
+import io.github.akuniutka.kanban.service.ReplicationCapable;
+import io.github.akuniutka.kanban.service.ReplicationStatus;
 import io.github.akuniutka.kanban.service.TaskManager;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -16,7 +22,7 @@ import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
-public class MockTaskManager implements TaskManager {
+public class MockTaskManager implements TaskManager, BackupCapable, ReplicationCapable {
     private final Calls calls;
     private Supplier<List<Task>> getTasks;
     private Runnable deleteTasks;
@@ -39,6 +45,8 @@ public class MockTaskManager implements TaskManager {
     private LongFunction<List<Subtask>> getEpicSubtasks;
     private Supplier<List<Task>> getHistory;
     private Supplier<List<Task>> getPrioritizedTasks;
+    private byte[] backup;
+    private ReplicationStatus replicationStatus;
 
     public MockTaskManager() {
         this.calls = new Calls();
@@ -170,6 +178,16 @@ public class MockTaskManager implements TaskManager {
         return this;
     }
 
+    public MockTaskManager withBackup(byte[] backup) {
+        this.backup = backup;
+        return this;
+    }
+
+    public MockTaskManager withReplicationStatus(ReplicationStatus replicationStatus) {
+        this.replicationStatus = replicationStatus;
+        return this;
+    }
+
     @Override
     public List<Task> getTasks() {
         assertNotNull(getTasks, "method getTasks() should not be called");
@@ -317,6 +335,20 @@ public class MockTaskManager implements TaskManager {
         return getPrioritizedTasks.get();
     }
 
+    @Override
+    public void backup(WritableByteChannel target) throws IOException {
+        assertNotNull(backup, "method backup() should not be called");
+        final ByteBuffer buffer = ByteBuffer.wrap(backup);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    @Override
+    public Optional<ReplicationStatus> getReplicationStatus() {
+        return Optional.ofNullable(replicationStatus);
+    }
+
     public Calls calls() {
         return calls;
     }
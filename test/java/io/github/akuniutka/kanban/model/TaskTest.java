@@ -189,6 +189,25 @@ public class TaskTest {
         assertNotEquals(task, anotherTask, "tasks with different ids may not considered equal");
     }
 
+    @Test
+    public void shouldBeEqualWhenSubclassWithEqualId() {
+        final Task task = fromTestTask().build();
+        final Task anotherTask = new Task() {
+        };
+        anotherTask.setId(task.getId());
+
+        assertEquals(task, anotherTask, "tasks with same id must be considered equal");
+    }
+
+    @Test
+    public void shouldNotBeEqualWhenEqualIdsAndDifferentTypes() {
+        final Task task = fromTestTask().build();
+        final Epic epic = new Epic();
+        epic.setId(task.getId());
+
+        assertNotEquals(task, epic, "task and epic may not be considered equal");
+    }
+
     @Test
     public void shouldConvertToStringWhenFieldsNull() {
         final String expected = """
@@ -214,4 +233,28 @@ public class TaskTest {
 
         assertEquals(expected, actual, "string representation of task is wrong");
     }
+
+    @Test
+    public void shouldGetDescriptionOnceWhenConvertToString() {
+        final String expected = """
+                Task{id=1, type=TASK, title=null, description.length=11, duration=null, startTime=null, \
+                endTime=null, status=null}\
+                """;
+        final int[] calls = new int[1];
+        final Task task = new Task() {
+            @Override
+            public String getDescription() {
+                calls[0]++;
+                return TEST_DESCRIPTION;
+            }
+        };
+        task.setId(TEST_TASK_ID);
+
+        final String actual = task.toString();
+
+        assertAll("string representation of task is wrong",
+                () -> assertEquals(expected, actual, "string representation of task is wrong"),
+                () -> assertEquals(1, calls[0], "description should be read once")
+        );
+    }
 }
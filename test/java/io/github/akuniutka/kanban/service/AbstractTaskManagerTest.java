@@ -2912,6 +2912,28 @@ abstract class AbstractTaskManagerTest {
         assertEquals(TaskStatus.NEW, actualStatus, "wrong epic status");
     }
 
+    @Test
+    public void shouldUpdateEpicWhenSavedSubtaskModifiedAndUpdated() {
+        final long epicId = manager.createEpic(testEpic).getId();
+        manager.createSubtask(fromTestSubtask(epicId).withStatus(TaskStatus.NEW).build());
+        final long subtaskId = manager.createSubtask(fromModifiedSubtask(epicId).withStatus(TaskStatus.NEW).build())
+                .getId();
+        final Subtask subtask = manager.getSubtaskById(subtaskId).orElseThrow();
+        subtask.setStatus(TaskStatus.DONE);
+        subtask.setDuration(null);
+        subtask.setStartTime(null);
+
+        manager.updateSubtask(subtask);
+        final Epic epic = manager.getEpicById(epicId).orElseThrow();
+
+        assertAll("wrong epic aggregates",
+                () -> assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "wrong epic status"),
+                () -> assertEquals(TEST_DURATION, epic.getDuration(), "wrong epic duration"),
+                () -> assertEquals(TEST_START_TIME, epic.getStartTime(), "wrong epic start time"),
+                () -> assertEquals(TEST_END_TIME, epic.getEndTime(), "wrong epic end time")
+        );
+    }
+
     @Test
     public void shouldNotGetEpicSubtasksWhenEpicNotExist() {
         final long epicId = -1L;
@@ -3243,4 +3265,37 @@ abstract class AbstractTaskManagerTest {
 
         assertTrue(tasks.isEmpty(), "subtasks should be removed from history");
     }
+
+    @Test
+    public void shouldCreateAllTasksOfBatch() {
+        final long epicId = manager.createEpic(testEpic).getId();
+        final Subtask subtask = fromTestSubtask(epicId).build();
+
+        final List<Task> created = manager.createAll(List.of(modifiedTask, modifiedEpic, subtask));
+
+        assertAll("batch not created",
+                () -> assertListEquals(List.of(modifiedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertEquals(List.of(epicId, modifiedEpic.getId()), manager.getEpics().stream()
+                        .map(Task::getId).toList(), "wrong epics"),
+                () -> assertListEquals(List.of(subtask), manager.getEpicSubtasks(epicId), "wrong subtasks"),
+                () -> assertEquals(3, created.size(), "wrong created tasks")
+        );
+    }
+
+    @Test
+    public void shouldCreateNothingOfBatchWhenAnyTaskRejected() {
+        final long epicId = manager.createEpic(testEpic).getId();
+        final Subtask subtask = fromTestSubtask(epicId).withStatus(null).build();
+        final List<Task> batch = List.of(testTask, modifiedEpic, fromTestSubtask(epicId).withId(null)
+                .withDuration(null).withStartTime(null).build(), subtask);
+
+        assertThrows(ManagerValidationException.class, () -> manager.createAll(batch));
+        assertAll("batch partially created",
+                () -> assertTrue(manager.getTasks().isEmpty(), "tasks should not be created"),
+                () -> assertEquals(List.of(epicId), manager.getEpics().stream().map(Task::getId).toList(),
+                        "epics should not be created"),
+                () -> assertTrue(manager.getSubtasks().isEmpty(), "subtasks should not be created"),
+                () -> assertTrue(manager.getPrioritizedTasks().isEmpty(), "tasks should not be prioritized")
+        );
+    }
 }
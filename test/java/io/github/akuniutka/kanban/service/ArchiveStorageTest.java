@@ -0,0 +1,180 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerValidationException;
+import io.github.akuniutka.kanban.exception.TaskOverlapException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveStorageTest extends AbstractTaskManagerTest {
+    private final Path path;
+    private final StorageOptions archiveAtOnce;
+    private FileBackedTaskManager archivingManager;
+
+    public ArchiveStorageTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        final StorageOptions options = StorageOptions.builder().withArchiveAge(Duration.ofDays(1L)).build();
+        this.manager = FileBackedTaskManager.loadFromFile(this.path, this.historyManager, options);
+        this.archiveAtOnce = StorageOptions.builder().withArchiveAge(Duration.ZERO).build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ((FileBackedTaskManager) manager).close();
+        if (archivingManager != null) {
+            archivingManager.close();
+        }
+    }
+
+    @Test
+    public void shouldMoveDoneTaskToArchiveAndFetchById() {
+        openArchivingManager();
+        final long taskId = archivingManager.createTask(fromTestTask().withId(null).withStatus(TaskStatus.DONE)
+                .build()).getId();
+        final Task expectedTask = fromTestTask().withId(taskId).withStatus(TaskStatus.DONE).build();
+
+        assertAll("task not archived",
+                () -> assertTrue(archivingManager.getTasks().isEmpty(), "archived task should not be hot"),
+                () -> assertTrue(archivingManager.getPrioritizedTasks().isEmpty(),
+                        "archived task should not be prioritized"),
+                () -> assertTaskEquals(expectedTask, archivingManager.getTaskById(taskId).orElseThrow(),
+                        "wrong archived task"),
+                () -> assertListEquals(List.of(expectedTask), archivingManager.getArchivedTasks(),
+                        "wrong archived tasks")
+        );
+    }
+
+    @Test
+    public void shouldMoveWholeEpicToArchiveWhenAllSubtasksDone() {
+        openArchivingManager();
+        final long epicId = archivingManager.createEpic(fromTestEpic().withId(null).build()).getId();
+        final long subtaskId = archivingManager.createSubtask(fromTestSubtask(epicId).withId(null)
+                .withStatus(TaskStatus.DONE).build()).getId();
+        final Epic expectedEpic = fromTestEpic().withId(epicId).withSubtaskIds(List.of(subtaskId))
+                .withDuration(TEST_DURATION).withStartTime(TEST_START_TIME).withEndTime(TEST_END_TIME)
+                .withStatus(TaskStatus.DONE).build();
+        final Subtask expectedSubtask = fromTestSubtask(epicId).withId(subtaskId).withStatus(TaskStatus.DONE).build();
+
+        assertAll("epic not archived",
+                () -> assertTrue(archivingManager.getEpics().isEmpty(), "archived epic should not be hot"),
+                () -> assertTrue(archivingManager.getSubtasks().isEmpty(), "archived subtask should not be hot"),
+                () -> assertTaskEquals(expectedEpic, archivingManager.getEpicById(epicId).orElseThrow(),
+                        "wrong archived epic"),
+                () -> assertListEquals(List.of(expectedSubtask), archivingManager.getEpicSubtasks(epicId),
+                        "wrong archived subtasks")
+        );
+    }
+
+    @Test
+    public void shouldIterateArchivedEpicAndSubtasksInArchiveOrder() {
+        openArchivingManager();
+        final long epicId = archivingManager.createEpic(fromTestEpic().withId(null).build()).getId();
+        final long subtaskId = archivingManager.createSubtask(fromTestSubtask(epicId).withId(null)
+                .withStatus(TaskStatus.DONE).build()).getId();
+        final Epic expectedEpic = fromTestEpic().withId(epicId).withSubtaskIds(List.of(subtaskId))
+                .withDuration(TEST_DURATION).withStartTime(TEST_START_TIME).withEndTime(TEST_END_TIME)
+                .withStatus(TaskStatus.DONE).build();
+        final Subtask expectedSubtask = fromTestSubtask(epicId).withId(subtaskId).withStatus(TaskStatus.DONE).build();
+
+        final Iterable<Task> archivedTasks = archivingManager.iterateArchivedTasks();
+        archivingManager.deleteEpics();
+        final List<Task> actualTasks = new ArrayList<>();
+        archivedTasks.forEach(actualTasks::add);
+
+        assertListEquals(List.of(expectedEpic, expectedSubtask), actualTasks, "wrong archived tasks");
+    }
+
+    @Test
+    public void shouldRestoreArchivedTaskWhenUpdated() {
+        openArchivingManager();
+        final long taskId = archivingManager.createTask(fromTestTask().withId(null).withStatus(TaskStatus.DONE)
+                .build()).getId();
+
+        archivingManager.updateTask(fromModifiedTask().withId(taskId).withStatus(TaskStatus.NEW).build());
+
+        final Task expectedTask = fromModifiedTask().withId(taskId).withStatus(TaskStatus.NEW).build();
+        assertAll("task not restored",
+                () -> assertListEquals(List.of(expectedTask), archivingManager.getTasks(), "wrong hot tasks"),
+                () -> assertTrue(archivingManager.getArchivedTasks().isEmpty(), "task should leave archive")
+        );
+    }
+
+    @Test
+    public void shouldNotRestoreArchivedEpicWhenUpdateTaskWithItsId() {
+        openArchivingManager();
+        final long epicId = archivingManager.createEpic(fromTestEpic().withId(null).build()).getId();
+        archivingManager.createSubtask(fromTestSubtask(epicId).withId(null).withStatus(TaskStatus.DONE).build());
+        final Task task = fromModifiedTask().withId(epicId).build();
+
+        final Exception exception = assertThrows(ManagerValidationException.class,
+                () -> archivingManager.updateTask(task));
+        assertAll("archived epic restored",
+                () -> assertEquals("wrong task type", exception.getMessage(), WRONG_EXCEPTION_MESSAGE),
+                () -> assertTrue(archivingManager.getEpics().isEmpty(), "archived epic should not be hot"),
+                () -> assertTrue(archivingManager.getTasks().isEmpty(), "task should not be created"),
+                () -> assertEquals(2, archivingManager.getArchivedTasks().size(), "wrong archived tasks")
+        );
+    }
+
+    @Test
+    public void shouldKeepArchiveAndNotReuseIdsWhenLoadFromFile() {
+        openArchivingManager();
+        final long taskId = archivingManager.createTask(fromEmptyTask().withStatus(TaskStatus.DONE).build())
+                .getId();
+        archivingManager.close();
+
+        openArchivingManager();
+        final long newTaskId = archivingManager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build())
+                .getId();
+
+        assertAll("archive not restored",
+                () -> assertEquals(List.of(taskId), archivingManager.getArchivedTasks().stream().map(Task::getId)
+                        .toList(), "wrong archived tasks"),
+                () -> assertEquals(List.of(newTaskId), archivingManager.getTasks().stream().map(Task::getId)
+                        .toList(), "wrong hot tasks"),
+                () -> assertTrue(newTaskId > taskId, "archived id reused")
+        );
+    }
+
+    @Test
+    public void shouldNotCreateTaskWhenOverlapsArchivedTask() {
+        openArchivingManager();
+        archivingManager.createTask(fromTestTask().withId(null).withStatus(TaskStatus.DONE).build());
+        final Task task = fromTestTask().withId(null).withStatus(TaskStatus.NEW).build();
+
+        final Exception exception = assertThrows(TaskOverlapException.class, () -> archivingManager.createTask(task));
+        assertEquals("conflict with another task for time slot", exception.getMessage(), WRONG_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    public void shouldDeleteArchivedTasksWhenDeleteTasks() {
+        openArchivingManager();
+        final long taskId = archivingManager.createTask(fromEmptyTask().withStatus(TaskStatus.DONE).build())
+                .getId();
+
+        archivingManager.deleteTasks();
+
+        assertAll("archived task not deleted",
+                () -> assertTrue(archivingManager.getTaskById(taskId).isEmpty(), "task should be deleted"),
+                () -> assertTrue(archivingManager.getArchivedTasks().isEmpty(), "archive should be empty")
+        );
+    }
+
+    private void openArchivingManager() {
+        archivingManager = FileBackedTaskManager.loadFromFile(path.resolveSibling(path.getFileName() + ".hot"),
+                historyManager, archiveAtOnce);
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BTreeTaskManagerTest extends AbstractTaskManagerTest {
+    private static final int POOL_SIZE = 16;
+    private final Path path;
+    private final StorageOptions options;
+
+    public BTreeTaskManagerTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.options = StorageOptions.builder().withPageSize(512).withBufferPoolSize(POOL_SIZE).build();
+        this.manager = BTreeTaskManager.open(this.path, this.historyManager, this.options);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ((BTreeTaskManager) manager).close();
+    }
+
+    @Test
+    public void shouldRestoreStateWhenOpenExistingFile() {
+        final long taskId = manager.createTask(testTask).getId();
+        final long epicId = manager.createEpic(testEpic).getId();
+        final long subtaskAId = manager.createSubtask(fromTestSubtask(epicId).withDuration(null)
+                .withStartTime(null).build()).getId();
+        final long subtaskBId = manager.createSubtask(fromModifiedSubtask(epicId).build()).getId();
+        manager.updateTask(fromModifiedTask().withId(taskId).withStartTime(TEST_START_TIME).build());
+        manager.deleteSubtask(subtaskAId);
+        ((BTreeTaskManager) manager).close();
+
+        manager = BTreeTaskManager.open(path, historyManager, options);
+
+        final Task expectedTask = fromModifiedTask().withId(taskId).withStartTime(TEST_START_TIME).build();
+        final Epic expectedEpic = fromTestEpic().withId(epicId).withSubtaskIds(List.of(subtaskBId))
+                .withDuration(MODIFIED_DURATION).withStartTime(MODIFIED_START_TIME).withEndTime(MODIFIED_END_TIME)
+                .withStatus(MODIFIED_STATUS).build();
+        final Subtask expectedSubtask = fromModifiedSubtask(epicId).withId(subtaskBId).build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertListEquals(List.of(expectedEpic), manager.getEpics(), "wrong epics"),
+                () -> assertListEquals(List.of(expectedSubtask), manager.getSubtasks(), "wrong subtasks"),
+                () -> assertListEquals(List.of(expectedTask, expectedSubtask), manager.getPrioritizedTasks(),
+                        "wrong prioritized tasks"),
+                () -> assertEquals(subtaskBId + 1L, manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW)
+                        .build()).getId(), "wrong next id")
+        );
+    }
+
+    @Test
+    public void shouldServeTasksBeyondBufferPoolWhenManyTasks() {
+        final int count = 5_000;
+        for (int i = count - 1; i >= 0; i--) {
+            manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).withDuration(Duration.ofMinutes(1L))
+                    .withStartTime(TEST_START_TIME.plusMinutes(i)).build());
+        }
+        ((BTreeTaskManager) manager).close();
+
+        manager = BTreeTaskManager.open(path, historyManager, options);
+
+        final List<Long> expectedIds = LongStream.range(0L, count).map(i -> count - 1L - i).boxed().toList();
+        assertAll("wrong tasks",
+                () -> assertEquals(expectedIds, manager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                        "wrong prioritized tasks"),
+                () -> assertEquals(TEST_START_TIME.plusMinutes(10L), manager.getTaskById(count - 11L)
+                        .orElseThrow().getStartTime(), "wrong task"),
+                () -> assertTrue(((BTreeTaskManager) manager).getCachedPages() <= POOL_SIZE,
+                        "buffer pool exceeds its size")
+        );
+    }
+
+    @Test
+    public void shouldReusePagesWhenTasksDeleted() throws IOException {
+        createTasks(2_000);
+        manager.deleteTasks();
+        final long fileSize = Files.size(path);
+
+        createTasks(2_000);
+
+        assertAll("pages not reused",
+                () -> assertEquals(2_000, manager.getTasks().size(), "wrong number of tasks"),
+                () -> assertTrue(Files.size(path) <= fileSize, "file grew after deleting tasks")
+        );
+    }
+
+    @Test
+    public void shouldStoreDescriptionInOverflowPagesWhenLongerThanPage() {
+        final String description = "x".repeat(10_000);
+        final long taskId = manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW)
+                .withDescription(description).build()).getId();
+        ((BTreeTaskManager) manager).close();
+
+        manager = BTreeTaskManager.open(path, historyManager, options);
+
+        assertEquals(description, manager.getTaskById(taskId).orElseThrow().getDescription(), "wrong description");
+    }
+
+    @Test
+    public void shouldUpdateEpicFromItsRecordWhenSubtaskDeletedAfterReopen() {
+        final long epicId = manager.createEpic(testEpic).getId();
+        final long subtaskAId = manager.createSubtask(fromTestSubtask(epicId).build()).getId();
+        final long subtaskBId = manager.createSubtask(fromModifiedSubtask(epicId).build()).getId();
+        ((BTreeTaskManager) manager).close();
+        manager = BTreeTaskManager.open(path, historyManager, options);
+
+        manager.updateEpic(fromModifiedEpic().withId(epicId).build());
+        manager.deleteSubtask(subtaskAId);
+
+        final Epic expectedEpic = fromModifiedEpic().withId(epicId).withSubtaskIds(List.of(subtaskBId))
+                .withDuration(MODIFIED_DURATION).withStartTime(MODIFIED_START_TIME).withEndTime(MODIFIED_END_TIME)
+                .withStatus(MODIFIED_STATUS).build();
+        assertTaskEquals(expectedEpic, manager.getEpicById(epicId).orElseThrow(), "wrong epic");
+    }
+
+    @Test
+    public void shouldRollBackInterruptedWriteWhenOpen() throws IOException {
+        final long taskId = manager.createTask(testTask).getId();
+        ((BTreeTaskManager) manager).close();
+        final byte[] committed = Files.readAllBytes(path);
+        manager = BTreeTaskManager.open(path, historyManager, options);
+        createTasks(500);
+        ((BTreeTaskManager) manager).close();
+        // what a crash leaves: the journal of the committed pages and a half-written store
+        final ByteBuffer journal = ByteBuffer.allocate(12 + committed.length / 512 * (4 + 512))
+                .putInt(0x4B424A4C).putInt(512).putInt(committed.length / 512);
+        for (int page = 0; page < committed.length / 512; page++) {
+            journal.putInt(page).put(committed, page * 512, 512);
+        }
+        Files.write(path.resolveSibling(path.getFileName() + ".journal"), journal.array());
+        final byte[] interrupted = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(interrupted, interrupted.length / 2));
+
+        manager = BTreeTaskManager.open(path, historyManager, options);
+
+        final Task expectedTask = fromTestTask().withId(taskId).build();
+        assertAll("interrupted write not rolled back",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertEquals(committed.length, Files.size(path), "wrong file size")
+        );
+    }
+
+    @Test
+    public void shouldThrowWhenFileIsNotPagedStore() throws IOException {
+        final Path csvPath = Files.createTempFile("kanban", null);
+        Files.writeString(csvPath, "id,type,name,status,description,duration,start,epic\n",
+                StandardCharsets.UTF_8);
+
+        final Exception exception = assertThrows(ManagerLoadException.class,
+                () -> BTreeTaskManager.open(csvPath, historyManager, options));
+        assertEquals("wrong file format, expected paged task store", exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    public void shouldThrowWhenPageSizeIsNotPowerOfTwo() {
+        final Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> StorageOptions.builder().withPageSize(1000));
+        assertEquals("page size must be a power of two from 512 to 65536", exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+    }
+
+    private void createTasks(int count) {
+        for (int i = 0; i < count; i++) {
+            manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).withTitle("Title " + i).build());
+        }
+    }
+}
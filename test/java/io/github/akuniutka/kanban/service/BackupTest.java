@@ -0,0 +1,122 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackupTest {
+    private final Path path;
+    private final Path backupPath;
+
+    public BackupTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.backupPath = Files.createTempFile("kanban", ".backup");
+    }
+
+    @Test
+    public void shouldCopyJournalFileWhenBackupInJournalMode() throws IOException {
+        final StorageOptions options = StorageOptions.builder().withMode(StorageMode.JOURNAL).build();
+        final List<Task> expectedTasks;
+        try (FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(path, new InMemoryHistoryManager(),
+                options)) {
+            manager.createTask(fromTestTask().withId(null).build());
+            manager.createEpic(fromTestEpic().withId(null).build());
+            expectedTasks = manager.snapshot();
+
+            backup(manager);
+        }
+
+        assertAll("wrong backup",
+                () -> assertArrayEquals(Files.readAllBytes(path), Files.readAllBytes(backupPath),
+                        "backup should be copy of journal"),
+                () -> assertEquals(expectedTasks, load(options), "wrong tasks in backup")
+        );
+    }
+
+    @Test
+    public void shouldWriteSnapshotFromMemoryWhenBackupInSnapshotMode() throws IOException {
+        final StorageOptions options = StorageOptions.defaults();
+        try (FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(path, new InMemoryHistoryManager(),
+                options)) {
+            manager.createTask(fromTestTask().withId(null).build());
+            final long epicId = manager.createEpic(fromTestEpic().withId(null).build()).getId();
+            manager.createSubtask(fromEmptySubtask(epicId).build());
+
+            backup(manager);
+
+            assertEquals(manager.snapshot(), load(options), "wrong tasks in backup");
+        }
+    }
+
+    @Test
+    public void shouldWriteConsistentBackupWhileWritersRun() throws Exception {
+        final StorageOptions options = StorageOptions.builder().withMode(StorageMode.JOURNAL)
+                .withJournalCompactionThreshold(4096L).build();
+        final AtomicBoolean isRunning = new AtomicBoolean(true);
+        try (FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(path, new InMemoryHistoryManager(),
+                options)) {
+            final Thread writer = new Thread(() -> {
+                for (int i = 0; i < 5000 && isRunning.get(); i++) {
+                    final long id = manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId();
+                    if (id % 3L == 0L) {
+                        manager.deleteTask(id);
+                    }
+                }
+            });
+            writer.start();
+            final List<Integer> sizes = new ArrayList<>();
+            try {
+                for (int i = 0; i < 20; i++) {
+                    backup(manager);
+                    sizes.add(load(options).size());
+                }
+            } finally {
+                isRunning.set(false);
+                writer.join();
+            }
+
+            assertEquals(20, sizes.size(), "every backup should load");
+        }
+    }
+
+    @Test
+    public void shouldNotSupportBackupWhenInMemoryManager() {
+        final TaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+
+        assertFalse(manager instanceof BackupCapable, "in-memory manager should not support backup");
+    }
+
+    private void backup(BackupCapable manager) throws IOException {
+        try (FileChannel channel = FileChannel.open(backupPath, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            manager.backup(channel);
+        }
+    }
+
+    private List<Task> load(StorageOptions options) {
+        final Path copyPath = backupPath.resolveSibling(backupPath.getFileName() + ".copy");
+        try {
+            Files.copy(backupPath, copyPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        try (FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(copyPath,
+                new InMemoryHistoryManager(), options)) {
+            return manager.snapshot();
+        }
+    }
+}
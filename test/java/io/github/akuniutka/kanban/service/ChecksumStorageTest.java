@@ -0,0 +1,158 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumStorageTest extends AbstractTaskManagerTest {
+    private static final String WRONG_FILE_FORMAT = "wrong file format";
+    private static final String HEADER = "id,type,name,status,description,duration,start,epic,crc32c\n";
+    private static final String TASK_1 = "1,TASK,null,NEW,null,null,null,";
+    private static final String TASK_2 = "2,TASK,null,DONE,null,null,null,";
+    private static final String TASK_3 = "3,TASK,null,NEW,null,null,null,";
+    private final Path path;
+    private final StorageOptions options;
+
+    public ChecksumStorageTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.options = StorageOptions.builder().withChecksums(true).build();
+        this.manager = FileBackedTaskManager.loadFromFile(this.path, this.historyManager, this.options);
+    }
+
+    @Test
+    public void shouldWriteChecksumForEachRecord() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+
+        final String expected = HEADER + withChecksum("%d,TASK,null,NEW,null,null,null,".formatted(taskId));
+        assertEquals(expected, Files.readString(path), WRONG_FILE_FORMAT);
+    }
+
+    @Test
+    public void shouldThrowWithCorruptRangesWhenLoadCorruptedFile() throws IOException {
+        final String corruptLine = withChecksum(TASK_2).replace("DONE", "NEW_");
+        Files.writeString(path, HEADER + withChecksum(TASK_1) + corruptLine + withChecksum(TASK_3),
+                StandardCharsets.UTF_8);
+        final long start = HEADER.length() + withChecksum(TASK_1).length();
+        final long end = start + corruptLine.length();
+
+        final Exception exception = assertThrows(ManagerLoadException.class,
+                () -> FileBackedTaskManager.loadFromFile(path, historyManager, options));
+        assertEquals("file \"%s\" is corrupted at bytes %d-%d, valid prefix of 1 records (%d bytes)"
+                .formatted(path, start, end, start), exception.getMessage(), WRONG_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    public void shouldLoadValidPrefixWhenRecoveryEnabled() throws IOException {
+        final String corruptFile = HEADER + withChecksum(TASK_1) + withChecksum(TASK_2).replace("DONE", "NEW_")
+                + withChecksum(TASK_3);
+        Files.writeString(path, corruptFile, StandardCharsets.UTF_8);
+        final StorageOptions recovery = StorageOptions.builder().withChecksums(true).withValidPrefixRecovery(true)
+                .build();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, recovery);
+
+        final Path corruptPath = path.resolveSibling(path.getFileName() + ".corrupt");
+        final long start = HEADER.length() + withChecksum(TASK_1).length();
+        final long end = start + withChecksum(TASK_2).length();
+        final String expectedAction = ("file \"%s\" is corrupted at bytes %d-%d, valid prefix of 1 records (%d bytes),"
+                + " loaded valid prefix, original saved to \"%s\"").formatted(path, start, end, start, corruptPath);
+        assertAll("valid prefix not loaded",
+                () -> assertEquals(List.of(1L), manager.getTasks().stream().map(Task::getId).toList(),
+                        "wrong tasks"),
+                () -> assertEquals(HEADER + withChecksum(TASK_1), Files.readString(path), WRONG_FILE_FORMAT),
+                () -> assertEquals(corruptFile, Files.readString(corruptPath), "corrupt file not kept"),
+                () -> assertEquals(List.of(expectedAction), ((FileBackedTaskManager) manager).getRecoveryActions(),
+                        "recovery not reported")
+        );
+    }
+
+    @Test
+    public void shouldIgnoreTornLastRecordWhenLoadFromFile() throws IOException {
+        final String tornLine = withChecksum(TASK_3).substring(0, TASK_3.length() + 3);
+        Files.writeString(path, HEADER + withChecksum(TASK_1) + withChecksum(TASK_2) + tornLine,
+                StandardCharsets.UTF_8);
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        assertEquals(List.of(1L, 2L), manager.getTasks().stream().map(Task::getId).sorted().toList(),
+                "wrong tasks");
+    }
+
+    @Test
+    public void shouldReportAllCorruptRangesWhenScan() throws IOException {
+        final String corruptLine1 = withChecksum(TASK_1).replace("NEW", "OLD");
+        final String corruptLine3 = withChecksum(TASK_3).replace("NEW", "OLD");
+        Files.writeString(path, HEADER + corruptLine1 + withChecksum(TASK_2) + corruptLine3,
+                StandardCharsets.UTF_8);
+        final long start1 = HEADER.length();
+        final long start3 = start1 + corruptLine1.length() + withChecksum(TASK_2).length();
+
+        final ScanReport report = FileBackedTaskManager.scan(path);
+
+        assertEquals(new ScanReport(true, 0L, HEADER.length(), List.of(
+                new ScanReport.ByteRange(start1, start1 + corruptLine1.length()),
+                new ScanReport.ByteRange(start3, start3 + corruptLine3.length()))), report, "wrong scan report");
+    }
+
+    @Test
+    public void shouldReportNoChecksumsWhenScanPlainFile() throws IOException {
+        Files.writeString(path, "id,type,name,status,description,duration,start,epic\n" + TASK_1 + "\n",
+                StandardCharsets.UTF_8);
+
+        final ScanReport report = FileBackedTaskManager.scan(path);
+
+        assertAll("wrong scan report",
+                () -> assertFalse(report.hasChecksums(), "file should have no checksums"),
+                () -> assertTrue(report.isClean(), "file should be clean")
+        );
+    }
+
+    @Test
+    public void shouldRestoreJournalWithChecksumsWhenLoadFromFile() throws IOException {
+        final StorageOptions journal = StorageOptions.builder().withMode(StorageMode.JOURNAL).withChecksums(true)
+                .withJournalCompactionThreshold(0L).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, journal);
+        final long taskId = manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId();
+        manager.updateTask(fromEmptyTask().withId(taskId).withStatus(TaskStatus.DONE).build());
+        ((FileBackedTaskManager) manager).close();
+
+        final ScanReport report = FileBackedTaskManager.scan(path);
+        final long fileSize = Files.size(path);
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, journal);
+
+        assertAll("journal restored with errors",
+                () -> assertEquals(new ScanReport(true, 2L, fileSize, List.of()), report,
+                        "wrong scan report"),
+                () -> assertEquals(TaskStatus.DONE, manager.getTaskById(taskId).orElseThrow().getStatus(),
+                        "wrong task status")
+        );
+    }
+
+    @Test
+    public void shouldThrowWhenChecksumsWithBinaryFormat() {
+        final StorageOptions.Builder builder = StorageOptions.builder().withChecksums(true)
+                .withSnapshotFormat(SnapshotFormat.BINARY);
+
+        final Exception exception = assertThrows(IllegalArgumentException.class, builder::build);
+        assertEquals("checksums are not supported in binary snapshot format", exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+    }
+
+    private static String withChecksum(String record) {
+        final CRC32C crc = new CRC32C();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return record + "," + HexFormat.of().toHexDigits((int) crc.getValue()) + System.lineSeparator();
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedSnapshotStorageTest extends AbstractTaskManagerTest {
+    private static final String WRONG_FILE_FORMAT = "wrong file format";
+    private static final String HEADER = "id,type,name,status,description,duration,start,epic\n";
+    private final Path path;
+    private final StorageOptions options;
+
+    public CompressedSnapshotStorageTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.options = StorageOptions.builder().withCompression(true).build();
+        this.manager = FileBackedTaskManager.loadFromFile(this.path, this.historyManager, this.options);
+    }
+
+    @Test
+    public void shouldWriteGzippedCSVWhenSave() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+
+        final String expectedString = HEADER + """
+                %d,TASK,null,NEW,null,null,null,
+                """.formatted(taskId);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            assertEquals(expectedString, new String(in.readAllBytes(), StandardCharsets.UTF_8), WRONG_FILE_FORMAT);
+        }
+    }
+
+    @Test
+    public void shouldRestoreStateWhenLoadFromFile() {
+        final long taskId = manager.createTask(testTask).getId();
+        final long epicId = manager.createEpic(testEpic).getId();
+        final long subtaskId = manager.createSubtask(fromModifiedSubtask(epicId).build()).getId();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final Task expectedTask = fromTestTask().withId(taskId).build();
+        final Epic expectedEpic = fromTestEpic().withId(epicId).withSubtaskIds(List.of(subtaskId))
+                .withDuration(MODIFIED_DURATION).withStartTime(MODIFIED_START_TIME).withEndTime(MODIFIED_END_TIME)
+                .withStatus(MODIFIED_STATUS).build();
+        final Subtask expectedSubtask = fromModifiedSubtask(epicId).withId(subtaskId).build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertListEquals(List.of(expectedEpic), manager.getEpics(), "wrong epics"),
+                () -> assertListEquals(List.of(expectedSubtask), manager.getSubtasks(), "wrong subtasks")
+        );
+    }
+
+    @Test
+    public void shouldDetectCompressedFileWhenConfiguredWithoutCompression() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager);
+
+        final String expectedString = HEADER + """
+                %d,TASK,null,NEW,null,null,null,
+                """.formatted(taskId);
+        assertEquals(expectedString, Files.readString(path), WRONG_FILE_FORMAT);
+    }
+
+    @Test
+    public void shouldRestoreStateWhenLoadCompressedBinaryFile() {
+        final StorageOptions binaryOptions = StorageOptions.builder().withSnapshotFormat(SnapshotFormat.BINARY)
+                .withCompression(true).withCompressionLevel(9).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, binaryOptions);
+        final long taskId = manager.createTask(testTask).getId();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager);
+
+        final Task expectedTask = fromTestTask().withId(taskId).build();
+        assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks");
+    }
+
+    @Test
+    public void shouldThrowWhenCompressedFileTruncated() throws IOException {
+        manager.createTask(testTask);
+        final byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(ManagerLoadException.class,
+                () -> FileBackedTaskManager.loadFromFile(path, historyManager, options));
+    }
+
+    @Test
+    public void shouldThrowWhenCompressionLevelOutOfRange() {
+        final StorageOptions.Builder builder = StorageOptions.builder();
+
+        final Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> builder.withCompressionLevel(10));
+        assertEquals("compression level must be from 0 to 9", exception.getMessage(), WRONG_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    public void shouldThrowWhenCompressionInJournalMode() {
+        final StorageOptions.Builder builder = StorageOptions.builder().withMode(StorageMode.JOURNAL)
+                .withCompression(true);
+
+        final Exception exception = assertThrows(IllegalArgumentException.class, builder::build);
+        assertEquals("compression is not supported in JOURNAL mode", exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+    }
+}
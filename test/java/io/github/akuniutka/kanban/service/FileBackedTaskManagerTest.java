@@ -1969,6 +1969,195 @@ class FileBackedTaskManagerTest extends AbstractTaskManagerTest {
         assertEquals(expectedString, actualString, WRONG_FILE_FORMAT);
     }
 
+    @Test
+    public void shouldReportProgressWhenLoadFromFile() throws IOException {
+        fillTestFileWithData("""
+                id,type,name,status,description,duration,start,epic
+                1,TASK,"Title",NEW,"Description",null,null,
+                2,EPIC,"Title",,"Description",,,
+                3,SUBTASK,"Title",DONE,"Description",null,null,2
+                """);
+        final long[] reported = new long[3];
+        final StorageOptions options = StorageOptions.builder()
+                .withLoadProgressListener((records, bytesRead, totalBytes, elapsed) -> {
+                    reported[0] = records;
+                    reported[1] = bytesRead;
+                    reported[2] = totalBytes;
+                })
+                .build();
+
+        FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final long fileSize = Files.size(path);
+        assertArrayEquals(new long[]{3L, fileSize, fileSize}, reported, "wrong progress reported");
+    }
+
+    @Test
+    public void shouldLoadSameStateAsCreatedWhenEpicHasManySubtasks() {
+        final long epicId = manager.createEpic(testEpic).getId();
+        for (int i = 0; i < 2_000; i++) {
+            manager.createSubtask(fromTestSubtask(epicId).withStatus(i % 2 == 0 ? TaskStatus.NEW : TaskStatus.DONE)
+                    .withStartTime(TEST_START_TIME.plusHours(i)).build());
+            manager.createTask(fromTestTask().withStartTime(TEST_START_TIME.minusHours(i + 1)).build());
+        }
+        final TaskManager expected = manager;
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager);
+
+        assertAll("state loaded with errors",
+                () -> assertListEquals(expected.getTasks(), manager.getTasks(), "wrong tasks"),
+                () -> assertListEquals(expected.getEpics(), manager.getEpics(), "wrong epics"),
+                () -> assertListEquals(expected.getSubtasks(), manager.getSubtasks(), "wrong subtasks"),
+                () -> assertListEquals(expected.getPrioritizedTasks(), manager.getPrioritizedTasks(),
+                        "wrong prioritized tasks"),
+                () -> assertEquals(expected.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId(),
+                        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId(),
+                        "wrong last used id")
+        );
+    }
+
+    @Test
+    public void shouldLoadSameStateWhenLoadInParallel() throws IOException {
+        final StringBuilder data = new StringBuilder("id,type,name,status,description,duration,start,epic\n");
+        for (int i = 1; i <= 30_000; i += 3) {
+            data.append("%d,TASK,\"Task %d\",NEW,\"Description\",30,%s,\n".formatted(i, i,
+                    TEST_START_TIME.plusHours(i)));
+            data.append("%d,EPIC,\"Epic %d\",,null,,,\n".formatted(i + 1, i + 1));
+            data.append("%d,SUBTASK,\"Subtask %d\",DONE,null,30,%s,%d\n".formatted(i + 2, i + 2,
+                    TEST_START_TIME.plusHours(i + 1), i + 1));
+        }
+        fillTestFileWithData(data.toString());
+        final StorageOptions parallelOptions = StorageOptions.builder().withLoadParallelism(4).build();
+
+        final TaskManager expected = FileBackedTaskManager.loadFromFile(path, historyManager);
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, parallelOptions);
+
+        assertAll("state loaded with errors",
+                () -> assertListEquals(expected.getTasks(), manager.getTasks(), "wrong tasks"),
+                () -> assertListEquals(expected.getEpics(), manager.getEpics(), "wrong epics"),
+                () -> assertListEquals(expected.getSubtasks(), manager.getSubtasks(), "wrong subtasks"),
+                () -> assertListEquals(expected.getPrioritizedTasks(), manager.getPrioritizedTasks(),
+                        "wrong prioritized tasks")
+        );
+    }
+
+    @Test
+    public void shouldLoadSubtaskBeforeEpicWhenLoadInParallel() throws IOException {
+        fillTestFileWithData("""
+                id,type,name,status,description,duration,start,epic
+                2,SUBTASK,"Title",DONE,"Description",null,null,1
+                1,EPIC,"Title",,"Description",,,
+                """);
+        final StorageOptions parallelOptions = StorageOptions.builder().withLoadParallelism(2).build();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, parallelOptions);
+
+        assertEquals(List.of(2L), manager.getEpicSubtasks(1L).stream().map(Task::getId).toList(),
+                "wrong epic subtasks");
+    }
+
+    @Test
+    public void shouldThrowSameExceptionWhenLoadInParallel() throws IOException {
+        fillTestFileWithData("""
+                id,type,name,status,description,duration,start,epic
+                1,TASK,"Title",NEW,"Description",null,null,
+                2,UNKNOWN,"Title",NEW,"Description",null,null,
+                """);
+        final StorageOptions parallelOptions = StorageOptions.builder().withLoadParallelism(2).build();
+
+        final Exception exception = assertThrows(ManagerLoadException.class,
+                () -> FileBackedTaskManager.loadFromFile(path, historyManager, parallelOptions));
+        assertEquals("unknown task type for id=2", exception.getMessage(), WRONG_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    public void shouldReplaceFileAndLeaveNoTemporaryFileWhenAtomicSave() throws IOException {
+        final StorageOptions atomicOptions = StorageOptions.builder().withAtomicSave(true).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, atomicOptions);
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        final long taskId = manager.createTask(emptyTask).getId();
+
+        final String expectedString = """
+                id,type,name,status,description,duration,start,epic
+                %d,TASK,null,NEW,null,null,null,
+                """.formatted(taskId);
+        assertAll("file saved with errors",
+                () -> assertEquals(expectedString, Files.readString(path), WRONG_FILE_FORMAT),
+                () -> assertFalse(Files.exists(tmpPath), "temporary file should be deleted")
+        );
+    }
+
+    @Test
+    public void shouldKeepFileAndDeleteIncompleteTemporaryFileWhenAtomicSave() throws IOException {
+        fillTestFileWithData("""
+                id,type,name,status,description,duration,start,epic
+                1,TASK,"Title",NEW,"Description",null,null,
+                """);
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmpPath, """
+                id,type,name,status,description,duration,start,epic
+                1,TASK,"Title",DONE,"Descr\
+                """, StandardCharsets.UTF_8);
+        final StorageOptions atomicOptions = StorageOptions.builder().withAtomicSave(true).build();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, atomicOptions);
+
+        final Task expectedTask = fromTestTask().withId(1L).withDuration(null).withStartTime(null)
+                .withStatus(TaskStatus.NEW).build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertFalse(Files.exists(tmpPath), "temporary file should be deleted")
+        );
+    }
+
+    @Test
+    public void shouldRecoverFromTemporaryFileWhenFileCorruptedAndAtomicSave() throws IOException {
+        fillTestFileWithData("""
+                id,type,name,status,description,duration,start,epic
+                1,TASK,"Title",NEW,"Descr\
+                """);
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmpPath, """
+                id,type,name,status,description,duration,start,epic
+                1,TASK,"Title",DONE,"Description",null,null,
+                """, StandardCharsets.UTF_8);
+        final StorageOptions atomicOptions = StorageOptions.builder().withAtomicSave(true).build();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, atomicOptions);
+
+        final Task expectedTask = fromTestTask().withId(1L).withDuration(null).withStartTime(null)
+                .withStatus(TaskStatus.DONE).build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertFalse(Files.exists(tmpPath), "temporary file should be deleted"),
+                () -> assertEquals(List.of("recovered from temporary file \"%s\"".formatted(tmpPath)),
+                        ((FileBackedTaskManager) manager).getRecoveryActions(), "recovery not reported")
+        );
+    }
+
+    @Test
+    public void shouldRecoverFromTemporaryFileWhenFileCorruptedAndDefaultOptions() throws IOException {
+        fillTestFileWithData("""
+                id,type,name,status,description,duration,start,epic
+                1,TASK,"Title",NEW,"Descr\
+                """);
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmpPath, """
+                id,type,name,status,description,duration,start,epic
+                1,TASK,"Title",DONE,"Description",null,null,
+                """, StandardCharsets.UTF_8);
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager);
+
+        final Task expectedTask = fromTestTask().withId(1L).withDuration(null).withStartTime(null)
+                .withStatus(TaskStatus.DONE).build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertFalse(Files.exists(tmpPath), "temporary file should be deleted")
+        );
+    }
+
     protected void fillTestFileWithData(String data) throws IOException {
         Files.writeString(path, data, StandardCharsets.UTF_8);
     }
@@ -0,0 +1,70 @@
+package io.github.akuniutka.kanban.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitTest {
+    private static final int WRITERS = 8;
+
+    @Test
+    public void shouldShareSingleForceWhenWritersInSameWindow() throws InterruptedException {
+        final GroupCommit groupCommit = new GroupCommit(Duration.ofSeconds(10L), WRITERS);
+        final AtomicInteger forces = new AtomicInteger();
+        final List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            writers.add(Thread.ofPlatform().start(() -> {
+                groupCommit.recordAppended();
+                try {
+                    groupCommit.awaitDurable(forces::incrementAndGet);
+                } catch (IOException exception) {
+                    fail(exception);
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(1, forces.get(), "writers in one window should share force");
+    }
+
+    @Test
+    public void shouldForceWhenWindowPassed() throws IOException {
+        final GroupCommit groupCommit = new GroupCommit(Duration.ofMillis(2L), WRITERS);
+        final AtomicInteger forces = new AtomicInteger();
+
+        groupCommit.recordAppended();
+        groupCommit.awaitDurable(forces::incrementAndGet);
+
+        assertEquals(1, forces.get(), "single writer should force after window");
+    }
+
+    @Test
+    public void shouldNotForceWhenAllRecordsDurable() throws IOException {
+        final GroupCommit groupCommit = new GroupCommit(Duration.ofSeconds(10L), WRITERS);
+        final AtomicInteger forces = new AtomicInteger();
+        groupCommit.recordAppended();
+
+        groupCommit.markAllDurable();
+        groupCommit.awaitDurable(forces::incrementAndGet);
+
+        assertEquals(0, forces.get(), "records already durable");
+    }
+
+    @Test
+    public void shouldThrowWhenForceFailed() {
+        final GroupCommit groupCommit = new GroupCommit(Duration.ZERO, WRITERS);
+        groupCommit.recordAppended();
+
+        assertThrows(IOException.class, () -> groupCommit.awaitDurable(() -> {
+            throw new IOException("disk failure");
+        }));
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.exception.TaskOverlapException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcTaskManagerTest extends AbstractTaskManagerTest {
+    private final String url;
+
+    public JdbcTaskManagerTest() throws IOException {
+        final Path path = Files.createTempDirectory("kanban").resolve("kanban");
+        this.url = "jdbc:h2:file:" + path.toAbsolutePath();
+        this.manager = JdbcTaskManager.open(this.url, this.historyManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (manager != null) {
+            ((JdbcTaskManager) manager).close();
+        }
+    }
+
+    @Test
+    public void shouldRestoreStateWhenOpenExistingDatabase() {
+        final long taskId = manager.createTask(testTask).getId();
+        final long epicId = manager.createEpic(testEpic).getId();
+        final long subtaskAId = manager.createSubtask(fromTestSubtask(epicId).withDuration(null)
+                .withStartTime(null).build()).getId();
+        final long subtaskBId = manager.createSubtask(fromModifiedSubtask(epicId).build()).getId();
+        manager.deleteSubtask(subtaskAId);
+        ((JdbcTaskManager) manager).close();
+
+        manager = Managers.getJdbc(url);
+
+        final Task expectedTask = fromTestTask().withId(taskId).build();
+        final Epic expectedEpic = fromTestEpic().withId(epicId).withSubtaskIds(List.of(subtaskBId))
+                .withDuration(MODIFIED_DURATION).withStartTime(MODIFIED_START_TIME).withEndTime(MODIFIED_END_TIME)
+                .withStatus(MODIFIED_STATUS).build();
+        final Subtask expectedSubtask = fromModifiedSubtask(epicId).withId(subtaskBId).build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertListEquals(List.of(expectedEpic), manager.getEpics(), "wrong epics"),
+                () -> assertListEquals(List.of(expectedSubtask), manager.getSubtasks(), "wrong subtasks"),
+                () -> assertEquals(subtaskBId + 1L, manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW)
+                        .build()).getId(), "wrong next id")
+        );
+    }
+
+    @Test
+    public void shouldReturnTasksStartingWithinRange() {
+        for (int i = 0; i < 10; i++) {
+            manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).withDuration(Duration.ofMinutes(1L))
+                    .withStartTime(TEST_START_TIME.plusMinutes(i)).build());
+        }
+
+        final List<Task> tasks = ((JdbcTaskManager) manager).getPrioritizedTasks(TEST_START_TIME.plusMinutes(3L),
+                TEST_START_TIME.plusMinutes(6L));
+
+        assertEquals(List.of(3L, 4L, 5L), tasks.stream().map(Task::getId).toList(), "wrong tasks in range");
+    }
+
+    @Test
+    public void shouldReturnTasksAndSubtasksWithStatus() {
+        final long taskId = manager.createTask(fromEmptyTask().withStatus(TaskStatus.DONE).build()).getId();
+        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+        final long epicId = manager.createEpic(fromEmptyEpic().build()).getId();
+        final long subtaskId = manager.createSubtask(fromEmptySubtask().withEpicId(epicId).withStatus(TaskStatus.DONE)
+                .build()).getId();
+
+        final List<Task> tasks = ((JdbcTaskManager) manager).getTasksByStatus(TaskStatus.DONE);
+
+        assertEquals(List.of(taskId, subtaskId), tasks.stream().map(Task::getId).toList(), "wrong tasks");
+    }
+
+    @Test
+    public void shouldNotKeepPartialChangesWhenTaskOverlaps() {
+        final long epicId = manager.createEpic(testEpic).getId();
+        manager.createTask(testTask);
+        final Subtask subtask = fromTestSubtask(epicId).withId(null).build();
+
+        assertThrows(TaskOverlapException.class, () -> manager.createSubtask(subtask));
+
+        assertAll("partial changes kept",
+                () -> assertTrue(manager.getSubtasks().isEmpty(), "subtask should not be saved"),
+                () -> assertEquals(TaskStatus.NEW, manager.getEpicById(epicId).orElseThrow().getStatus(),
+                        "epic should not be updated")
+        );
+    }
+
+    @Test
+    public void shouldThrowWhenNoDriverForUrl() {
+        final Exception exception = assertThrows(ManagerLoadException.class,
+                () -> Managers.getJdbc("jdbc:unknown:kanban"));
+        assertEquals("cannot load from database \"jdbc:unknown:kanban\"", exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+    }
+}
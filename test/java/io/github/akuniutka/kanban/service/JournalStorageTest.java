@@ -0,0 +1,291 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalStorageTest extends AbstractTaskManagerTest {
+    private static final String WRONG_FILE_FORMAT = "wrong file format";
+    private static final String HEADER = "id,type,name,status,description,duration,start,epic\n";
+    private final Path path;
+    private final StorageOptions options;
+
+    public JournalStorageTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.options = StorageOptions.builder().withMode(StorageMode.JOURNAL).build();
+        this.manager = FileBackedTaskManager.loadFromFile(this.path, this.historyManager, this.options);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ((FileBackedTaskManager) manager).close();
+    }
+
+    @Test
+    public void shouldAppendRecordWhenCreateTask() throws IOException {
+        final long taskId = manager.createTask(testTask).getId();
+
+        final String expectedString = HEADER + """
+                PUT,%d,TASK,"%s",%s,"%s",%d,%s,
+                """.formatted(taskId, testTask.getTitle(), testTask.getStatus(), testTask.getDescription(),
+                testTask.getDuration().toMinutes(), testTask.getStartTime());
+        assertEquals(expectedString, Files.readString(path), WRONG_FILE_FORMAT);
+    }
+
+    @Test
+    public void shouldAppendRecordWhenDeleteTask() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+
+        manager.deleteTask(taskId);
+
+        final String expectedString = HEADER + """
+                PUT,%d,TASK,null,NEW,null,null,null,
+                DELETE,%d
+                """.formatted(taskId, taskId);
+        assertEquals(expectedString, Files.readString(path), WRONG_FILE_FORMAT);
+    }
+
+    @Test
+    public void shouldAppendRecordWhenDeleteSubtasks() throws IOException {
+        final long epicId = manager.createEpic(emptyEpic).getId();
+
+        manager.deleteSubtasks();
+
+        final String expectedString = HEADER + """
+                PUT,%d,EPIC,null,,null,,,
+                CLEAR,SUBTASK
+                """.formatted(epicId);
+        assertEquals(expectedString, Files.readString(path), WRONG_FILE_FORMAT);
+    }
+
+    @Test
+    public void shouldCompactJournalWhenLoadFromFile() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+        manager.updateTask(fromEmptyTask().withId(taskId).withStatus(TaskStatus.DONE).build());
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final String expectedString = HEADER + """
+                %d,TASK,null,DONE,null,null,null,
+                """.formatted(taskId);
+        assertEquals(expectedString, Files.readString(path), WRONG_FILE_FORMAT);
+    }
+
+    @Test
+    public void shouldRestoreStateWhenReplayJournal() {
+        final long taskId = manager.createTask(testTask).getId();
+        final long epicId = manager.createEpic(testEpic).getId();
+        final long subtaskAId = manager.createSubtask(fromTestSubtask(epicId).withDuration(null)
+                .withStartTime(null).build()).getId();
+        final long subtaskBId = manager.createSubtask(fromModifiedSubtask(epicId).build()).getId();
+        manager.updateTask(fromModifiedTask().withId(taskId).withStartTime(TEST_START_TIME).build());
+        manager.deleteSubtask(subtaskAId);
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final Task expectedTask = fromModifiedTask().withId(taskId).withStartTime(TEST_START_TIME).build();
+        final Epic expectedEpic = fromTestEpic().withId(epicId).withSubtaskIds(List.of(subtaskBId))
+                .withDuration(MODIFIED_DURATION).withStartTime(MODIFIED_START_TIME).withEndTime(MODIFIED_END_TIME)
+                .withStatus(MODIFIED_STATUS).build();
+        final Subtask expectedSubtask = fromModifiedSubtask(epicId).withId(subtaskBId).build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertListEquals(List.of(expectedEpic), manager.getEpics(), "wrong epics"),
+                () -> assertListEquals(List.of(expectedSubtask), manager.getSubtasks(), "wrong subtasks"),
+                () -> assertListEquals(List.of(expectedTask, expectedSubtask), manager.getPrioritizedTasks(),
+                        "wrong prioritized tasks")
+        );
+    }
+
+    @Test
+    public void shouldRestoreStateWhenReplayDeletionOfEpics() {
+        final long epicId = manager.createEpic(testEpic).getId();
+        manager.createSubtask(fromTestSubtask(epicId).build());
+        manager.deleteEpics();
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        assertAll("state restored with errors",
+                () -> assertTrue(manager.getEpics().isEmpty(), "wrong epics"),
+                () -> assertTrue(manager.getSubtasks().isEmpty(), "wrong subtasks"),
+                () -> assertTrue(manager.getPrioritizedTasks().isEmpty(), "wrong prioritized tasks")
+        );
+    }
+
+    @Test
+    public void shouldIgnoreIncompleteLastRecordWhenReplayJournal() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        Files.writeString(path, HEADER + """
+                1,TASK,null,NEW,null,null,null,
+                PUT,2,TASK,null,NEW,null,null,null,
+                DELETE,1\
+                """, StandardCharsets.UTF_8);
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final List<Task> expectedTasks = List.of(fromEmptyTask().withId(1L).withStatus(TaskStatus.NEW).build(),
+                fromEmptyTask().withId(2L).withStatus(TaskStatus.NEW).build());
+        assertListEquals(expectedTasks, manager.getTasks(), "wrong tasks");
+    }
+
+    @Test
+    public void shouldDeleteLeftoverTemporaryFileWhenLoadFromFile() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmpPath, "garbage", StandardCharsets.UTF_8);
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        assertFalse(Files.exists(tmpPath), "temporary file should be deleted");
+    }
+
+    @Test
+    public void shouldCompactJournalInBackgroundWhenThresholdReached() throws InterruptedException {
+        ((FileBackedTaskManager) manager).close();
+        final StorageOptions thresholdOptions = StorageOptions.builder().withMode(StorageMode.JOURNAL)
+                .withJournalCompactionThreshold(1L).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, thresholdOptions);
+
+        final long taskId = manager.createTask(emptyTask).getId();
+
+        final String expectedString = HEADER + """
+                %d,TASK,null,NEW,null,null,null,
+                """.formatted(taskId);
+        waitUntil(() -> expectedString.equals(readFile()));
+    }
+
+    @Test
+    public void shouldThrowOnCloseWhenCompactionInBackgroundFailed() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        final StorageOptions thresholdOptions = StorageOptions.builder().withMode(StorageMode.JOURNAL)
+                .withJournalCompactionThreshold(1L).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, thresholdOptions);
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.createDirectory(tmpPath);
+        Files.createFile(tmpPath.resolve("blocker"));
+        manager.createTask(emptyTask);
+
+        final Exception exception = assertThrows(ManagerSaveException.class,
+                () -> ((FileBackedTaskManager) manager).close());
+        Files.delete(tmpPath.resolve("blocker"));
+        Files.delete(tmpPath);
+        assertEquals("cannot write to file \"%s\"".formatted(tmpPath), exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    public void shouldCompactJournalInBackgroundWhenIntervalPassed() throws InterruptedException {
+        ((FileBackedTaskManager) manager).close();
+        final StorageOptions intervalOptions = StorageOptions.builder().withMode(StorageMode.JOURNAL)
+                .withJournalCompactionThreshold(0L).withJournalCompactionInterval(Duration.ofMillis(10L)).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, intervalOptions);
+
+        final long epicId = manager.createEpic(emptyEpic).getId();
+
+        final String expectedString = HEADER + """
+                %d,EPIC,null,,null,,,
+                """.formatted(epicId);
+        waitUntil(() -> expectedString.equals(readFile()));
+    }
+
+    @Test
+    public void shouldNotLoseRecordsWhenCompactJournalInBackground() {
+        ((FileBackedTaskManager) manager).close();
+        final StorageOptions thresholdOptions = StorageOptions.builder().withMode(StorageMode.JOURNAL)
+                .withJournalCompactionThreshold(256L).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, thresholdOptions);
+        final long taskId = manager.createTask(emptyTask).getId();
+        for (int i = 0; i < 1_000; i++) {
+            manager.updateTask(fromEmptyTask().withId(taskId).withTitle("Title " + i).withStatus(TaskStatus.NEW)
+                    .build());
+            manager.createEpic(fromEmptyEpic().withTitle("Epic " + i).build());
+        }
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final Task expectedTask = fromEmptyTask().withId(taskId).withTitle("Title 999").withStatus(TaskStatus.NEW)
+                .build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertEquals(1_000, manager.getEpics().size(), "wrong number of epics")
+        );
+    }
+
+    @Test
+    public void shouldWriteRecordWhenFsyncAlways() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        final StorageOptions alwaysOptions = StorageOptions.builder().withMode(StorageMode.JOURNAL)
+                .withFsyncPolicy(FsyncPolicy.ALWAYS).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, alwaysOptions);
+
+        final long taskId = manager.createTask(emptyTask).getId();
+
+        final String expectedString = HEADER + """
+                PUT,%d,TASK,null,NEW,null,null,null,
+                """.formatted(taskId);
+        assertEquals(expectedString, Files.readString(path), WRONG_FILE_FORMAT);
+    }
+
+    @Test
+    public void shouldNotLoseRecordsWhenGroupCommitConcurrentWriters() throws InterruptedException {
+        ((FileBackedTaskManager) manager).close();
+        final StorageOptions groupCommitOptions = StorageOptions.builder().withMode(StorageMode.JOURNAL)
+                .withJournalCompactionThreshold(512L).withFsyncPolicy(FsyncPolicy.GROUP_COMMIT)
+                .withGroupCommitWindow(Duration.ofMillis(2L)).withGroupCommitSize(4).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, groupCommitOptions);
+        final List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            writers.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 50; j++) {
+                    manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        assertEquals(400, manager.getTasks().size(), "wrong number of tasks");
+    }
+
+    private String readFile() {
+        try {
+            return Files.readString(path);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10L);
+        }
+    }
+}
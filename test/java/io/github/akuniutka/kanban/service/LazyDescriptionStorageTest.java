@@ -0,0 +1,146 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyDescriptionStorageTest extends AbstractTaskManagerTest {
+    private final Path path;
+    private final StorageOptions options;
+
+    public LazyDescriptionStorageTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.options = StorageOptions.builder().withMode(StorageMode.SLOTTED).withLazyDescriptions(true)
+                .withDescriptionCacheSize(16L).build();
+        this.manager = FileBackedTaskManager.loadFromFile(this.path, this.historyManager, this.options);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ((FileBackedTaskManager) manager).close();
+    }
+
+    @Test
+    public void shouldNotLoadDescriptionsWhenLoadFromFile() {
+        final long taskId = manager.createTask(fromTestTask().withDescription(MODIFIED_DESCRIPTION).build()).getId();
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+        final Task task = manager.getTasks().getFirst();
+
+        assertAll("description loaded eagerly",
+                () -> assertEquals(taskId, task.getId(), "wrong task"),
+                () -> assertEquals(MODIFIED_DESCRIPTION, task.getDescription(), "wrong description")
+        );
+        ((FileBackedTaskManager) manager).close();
+        final Exception exception = assertThrows(ManagerLoadException.class, task::getDescription,
+                "description should stay on disk");
+        assertTrue(exception.getMessage().startsWith("cannot load description: file"), WRONG_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    public void shouldReturnCachedDescriptionWhenStorageClosed() {
+        final long taskId = manager.createTask(testTask).getId();
+        final Task task = manager.getTaskById(taskId).orElseThrow();
+        task.getDescription();
+
+        ((FileBackedTaskManager) manager).close();
+
+        assertEquals(TEST_DESCRIPTION, task.getDescription(), "wrong description");
+    }
+
+    @Test
+    public void shouldNotChangeTaskPassedWhenTaskSaved() {
+        final Task task = fromTestTask().withId(null).withDescription(MODIFIED_DESCRIPTION).build();
+
+        final Task savedTask = manager.createTask(task);
+        ((FileBackedTaskManager) manager).close();
+
+        assertAll("task passed changed",
+                () -> assertSame(task, savedTask, "wrong task returned"),
+                () -> assertEquals(Task.class, task.getClass(), "wrong task class"),
+                () -> assertEquals(MODIFIED_DESCRIPTION, task.getDescription(), "wrong description")
+        );
+    }
+
+    @Test
+    public void shouldLoadNewDescriptionWhenTaskUpdated() {
+        final long taskId = manager.createTask(testTask).getId();
+        manager.getTaskById(taskId).orElseThrow().getDescription();
+
+        manager.updateTask(fromTestTask().withId(taskId).withDescription(MODIFIED_DESCRIPTION).build());
+
+        assertEquals(MODIFIED_DESCRIPTION, manager.getTaskById(taskId).orElseThrow().getDescription(),
+                "wrong description");
+    }
+
+    @Test
+    public void shouldKeepOwnDescriptionWhenTaskReplacedOrDeleted() {
+        final long taskId = manager.createTask(fromTestTask().withDescription(MODIFIED_DESCRIPTION).build())
+                .getId();
+        final long otherTaskId = manager.createTask(emptyTask).getId();
+        final Task oldVersion = manager.getTaskById(taskId).orElseThrow();
+
+        manager.updateTask(fromTestTask().withId(taskId).withDescription("x".repeat(100)).build());
+        final String descriptionWhenReplaced = oldVersion.getDescription();
+        final Task newVersion = manager.getTaskById(taskId).orElseThrow();
+        manager.deleteTask(taskId);
+        final String descriptionWhenDeleted = oldVersion.getDescription();
+        final String title = "x".repeat(1_024);
+        for (int i = 0; i < 100; i++) {
+            manager.updateTask(fromEmptyTask().withId(otherTaskId).withTitle(title + i).withStatus(TaskStatus.NEW)
+                    .build());
+        }
+
+        assertAll("description of held task changed",
+                () -> assertEquals(MODIFIED_DESCRIPTION, descriptionWhenReplaced, "wrong description when replaced"),
+                () -> assertEquals(MODIFIED_DESCRIPTION, descriptionWhenDeleted, "wrong description when deleted"),
+                () -> assertFalse(Files.exists(textPath(1L)), "text should be compacted"),
+                () -> assertEquals(MODIFIED_DESCRIPTION, oldVersion.getDescription(),
+                        "wrong description when compacted"),
+                () -> assertEquals("x".repeat(100), newVersion.getDescription(), "wrong new description")
+        );
+    }
+
+    @Test
+    public void shouldKeepDescriptionsWhenCompactText() throws IOException {
+        final long taskId = manager.createTask(testTask).getId();
+        final long otherTaskId = manager.createTask(emptyTask).getId();
+        final String title = "x".repeat(1_024);
+        for (int i = 0; i < 100; i++) {
+            manager.updateTask(fromEmptyTask().withId(otherTaskId).withTitle(title + i).withStatus(TaskStatus.NEW)
+                    .build());
+        }
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        assertAll("descriptions lost when compacted",
+                () -> assertFalse(Files.exists(textPath(1L)), "old text file should be deleted"),
+                () -> assertEquals(TEST_DESCRIPTION, manager.getTaskById(taskId).orElseThrow().getDescription(),
+                        "wrong description")
+        );
+    }
+
+    @Test
+    public void shouldThrowWhenLazyDescriptionsNotInSlottedMode() {
+        final StorageOptions.Builder builder = StorageOptions.builder().withLazyDescriptions(true);
+
+        final Exception exception = assertThrows(IllegalArgumentException.class, builder::build);
+        assertEquals("lazy descriptions are not supported in SNAPSHOT mode", exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+    }
+
+    private Path textPath(long generation) {
+        return path.resolveSibling(path.getFileName() + ".text." + generation);
+    }
+}
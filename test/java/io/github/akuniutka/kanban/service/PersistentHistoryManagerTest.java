@@ -0,0 +1,148 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentHistoryManagerTest extends AbstractTaskManagerTest {
+    private static final String HEADER = "id,type,name,status,description,duration,start,epic\n";
+    private final Path path;
+    private final Path historyPath;
+    private final StorageOptions options;
+
+    public PersistentHistoryManagerTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.historyPath = path.resolveSibling(path.getFileName() + ".history");
+        this.options = StorageOptions.builder().withHistoryPersisted(true).build();
+        this.manager = FileBackedTaskManager.loadFromFile(this.path, this.historyManager, this.options);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ((FileBackedTaskManager) manager).close();
+    }
+
+    @Test
+    public void shouldRestoreHistoryWhenLoadFromFile() {
+        final long taskId = manager.createTask(testTask).getId();
+        final long epicId = manager.createEpic(testEpic).getId();
+        final long subtaskId = manager.createSubtask(fromModifiedSubtask(epicId).build()).getId();
+        manager.getSubtaskById(subtaskId);
+        manager.getTaskById(taskId);
+        manager.getEpicById(epicId);
+        manager.getTaskById(taskId);
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, Managers.getDefaultHistory(), options);
+
+        final Subtask expectedSubtask = fromModifiedSubtask(epicId).withId(subtaskId).build();
+        final Epic expectedEpic = fromTestEpic().withId(epicId).withSubtaskIds(List.of(subtaskId))
+                .withDuration(MODIFIED_DURATION).withStartTime(MODIFIED_START_TIME).withEndTime(MODIFIED_END_TIME)
+                .withStatus(MODIFIED_STATUS).build();
+        final Task expectedTask = fromTestTask().withId(taskId).build();
+        assertListEquals(List.of(expectedSubtask, expectedEpic, expectedTask), manager.getHistory(),
+                "wrong history");
+    }
+
+    @Test
+    public void shouldNotRestoreDeletedTaskToHistoryWhenLoadFromFile() {
+        final long taskAId = manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId();
+        final long taskBId = manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId();
+        manager.getTaskById(taskAId);
+        manager.getTaskById(taskBId);
+        manager.deleteTask(taskAId);
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, Managers.getDefaultHistory(), options);
+
+        assertEquals(List.of(taskBId), manager.getHistory().stream().map(Task::getId).toList(), "wrong history");
+    }
+
+    @Test
+    public void shouldWriteHistoryWhenFlush() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+        manager.getTaskById(taskId);
+
+        ((FileBackedTaskManager) manager).flush();
+
+        assertArrayEquals(new byte[]{'A', (byte) (taskId << 1)}, Files.readAllBytes(historyPath),
+                "wrong history file");
+    }
+
+    @Test
+    public void shouldCompactHistoryFileWhenLoadFromFile() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+        for (int i = 0; i < 100; i++) {
+            manager.getTaskById(taskId);
+        }
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, Managers.getDefaultHistory(), options);
+
+        assertArrayEquals(new byte[]{'A', (byte) (taskId << 1)}, Files.readAllBytes(historyPath),
+                "wrong history file");
+    }
+
+    @Test
+    public void shouldIgnoreIncompleteLastRecordWhenLoadFromFile() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        Files.writeString(path, HEADER + """
+                1,TASK,null,NEW,null,null,null,
+                2,TASK,null,NEW,null,null,null,
+                """, StandardCharsets.UTF_8);
+        Files.write(historyPath, new byte[]{'A', 4, 'A', 2, 'A', (byte) 0x84});
+
+        manager = FileBackedTaskManager.loadFromFile(path, Managers.getDefaultHistory(), options);
+
+        assertEquals(List.of(2L, 1L), manager.getHistory().stream().map(Task::getId).toList(), "wrong history");
+    }
+
+    @Test
+    public void shouldReportCorruptedTailWhenLoadFromFile() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        Files.writeString(path, HEADER + """
+                1,TASK,null,NEW,null,null,null,
+                2,TASK,null,NEW,null,null,null,
+                """, StandardCharsets.UTF_8);
+        Files.write(historyPath, new byte[]{'A', 2, 'X', 4, 'A', 4});
+
+        manager = FileBackedTaskManager.loadFromFile(path, Managers.getDefaultHistory(), options);
+
+        assertAll("corrupted tail not reported",
+                () -> assertEquals(List.of(1L), manager.getHistory().stream().map(Task::getId).toList(),
+                        "wrong history"),
+                () -> assertEquals(List.of("history file \"%s\" is corrupted, ignored its tail".formatted(historyPath)),
+                        ((FileBackedTaskManager) manager).getRecoveryActions(), "recovery not reported")
+        );
+    }
+
+    @Test
+    public void shouldThrowOnFlushWhenHistoryCannotBeCompacted() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".history.tmp");
+        Files.createDirectory(tmpPath);
+        Files.createFile(tmpPath.resolve("blocker"));
+        for (int i = 0; i < 1_100; i++) {
+            manager.getTaskById(taskId);
+        }
+
+        final Exception exception = assertThrows(ManagerSaveException.class, () -> manager.flush());
+        Files.delete(tmpPath.resolve("blocker"));
+        Files.delete(tmpPath);
+        assertEquals("cannot write to file \"%s\"".formatted(historyPath), exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ReadOnlyManagerException;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationTest {
+    private final Path path;
+    private final int port;
+    private FileBackedTaskManager primary;
+    private ReplicaTaskManager replica;
+
+    public ReplicationTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        try (ServerSocket socket = new ServerSocket(0)) {
+            this.port = socket.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (replica != null) {
+            replica.close();
+        }
+        if (primary != null) {
+            primary.close();
+        }
+    }
+
+    @Test
+    public void shouldCopyExistingTasksWhenFollowerJoins() throws InterruptedException {
+        startPrimary();
+        primary.createTask(fromTestTask().withId(null).build());
+        final long epicId = primary.createEpic(fromTestEpic().withId(null).build()).getId();
+        primary.createSubtask(fromEmptySubtask(epicId).build());
+
+        replica = ReplicaTaskManager.connect("localhost", port, new InMemoryHistoryManager());
+
+        waitUntil(() -> replica.getReplicationStatus().orElseThrow().getSequence() == 3L);
+        assertAll("wrong replica state",
+                () -> assertEquals(sorted(primary.snapshot()), sorted(replicaTasks()), "wrong tasks"),
+                () -> assertEquals(List.of(2L), replica.getEpicById(epicId).orElseThrow().getSubtaskIds(),
+                        "wrong epic subtasks")
+        );
+    }
+
+    @Test
+    public void shouldApplyChangesInOrderWhenPrimaryChanges() throws InterruptedException {
+        startPrimary();
+        replica = ReplicaTaskManager.connect("localhost", port, new InMemoryHistoryManager());
+        waitUntil(() -> replica.getReplicationStatus().orElseThrow().isConnected());
+
+        final long taskId = primary.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId();
+        primary.updateTask(fromModifiedTask().withId(taskId).build());
+        final long epicId = primary.createEpic(fromEmptyEpic().build()).getId();
+        final long subtaskId = primary.createSubtask(fromEmptySubtask(epicId).build()).getId();
+        primary.updateSubtask(fromEmptySubtask(epicId).withId(subtaskId).withStatus(TaskStatus.DONE).build());
+        primary.deleteTask(taskId);
+        final long lastTaskId = primary.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId();
+
+        waitUntil(() -> replica.getTaskById(lastTaskId).isPresent());
+        assertAll("wrong replica state",
+                () -> assertTrue(replica.getTaskById(taskId).isEmpty(), "task should be deleted"),
+                () -> assertEquals(TaskStatus.DONE, replica.getEpicById(epicId).orElseThrow().getStatus(),
+                        "wrong epic status"),
+                () -> assertEquals(sorted(primary.snapshot()), sorted(replicaTasks()), "wrong tasks")
+        );
+    }
+
+    @Test
+    public void shouldReportNoLagWhenFollowerCaughtUp() throws InterruptedException {
+        startPrimary();
+        replica = ReplicaTaskManager.connect("localhost", port, new InMemoryHistoryManager());
+        for (int i = 0; i < 100; i++) {
+            primary.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+        }
+
+        waitUntil(() -> primary.getReplicationStatus().orElseThrow().getFollowers() == 1
+                && primary.getReplicationStatus().orElseThrow().getLag() == 0L);
+        final ReplicationStatus status = replica.getReplicationStatus().orElseThrow();
+        assertAll("wrong replication status",
+                () -> assertEquals("primary", primary.getReplicationStatus().orElseThrow().getRole(), "wrong primary role"),
+                () -> assertEquals(100L, primary.getReplicationStatus().orElseThrow().getSequence(), "wrong primary sequence"),
+                () -> assertEquals("follower", status.getRole(), "wrong follower role"),
+                () -> assertEquals(100L, status.getSequence(), "wrong follower sequence"),
+                () -> assertEquals(0L, status.getLag(), "wrong follower lag")
+        );
+    }
+
+    @Test
+    public void shouldResynchronizeWhenPrimaryRestarts() throws InterruptedException {
+        startPrimary();
+        primary.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+        replica = ReplicaTaskManager.connect("localhost", port, new InMemoryHistoryManager());
+        waitUntil(() -> replica.getTasks().size() == 1);
+        primary.close();
+        waitUntil(() -> !replica.getReplicationStatus().orElseThrow().isConnected());
+
+        startPrimary();
+        primary.deleteTasks();
+        final long epicId = primary.createEpic(fromEmptyEpic().build()).getId();
+
+        waitUntil(() -> replica.getEpicById(epicId).isPresent());
+        assertTrue(replica.getTasks().isEmpty(), "replica should follow new primary state");
+    }
+
+    @Test
+    public void shouldRejectWritesWhenReplica() {
+        replica = ReplicaTaskManager.connect("localhost", port, new InMemoryHistoryManager());
+        final Task task = fromEmptyTask().withStatus(TaskStatus.NEW).build();
+
+        final Exception exception = assertThrows(ReadOnlyManagerException.class,
+                () -> replica.createTask(task));
+        assertEquals("replica is read-only, send changes to the primary", exception.getMessage(),
+                "message for exception is wrong");
+    }
+
+    private void startPrimary() {
+        primary = FileBackedTaskManager.loadFromFile(path, new InMemoryHistoryManager(),
+                StorageOptions.builder().withMode(StorageMode.JOURNAL).withReplicationPort(port).build());
+    }
+
+    private List<Task> replicaTasks() {
+        final List<Task> tasks = new ArrayList<>(replica.getTasks());
+        tasks.addAll(replica.getEpics());
+        tasks.addAll(replica.getSubtasks());
+        return tasks;
+    }
+
+    private static List<String> sorted(List<Task> tasks) {
+        return tasks.stream().sorted(Comparator.comparing(Task::getId)).map(Task::toString).toList();
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10L);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedStorageTest extends AbstractTaskManagerTest {
+    private static final String WRONG_FILE_FORMAT = "wrong file format";
+    private static final String HEADER = "id,type,name,status,description,duration,start,epic\n";
+    private final Path path;
+    private final StorageOptions options;
+
+    public ShardedStorageTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.options = StorageOptions.builder().withMode(StorageMode.SHARDED).withShardSize(2L).build();
+        this.manager = FileBackedTaskManager.loadFromFile(this.path, this.historyManager, this.options);
+    }
+
+    @Test
+    public void shouldWriteManifestAndShardsWhenCreateTasks() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+        final long epicId = manager.createEpic(emptyEpic).getId();
+
+        final String expectedManifest = """
+                shards,2
+                %s
+                %s
+                """.formatted(shardPath("TASK", 0L).getFileName(), shardPath("EPIC", 0L).getFileName());
+        final String expectedTaskShard = HEADER + """
+                %d,TASK,null,NEW,null,null,null,
+                """.formatted(taskId);
+        final String expectedEpicShard = HEADER + """
+                %d,EPIC,null,,null,,,
+                """.formatted(epicId);
+        assertAll("files saved with errors",
+                () -> assertEquals(expectedManifest, Files.readString(path), WRONG_FILE_FORMAT),
+                () -> assertEquals(expectedTaskShard, Files.readString(shardPath("TASK", 0L)), WRONG_FILE_FORMAT),
+                () -> assertEquals(expectedEpicShard, Files.readString(shardPath("EPIC", 0L)), WRONG_FILE_FORMAT)
+        );
+    }
+
+    @Test
+    public void shouldRewriteOnlyDirtyShardWhenUpdateTask() throws IOException {
+        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+        final long taskId = manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId();
+        final Object untouchedFile = fileKeyOf(shardPath("TASK", 0L));
+        final Object touchedFile = fileKeyOf(shardPath("TASK", 1L));
+
+        manager.updateTask(fromEmptyTask().withId(taskId).withStatus(TaskStatus.DONE).build());
+
+        assertAll("wrong shards rewritten",
+                () -> assertEquals(untouchedFile, fileKeyOf(shardPath("TASK", 0L)), "clean shard rewritten"),
+                () -> assertNotEquals(touchedFile, fileKeyOf(shardPath("TASK", 1L)), "dirty shard not rewritten")
+        );
+    }
+
+    @Test
+    public void shouldRestoreStateWhenLoadFromFile() {
+        final long taskId = manager.createTask(testTask).getId();
+        final long epicId = manager.createEpic(testEpic).getId();
+        final long subtaskAId = manager.createSubtask(fromTestSubtask(epicId).withDuration(null)
+                .withStartTime(null).build()).getId();
+        final long subtaskBId = manager.createSubtask(fromModifiedSubtask(epicId).build()).getId();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final Task expectedTask = fromTestTask().withId(taskId).build();
+        final Epic expectedEpic = fromTestEpic().withId(epicId).withSubtaskIds(List.of(subtaskAId, subtaskBId))
+                .withDuration(MODIFIED_DURATION).withStartTime(MODIFIED_START_TIME).withEndTime(MODIFIED_END_TIME)
+                .withStatus(TaskStatus.IN_PROGRESS).build();
+        final Subtask expectedSubtaskA = fromTestSubtask(epicId).withId(subtaskAId).withDuration(null)
+                .withStartTime(null).build();
+        final Subtask expectedSubtaskB = fromModifiedSubtask(epicId).withId(subtaskBId).build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertListEquals(List.of(expectedEpic), manager.getEpics(), "wrong epics"),
+                () -> assertListEquals(List.of(expectedSubtaskA, expectedSubtaskB), manager.getSubtasks(),
+                        "wrong subtasks"),
+                () -> assertListEquals(List.of(expectedTask, expectedSubtaskB), manager.getPrioritizedTasks(),
+                        "wrong prioritized tasks")
+        );
+    }
+
+    @Test
+    public void shouldDeleteShardFilesWhenDeleteEpic() throws IOException {
+        final long epicId = manager.createEpic(emptyEpic).getId();
+        manager.createSubtask(fromEmptySubtask().withEpicId(epicId).withStatus(TaskStatus.NEW).build());
+        manager.createSubtask(fromEmptySubtask().withEpicId(epicId).withStatus(TaskStatus.NEW).build());
+
+        manager.deleteEpic(epicId);
+
+        assertAll("shards not deleted",
+                () -> assertEquals("shards,2\n", Files.readString(path), WRONG_FILE_FORMAT),
+                () -> assertFalse(Files.exists(shardPath("EPIC", 0L)), "epic shard should be deleted"),
+                () -> assertFalse(Files.exists(shardPath("SUBTASK", 1L)), "subtask shard should be deleted")
+        );
+    }
+
+    @Test
+    public void shouldDeleteOnlyShardsOfClearedTypeWhenDeleteEpics() throws IOException {
+        final long taskId = manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId();
+        final long epicId = manager.createEpic(emptyEpic).getId();
+        manager.createSubtask(fromEmptySubtask().withEpicId(epicId).withStatus(TaskStatus.NEW).build());
+        final Object taskFile = fileKeyOf(shardPath("TASK", 0L));
+
+        manager.deleteEpics();
+
+        final String expectedManifest = """
+                shards,2
+                %s
+                """.formatted(shardPath("TASK", 0L).getFileName());
+        assertAll("wrong shards deleted",
+                () -> assertEquals(expectedManifest, Files.readString(path), WRONG_FILE_FORMAT),
+                () -> assertEquals(taskFile, fileKeyOf(shardPath("TASK", 0L)), "task shard rewritten"),
+                () -> assertFalse(Files.exists(shardPath("EPIC", 0L)), "epic shard should be deleted"),
+                () -> assertFalse(Files.exists(shardPath("SUBTASK", 1L)), "subtask shard should be deleted"),
+                () -> assertEquals(List.of(taskId), FileBackedTaskManager.loadFromFile(path, historyManager, options)
+                        .getTasks().stream().map(Task::getId).toList(), "wrong tasks")
+        );
+    }
+
+    @Test
+    public void shouldSplitSnapshotFileIntoShardsWhenLoadFromFile() throws IOException {
+        Files.writeString(path, HEADER + """
+                1,TASK,null,NEW,null,null,null,
+                2,TASK,null,DONE,null,null,null,
+                3,TASK,null,NEW,null,null,null,
+                """, StandardCharsets.UTF_8);
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final String expectedShard = HEADER + """
+                2,TASK,null,DONE,null,null,null,
+                3,TASK,null,NEW,null,null,null,
+                """;
+        assertAll("snapshot not split",
+                () -> assertEquals(3, manager.getTasks().size(), "wrong number of tasks"),
+                () -> assertTrue(Files.readString(path).startsWith("shards,2\n"), WRONG_FILE_FORMAT),
+                () -> assertEquals(expectedShard, Files.readString(shardPath("TASK", 1L)), WRONG_FILE_FORMAT)
+        );
+    }
+
+    @Test
+    public void shouldKeepShardSizeOfExistingFileWhenLoadFromFile() throws IOException {
+        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+        final StorageOptions largerShards = StorageOptions.builder().withMode(StorageMode.SHARDED)
+                .withShardSize(100L).build();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, largerShards);
+        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+
+        assertAll("shard size changed",
+                () -> assertTrue(Files.readString(path).startsWith("shards,2\n"), WRONG_FILE_FORMAT),
+                () -> assertTrue(Files.exists(shardPath("TASK", 1L)), "shard file should exist"),
+                () -> assertEquals(3, manager.getTasks().size(), "wrong number of tasks")
+        );
+    }
+
+    @Test
+    public void shouldDeleteUnlistedShardFileWhenLoadFromFile() throws IOException {
+        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+        final Path leftover = shardPath("TASK", 7L);
+        Files.writeString(leftover, "garbage", StandardCharsets.UTF_8);
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        assertFalse(Files.exists(leftover), "leftover shard should be deleted");
+    }
+
+    private Path shardPath(String type, long range) {
+        return path.resolveSibling(path.getFileName() + "." + type + "." + range);
+    }
+
+    private Object fileKeyOf(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+}
@@ -0,0 +1,187 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlottedStorageTest extends AbstractTaskManagerTest {
+    private final Path path;
+    private final StorageOptions options;
+
+    public SlottedStorageTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.options = StorageOptions.builder().withMode(StorageMode.SLOTTED).build();
+        this.manager = FileBackedTaskManager.loadFromFile(this.path, this.historyManager, this.options);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ((FileBackedTaskManager) manager).close();
+    }
+
+    @Test
+    public void shouldRestoreStateWhenLoadFromFile() {
+        final long taskId = manager.createTask(testTask).getId();
+        final long epicId = manager.createEpic(testEpic).getId();
+        final long subtaskAId = manager.createSubtask(fromTestSubtask(epicId).withDuration(null)
+                .withStartTime(null).build()).getId();
+        final long subtaskBId = manager.createSubtask(fromModifiedSubtask(epicId).build()).getId();
+        manager.updateTask(fromModifiedTask().withId(taskId).withStartTime(TEST_START_TIME).build());
+        manager.deleteSubtask(subtaskAId);
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final Task expectedTask = fromModifiedTask().withId(taskId).withStartTime(TEST_START_TIME).build();
+        final Epic expectedEpic = fromTestEpic().withId(epicId).withSubtaskIds(List.of(subtaskBId))
+                .withDuration(MODIFIED_DURATION).withStartTime(MODIFIED_START_TIME).withEndTime(MODIFIED_END_TIME)
+                .withStatus(MODIFIED_STATUS).build();
+        final Subtask expectedSubtask = fromModifiedSubtask(epicId).withId(subtaskBId).build();
+        assertAll("state restored with errors",
+                () -> assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks"),
+                () -> assertListEquals(List.of(expectedEpic), manager.getEpics(), "wrong epics"),
+                () -> assertListEquals(List.of(expectedSubtask), manager.getSubtasks(), "wrong subtasks"),
+                () -> assertListEquals(List.of(expectedTask, expectedSubtask), manager.getPrioritizedTasks(),
+                        "wrong prioritized tasks")
+        );
+    }
+
+    @Test
+    public void shouldRestoreStateWhenLoadAfterDeletionOfEpic() {
+        final long epicId = manager.createEpic(testEpic).getId();
+        manager.createSubtask(fromTestSubtask(epicId).build());
+        final long taskId = manager.createTask(emptyTask).getId();
+        manager.deleteEpic(epicId);
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        assertAll("state restored with errors",
+                () -> assertEquals(List.of(taskId), manager.getTasks().stream().map(Task::getId).toList(),
+                        "wrong tasks"),
+                () -> assertTrue(manager.getEpics().isEmpty(), "wrong epics"),
+                () -> assertTrue(manager.getSubtasks().isEmpty(), "wrong subtasks")
+        );
+    }
+
+    @Test
+    public void shouldFreeSubtaskSlotsWhenLoadAfterDeletionOfAllEpics() {
+        final long epicId = manager.createEpic(testEpic).getId();
+        manager.createSubtask(fromTestSubtask(epicId).build());
+        final long taskId = manager.createTask(emptyTask).getId();
+        manager.deleteEpics();
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        assertAll("state restored with errors",
+                () -> assertEquals(List.of(taskId), manager.getTasks().stream().map(Task::getId).toList(),
+                        "wrong tasks"),
+                () -> assertTrue(manager.getEpics().isEmpty(), "wrong epics"),
+                () -> assertTrue(manager.getSubtasks().isEmpty(), "wrong subtasks")
+        );
+    }
+
+    @Test
+    public void shouldReuseSlotsWhenTasksOfTypeDeleted() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 500; j++) {
+                manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+            }
+            manager.deleteTasks();
+        }
+        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+
+        assertEquals(64L + 1_024L * 64L, Files.size(path), "slot file should not grow");
+    }
+
+    @Test
+    public void shouldNotGrowFilesWhenOnlyStatusUpdated() throws IOException {
+        final long taskId = manager.createTask(testTask).getId();
+        final long slotFileSize = Files.size(path);
+        final long textFileSize = Files.size(textPath(1L));
+
+        manager.updateTask(fromTestTask().withId(taskId).withStatus(TaskStatus.DONE).build());
+
+        assertAll("files changed",
+                () -> assertEquals(slotFileSize, Files.size(path), "slot file size changed"),
+                () -> assertEquals(textFileSize, Files.size(textPath(1L)), "text file size changed")
+        );
+    }
+
+    @Test
+    public void shouldReuseSlotWhenTaskDeleted() throws IOException {
+        for (int i = 0; i < 1_500; i++) {
+            final long taskId = manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build()).getId();
+            manager.deleteTask(taskId);
+        }
+        manager.createTask(fromEmptyTask().withStatus(TaskStatus.NEW).build());
+
+        assertEquals(64L + 1_024L * 64L, Files.size(path), "slot file should not grow");
+    }
+
+    @Test
+    public void shouldCompactTextWhenMostTextIsGarbage() throws IOException {
+        final long taskId = manager.createTask(emptyTask).getId();
+        final String title = "x".repeat(1_024);
+        for (int i = 0; i < 100; i++) {
+            manager.updateTask(fromEmptyTask().withId(taskId).withTitle(title + i).withStatus(TaskStatus.NEW)
+                    .build());
+        }
+
+        assertAll("text not compacted",
+                () -> assertFalse(Files.exists(textPath(1L)), "old text file should be deleted"),
+                () -> assertTrue(Files.size(textPath(2L)) < 64L * 1_024L, "wrong text file size"),
+                () -> assertFalse(Files.exists(textPath(3L)), "text compacted too often")
+        );
+        ((FileBackedTaskManager) manager).close();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+        assertEquals(title + 99, manager.getTasks().getFirst().getTitle(), "wrong title");
+    }
+
+    @Test
+    public void shouldCompactTextWhenTasksWithTextDeleted() throws IOException {
+        final String title = "x".repeat(1_024);
+        for (int i = 0; i < 100; i++) {
+            final long taskId = manager.createTask(fromEmptyTask().withTitle(title + i).withStatus(TaskStatus.NEW)
+                    .build()).getId();
+            manager.deleteTask(taskId);
+        }
+        final long taskId = manager.createTask(fromEmptyTask().withTitle(title).withStatus(TaskStatus.NEW)
+                .build()).getId();
+
+        assertAll("text not compacted",
+                () -> assertFalse(Files.exists(textPath(1L)), "old text file should be deleted"),
+                () -> assertTrue(Files.size(textPath(2L)) < 64L * 1_024L, "wrong text file size"),
+                () -> assertEquals(title, manager.getTaskById(taskId).orElseThrow().getTitle(), "wrong title")
+        );
+    }
+
+    @Test
+    public void shouldThrowWhenFileHasWrongFormat() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        Files.writeString(path, "id,type,name,status,description,duration,start,epic\n", StandardCharsets.UTF_8);
+
+        final Exception exception = assertThrows(ManagerLoadException.class,
+                () -> FileBackedTaskManager.loadFromFile(path, historyManager, options));
+        assertEquals("wrong file format, expected slotted records", exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+    }
+
+    private Path textPath(long generation) {
+        return path.resolveSibling(path.getFileName() + ".text." + generation);
+    }
+}
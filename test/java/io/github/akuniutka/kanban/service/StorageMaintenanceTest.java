@@ -0,0 +1,126 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.util.BinaryTaskFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageMaintenanceTest {
+    private static final String HEADER = "id,type,name,status,description,duration,start,epic\n";
+    private static final String JOURNAL = HEADER + """
+            0,TASK,"Task A",NEW,"Old",null,null,
+            1,EPIC,"Epic",,"Epic description",,,
+            2,SUBTASK,"Subtask A",DONE,"Subtask description",30,2000-05-01T13:30,1
+            PUT,3,TASK,"Task B",NEW,null,60,2000-05-01T15:00,
+            PUT,0,TASK,"Task A",IN_PROGRESS,"New",null,null,
+            PUT,4,EPIC,"Empty epic",,null,,,
+            DELETE,3
+            DELETE,4
+            """;
+    private static final String COMPACTED = HEADER + """
+            0,TASK,"Task A",IN_PROGRESS,"New",null,null,
+            1,EPIC,"Epic",,"Epic description",,,
+            2,SUBTASK,"Subtask A",DONE,"Subtask description",30,2000-05-01T13:30,1
+            """;
+    private static final String WRONG_EXCEPTION_MESSAGE = "message for exception is wrong";
+    private final Path path;
+
+    public StorageMaintenanceTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+    }
+
+    @Test
+    public void shouldKeepLastVersionOfLiveTasksWhenCompactJournal() throws IOException {
+        Files.writeString(path, JOURNAL, StandardCharsets.UTF_8);
+
+        final MaintenanceReport report = StorageMaintenance.compact(path, false);
+
+        assertAll("journal not compacted",
+                () -> assertEquals(COMPACTED, Files.readString(path).replace(System.lineSeparator(), "\n"),
+                        "wrong file content"),
+                () -> assertEquals(8L, report.records(), "wrong number of records read"),
+                () -> assertEquals(List.of(1L, 1L, 1L), List.of(report.tasks(), report.epics(), report.subtasks()),
+                        "wrong number of tasks, epics and subtasks")
+        );
+    }
+
+    @Test
+    public void shouldAssignDenseIdsWhenConvertWithRenumbering() throws IOException {
+        Files.writeString(path, HEADER + """
+                5,EPIC,"Epic",,null,,,
+                9,SUBTASK,"Subtask",NEW,null,null,null,5
+                12,TASK,"Task",NEW,null,null,null,
+                """, StandardCharsets.UTF_8);
+        final Path target = Files.createTempFile("kanban", ".bin");
+
+        StorageMaintenance.convert(path, target, StorageOptions.builder().withSnapshotFormat(SnapshotFormat.BINARY)
+                .build(), true);
+
+        final List<Task> tasks;
+        try (InputStream in = Files.newInputStream(target)) {
+            tasks = BinaryTaskFormat.read(in);
+        }
+        assertAll("wrong renumbering",
+                () -> assertEquals(List.of(0L, 1L, 2L), tasks.stream().map(Task::getId).toList(), "wrong ids"),
+                () -> assertEquals(1L, ((Subtask) tasks.get(2)).getEpicId(), "wrong epic id")
+        );
+    }
+
+    @Test
+    public void shouldReportProblemsWhenVerifyBrokenFile() throws IOException {
+        Files.writeString(path, HEADER + """
+                0,TASK,"Task A",NEW,null,60,2000-05-01T13:00,
+                1,TASK,"Task B",NEW,null,60,2000-05-01T13:30,
+                2,SUBTASK,"Subtask",NEW,null,null,null,7
+                DELETE,8
+                """, StandardCharsets.UTF_8);
+
+        final MaintenanceReport report = StorageMaintenance.verify(path);
+
+        assertEquals(List.of("conflict with another task for time slot for id=1", "wrong epic id for id=2",
+                "cannot delete missing id=8"), report.problems(), "wrong problems");
+    }
+
+    @Test
+    public void shouldNotRewriteFileWhenVerificationFails() throws IOException {
+        final String content = HEADER + "0,TASK,\"Task\",UNKNOWN,null,null,null,\n";
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+
+        final Exception exception = assertThrows(ManagerLoadException.class,
+                () -> StorageMaintenance.compact(path, false));
+        assertAll("file rewritten",
+                () -> assertEquals("file \"%s\" failed verification: unknown task status for id=0".formatted(path),
+                        exception.getMessage(), WRONG_EXCEPTION_MESSAGE),
+                () -> assertEquals(content, Files.readString(path), "file should stay intact")
+        );
+    }
+
+    @Test
+    public void shouldBuildPagedStoreWhenReindex() throws IOException {
+        Files.writeString(path, JOURNAL, StandardCharsets.UTF_8);
+        final Path target = path.resolveSibling(path.getFileName() + ".paged");
+
+        StorageMaintenance.reindex(path, target, StorageOptions.defaults());
+
+        try (BTreeTaskManager manager = BTreeTaskManager.open(target, Managers.getDefaultHistory())) {
+            assertAll("wrong paged store",
+                    () -> assertEquals("New", manager.getTaskById(0L).orElseThrow().getDescription(),
+                            "wrong task"),
+                    () -> assertEquals(List.of(2L), manager.getEpicById(1L).orElseThrow().getSubtaskIds(),
+                            "wrong epic"),
+                    () -> assertEquals(List.of(2L), manager.getPrioritizedTasks().stream().map(Task::getId)
+                            .toList(), "wrong prioritized tasks")
+            );
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.akuniutka.kanban.service;
+
+import io.github.akuniutka.kanban.exception.ManagerSaveException;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindStorageTest extends AbstractTaskManagerTest {
+    private static final String WRONG_FILE_FORMAT = "wrong file format";
+    private static final String HEADER = "id,type,name,status,description,duration,start,epic\n";
+    private final Path path;
+    private final StorageOptions options;
+
+    public WriteBehindStorageTest() throws IOException {
+        this.path = Files.createTempFile("kanban", null);
+        this.options = StorageOptions.builder().withMode(StorageMode.WRITE_BEHIND).build();
+        this.manager = FileBackedTaskManager.loadFromFile(this.path, this.historyManager, this.options);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ((FileBackedTaskManager) manager).close();
+    }
+
+    @Test
+    public void shouldNotWriteFileWhenCreateTaskAndDelayNotPassed() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        final StorageOptions delayedOptions = StorageOptions.builder().withMode(StorageMode.WRITE_BEHIND)
+                .withWriteBehindDelay(Duration.ofMinutes(1L)).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, delayedOptions);
+
+        manager.createTask(emptyTask);
+
+        assertEquals(HEADER, Files.readString(path), WRONG_FILE_FORMAT);
+    }
+
+    @Test
+    public void shouldWriteFileWhenFlush() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        final StorageOptions delayedOptions = StorageOptions.builder().withMode(StorageMode.WRITE_BEHIND)
+                .withWriteBehindDelay(Duration.ofMinutes(1L)).build();
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, delayedOptions);
+        final long taskId = manager.createTask(emptyTask).getId();
+
+        manager.flush();
+
+        final String expectedString = HEADER + """
+                %d,TASK,null,NEW,null,null,null,
+                """.formatted(taskId);
+        assertEquals(expectedString, Files.readString(path), WRONG_FILE_FORMAT);
+    }
+
+    @Test
+    public void shouldThrowOnFlushWhenSaveInBackgroundFailed() throws IOException, InterruptedException {
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.createDirectory(tmpPath);
+        Files.createFile(tmpPath.resolve("blocker"));
+        final long taskId = manager.createTask(emptyTask).getId();
+
+        final Exception exception = assertThrows(ManagerSaveException.class, () -> manager.flush());
+        Files.delete(tmpPath.resolve("blocker"));
+        Files.delete(tmpPath);
+
+        assertEquals("cannot write to file \"%s\"".formatted(tmpPath), exception.getMessage(),
+                WRONG_EXCEPTION_MESSAGE);
+        final String expectedString = HEADER + """
+                %d,TASK,null,NEW,null,null,null,
+                """.formatted(taskId);
+        waitUntil(() -> expectedString.equals(readFile()));
+    }
+
+    @Test
+    public void shouldNotLoseUpdatesWhenClose() {
+        final long taskId = manager.createTask(emptyTask).getId();
+        for (int i = 0; i < 1_000; i++) {
+            manager.updateTask(fromEmptyTask().withId(taskId).withTitle("Title " + i).withStatus(TaskStatus.NEW)
+                    .build());
+        }
+        ((FileBackedTaskManager) manager).close();
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        final Task expectedTask = fromEmptyTask().withId(taskId).withTitle("Title 999").withStatus(TaskStatus.NEW)
+                .build();
+        assertListEquals(List.of(expectedTask), manager.getTasks(), "wrong tasks");
+    }
+
+    @Test
+    public void shouldDeleteLeftoverTemporaryFileWhenLoadFromFile() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmpPath, "garbage", StandardCharsets.UTF_8);
+
+        manager = FileBackedTaskManager.loadFromFile(path, historyManager, options);
+
+        assertFalse(Files.exists(tmpPath), "temporary file should be deleted");
+    }
+
+    @Test
+    public void shouldNotThrowWhenFlushAndNothingChanged() {
+        assertDoesNotThrow(() -> manager.flush());
+    }
+
+    private String readFile() {
+        try {
+            return Files.readString(path);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10L);
+        }
+    }
+}
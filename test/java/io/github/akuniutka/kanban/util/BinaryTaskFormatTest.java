@@ -0,0 +1,83 @@
+package io.github.akuniutka.kanban.util;
+
+import io.github.akuniutka.kanban.exception.ManagerLoadException;
+import io.github.akuniutka.kanban.model.Epic;
+import io.github.akuniutka.kanban.model.Subtask;
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTaskFormatTest {
+    private static final String WRONG_EXCEPTION_MESSAGE = "message for exception is wrong";
+
+    @Test
+    public void shouldReadSameTasksWhenWritten() throws IOException {
+        final Task task = fromTestTask().withId(-1L).build();
+        final Task emptyTask = fromEmptyTask().withId(Long.MAX_VALUE).withStatus(TaskStatus.NEW).build();
+        final Epic epic = fromTestEpic().withId(2L).build();
+        final Subtask subtask = fromModifiedSubtask(2L).withId(3L).withTitle("Заголовок").build();
+
+        final List<Task> tasks = BinaryTaskFormat.read(new ByteArrayInputStream(write(List.of(task, emptyTask, epic,
+                subtask))));
+
+        assertListEquals(List.of(task, emptyTask, epic, subtask), tasks, "wrong tasks");
+    }
+
+    @Test
+    public void shouldDetectMagicAndKeepStreamPosition() throws IOException {
+        final InputStream in = new BufferedInputStream(new ByteArrayInputStream(write(List.of())));
+
+        assertAll("magic not detected",
+                () -> assertTrue(BinaryTaskFormat.hasMagic(in), "should detect magic"),
+                () -> assertTrue(BinaryTaskFormat.read(in).isEmpty(), "should read from start")
+        );
+    }
+
+    @Test
+    public void shouldNotDetectMagicWhenCSV() throws IOException {
+        final InputStream in = new BufferedInputStream(new ByteArrayInputStream(CSVTaskFormat.FILE_HEADER
+                .getBytes()));
+
+        assertFalse(BinaryTaskFormat.hasMagic(in), "should not detect magic");
+    }
+
+    @Test
+    public void shouldThrowWhenUnsupportedVersion() throws IOException {
+        final byte[] bytes = write(List.of());
+        bytes[4] = 2;
+
+        final Exception exception = assertThrows(ManagerLoadException.class,
+                () -> BinaryTaskFormat.read(new ByteArrayInputStream(bytes)));
+        assertEquals("unsupported binary snapshot version 2", exception.getMessage(), WRONG_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    public void shouldThrowWhenFileTruncated() throws IOException {
+        final byte[] bytes = write(List.of(fromTestTask().withId(1L).build()));
+
+        assertThrows(EOFException.class, () -> BinaryTaskFormat.read(new ByteArrayInputStream(Arrays.copyOf(bytes,
+                bytes.length - 1))));
+    }
+
+    @Test
+    public void shouldThrowWhenDataAfterLastRecord() throws IOException {
+        final byte[] bytes = write(List.of());
+
+        final Exception exception = assertThrows(ManagerLoadException.class,
+                () -> BinaryTaskFormat.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length + 1))));
+        assertEquals("unexpected data after last record", exception.getMessage(), WRONG_EXCEPTION_MESSAGE);
+    }
+
+    private static byte[] write(List<Task> tasks) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTaskFormat.write(out, tasks);
+        return out.toByteArray();
+    }
+}
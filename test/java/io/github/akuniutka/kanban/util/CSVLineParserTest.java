@@ -1,8 +1,13 @@
 package io.github.akuniutka.kanban.util;
 
 import io.github.akuniutka.kanban.exception.CSVParsingException;
+import io.github.akuniutka.kanban.model.TaskType;
 import org.junit.jupiter.api.Test;
 
+import java.nio.CharBuffer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CSVLineParserTest {
@@ -249,4 +254,75 @@ class CSVLineParserTest {
         Exception exception = assertThrows(CSVParsingException.class, parser::next);
         assertEquals("no comma after closing double quote", exception.getMessage(), WRONG_EXCEPTION_MESSAGE);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldExposeFieldBoundsWhenAdvance() {
+        CSVLineParser parser = new CSVLineParser("tokenA,\"tokenB\",");
+        parser.advance();
+        parser.advance();
+
+        assertAll("wrong field bounds",
+                () -> assertEquals(7, parser.fieldStart(), "wrong field start"),
+                () -> assertEquals(15, parser.fieldEnd(), "wrong field end"),
+                () -> assertTrue(parser.isFieldQuoted(), "field should be quoted"),
+                () -> assertEquals("tokenB", parser.fieldAsUnquotedText(), "wrong unquoted text")
+        );
+    }
+
+    @Test
+    public void shouldDecodeFieldsWhenParseCharBuffer() {
+        CSVLineParser parser = new CSVLineParser(CharBuffer.wrap("42,SUBTASK,null,"));
+        parser.advance();
+        long id = parser.fieldAsLong();
+        parser.advance();
+        TaskType type = parser.fieldAsEnum(TaskType.values());
+        parser.advance();
+        boolean isNull = parser.fieldEquals("null");
+        parser.advance();
+
+        assertAll("wrong decoded fields",
+                () -> assertEquals(42L, id, "wrong id"),
+                () -> assertEquals(TaskType.SUBTASK, type, "wrong type"),
+                () -> assertTrue(isNull, "field should be null"),
+                () -> assertTrue(parser.isFieldEmpty(), "last field should be empty")
+        );
+    }
+
+    @Test
+    public void shouldReturnNullWhenFieldIsNotEnumConstant() {
+        CSVLineParser parser = new CSVLineParser("TASKS");
+        parser.advance();
+
+        assertNull(parser.fieldAsEnum(TaskType.values()), "should be no enum constant");
+    }
+
+    @Test
+    public void shouldThrowWhenFieldIsNotNumber() {
+        CSVLineParser parser = new CSVLineParser("1a,2");
+        parser.advance();
+
+        assertThrows(NumberFormatException.class, parser::fieldAsLong);
+    }
+
+    @Test
+    public void shouldDecodeDateTimeAsLocalDateTimeParseDoes() {
+        for (String text : new String[]{"2000-05-01T13:30", "2000-05-01T13:30:15", "2000-05-01T13:30:15.1",
+                "2000-05-01T13:30:15.123456789", "+12000-05-01T13:30"}) {
+            CSVLineParser parser = new CSVLineParser(text + ",");
+            parser.advance();
+
+            assertEquals(LocalDateTime.parse(text), parser.fieldAsDateTime(), "wrong date and time");
+        }
+    }
+
+    @Test
+    public void shouldThrowWhenDateTimeInvalid() {
+        for (String text : new String[]{"2000-02-30T13:30", "2000-05-01T24:00", "2000-05-01 13:30",
+                "2000-05-01T13:3x"}) {
+            CSVLineParser parser = new CSVLineParser(text);
+            parser.advance();
+
+            assertThrows(DateTimeParseException.class, parser::fieldAsDateTime, text);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.akuniutka.kanban.util;
+
+import io.github.akuniutka.kanban.model.Task;
+import io.github.akuniutka.kanban.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.akuniutka.kanban.TestModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CSVTaskWriterTest {
+    @Test
+    public void shouldWriteSameBytesAsCSVTaskFormat() throws IOException {
+        final List<Task> tasks = testTasks();
+
+        assertArrayEquals(expected(tasks, false), write(tasks, false, 64 * 1024), "wrong bytes written");
+    }
+
+    @Test
+    public void shouldWriteSameBytesAsCSVTaskFormatWhenChecksums() throws IOException {
+        final List<Task> tasks = testTasks();
+
+        assertArrayEquals(expected(tasks, true), write(tasks, true, 64 * 1024), "wrong bytes written");
+    }
+
+    @Test
+    public void shouldWriteSameBytesWhenBufferSmallerThanRecord() throws IOException {
+        final List<Task> tasks = new ArrayList<>(testTasks());
+        tasks.add(fromTestTask().withId(100L).withTitle("x".repeat(1000)).withDescription("й".repeat(1000)).build());
+
+        assertArrayEquals(expected(tasks, true), write(tasks, true, 16), "wrong bytes written");
+    }
+
+    @Test
+    public void shouldWriteNothingWhenNotFlushed() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final CSVTaskWriter writer = new CSVTaskWriter(out, false, 64 * 1024);
+
+        writer.writeHeader();
+        writer.write(fromTestTask().build());
+
+        assertEquals(0, out.size(), "should buffer records until flushed");
+    }
+
+    private static List<Task> testTasks() {
+        return List.of(
+                fromTestTask().build(),
+                fromEmptyTask().withId(2L).build(),
+                fromModifiedTask().withId(-3L).withStatus(TaskStatus.DONE).build(),
+                fromTestTask().withId(Long.MAX_VALUE).withDuration(Duration.ofMinutes(Long.MAX_VALUE / 60L))
+                        .withStartTime(LocalDateTime.of(2000, 1, 2, 3, 4, 5)).build(),
+                fromTestTask().withId(Long.MIN_VALUE).withDuration(Duration.ZERO)
+                        .withStartTime(LocalDateTime.of(999, 12, 31, 23, 59, 0, 100_000_000)).build(),
+                fromTestTask().withId(5L).withStartTime(LocalDateTime.of(2024, 2, 29, 0, 0, 0, 123_456_000)).build(),
+                fromTestTask().withId(6L).withStartTime(LocalDateTime.of(2024, 2, 29, 0, 0, 0, 1)).build(),
+                fromTestTask().withId(7L).withStartTime(LocalDateTime.of(10000, 1, 1, 0, 0)).build(),
+                fromTestTask().withId(8L).withStartTime(LocalDateTime.of(-1, 1, 1, 0, 0)).build(),
+                fromTestTask().withId(9L).withTitle("Заголовок €").withDescription("emoji 😀, lone \uD800")
+                        .build(),
+                fromTestEpic().withId(10L).build(),
+                fromEmptyEpic().withId(11L).build(),
+                fromTestSubtask(10L).withId(12L).build(),
+                fromEmptySubtask(10L).withId(13L).build(),
+                fromEmptySubtask().withId(14L).build()
+        );
+    }
+
+    private static byte[] write(List<Task> tasks, boolean hasChecksums, int bufferSize) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final CSVTaskWriter writer = new CSVTaskWriter(out, hasChecksums, bufferSize);
+        writer.writeHeader();
+        for (Task task : tasks) {
+            writer.write(task);
+        }
+        writer.flush();
+        return out.toByteArray();
+    }
+
+    private static byte[] expected(List<Task> tasks, boolean hasChecksums) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(hasChecksums ? CSVTaskFormat.CHECKSUM_FILE_HEADER : CSVTaskFormat.FILE_HEADER)
+                .append(System.lineSeparator());
+        for (Task task : tasks) {
+            final String line = CSVTaskFormat.format(task);
+            sb.append(hasChecksums ? CSVTaskFormat.appendChecksum(line) : line).append(System.lineSeparator());
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}